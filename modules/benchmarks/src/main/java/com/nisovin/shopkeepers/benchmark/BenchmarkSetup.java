@@ -0,0 +1,62 @@
+package com.nisovin.shopkeepers.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import com.nisovin.shopkeepers.compat.NMSManager;
+import com.nisovin.shopkeepers.compat.api.NMSCallProvider;
+import com.nisovin.shopkeepers.compat.v1_14_R1.NMSHandler;
+import com.nisovin.shopkeepers.testutil.DummyServer;
+import com.nisovin.shopkeepers.util.Log;
+
+/**
+ * Prepares the environment for benchmarks that run without a live server.
+ * <p>
+ * This sets up the {@link DummyServer} of the tests, the plugin's logger, and the NMS provider that matches the
+ * CraftBukkit version used by the {@link DummyServer}.
+ */
+public final class BenchmarkSetup {
+
+	private static boolean setup = false;
+
+	private BenchmarkSetup() {
+	}
+
+	public static synchronized void setup() {
+		if (setup) return;
+		setup = true;
+
+		DummyServer.setup();
+		Log.setLogger(Logger.getLogger("Shopkeepers-Benchmarks"));
+		setNMSProvider(new NMSHandler());
+	}
+
+	// The NMSManager usually determines the provider based on the server version, which requires a plugin instance.
+	private static void setNMSProvider(NMSCallProvider provider) {
+		try {
+			Field providerField = NMSManager.class.getDeclaredField("provider");
+			providerField.setAccessible(true);
+			providerField.set(null, provider);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not set the NMS provider!", e);
+		}
+	}
+
+	// An item with a custom name, lore and enchantment, similar to typical shop items.
+	public static ItemStack createCustomItem(Material type, int amount) {
+		ItemStack itemStack = new ItemStack(type, amount);
+		ItemMeta itemMeta = itemStack.getItemMeta();
+		itemMeta.setDisplayName(ChatColor.GOLD + "Custom " + type.name().toLowerCase());
+		itemMeta.setLore(Arrays.asList(ChatColor.GRAY + "Line 1", ChatColor.GRAY + "Line 2"));
+		itemMeta.addEnchant(Enchantment.DURABILITY, 1, true);
+		itemStack.setItemMeta(itemMeta);
+		return itemStack;
+	}
+}
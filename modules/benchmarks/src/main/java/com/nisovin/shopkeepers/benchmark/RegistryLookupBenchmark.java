@@ -0,0 +1,125 @@
+package com.nisovin.shopkeepers.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.container.protection.ProtectedContainers;
+import com.nisovin.shopkeepers.util.ChunkKeys;
+import com.nisovin.shopkeepers.util.LongObjectHashMap;
+
+/**
+ * Benchmarks the position based lookups that are performed for frequently called events: The lookup of protected
+ * containers, and the lookup of chunk entries by chunk key, as used by the shopkeeper registry.
+ * <p>
+ * The shops are placed randomly within a square area of loaded chunks, and the looked up positions are randomly
+ * distributed within the same area. Most looked up positions therefore do not contain a shop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegistryLookupBenchmark {
+
+	private static final String WORLD_NAME = "world";
+	// The number of chunks along each axis of the area containing the shops:
+	private static final int AREA_CHUNKS = 256;
+	// A power of two, so that the next lookup position can be determined cheaply:
+	private static final int LOOKUP_COUNT = 1 << 16;
+
+	@Param({ "10000", "50000" })
+	public int shopCount;
+
+	private ProtectedContainers protectedContainers;
+	private LongObjectHashMap<Object> entriesByChunkKey;
+	private Map<ChunkCoords, Object> entriesByChunkCoords;
+
+	// Lookup positions:
+	private int[] xs;
+	private int[] ys;
+	private int[] zs;
+	private int nextLookup = 0;
+
+	@Setup
+	public void setup() {
+		BenchmarkSetup.setup();
+		Random random = new Random(42L);
+		int areaBlocks = AREA_CHUNKS * 16;
+		PlayerShopkeeper shopkeeper = (PlayerShopkeeper) Proxy.newProxyInstance(PlayerShopkeeper.class.getClassLoader(),
+				new Class<?>[] { PlayerShopkeeper.class }, (proxy, method, args) -> {
+					throw new UnsupportedOperationException(method.getName());
+				});
+
+		// The plugin is only required to enable the container protection listeners:
+		protectedContainers = new ProtectedContainers(null);
+		entriesByChunkKey = new LongObjectHashMap<>();
+		entriesByChunkCoords = new HashMap<>();
+		for (int i = 0; i < shopCount; i++) {
+			int x = random.nextInt(areaBlocks);
+			int y = 40 + random.nextInt(40);
+			int z = random.nextInt(areaBlocks);
+			protectedContainers.addContainer(WORLD_NAME, x, y, z, shopkeeper);
+			entriesByChunkKey.put(ChunkKeys.fromBlockPos(x, z), shopkeeper);
+			entriesByChunkCoords.put(new ChunkCoords(WORLD_NAME, x >> 4, z >> 4), shopkeeper);
+		}
+
+		xs = new int[LOOKUP_COUNT];
+		ys = new int[LOOKUP_COUNT];
+		zs = new int[LOOKUP_COUNT];
+		for (int i = 0; i < LOOKUP_COUNT; i++) {
+			xs[i] = random.nextInt(areaBlocks);
+			ys[i] = 40 + random.nextInt(40);
+			zs[i] = random.nextInt(areaBlocks);
+		}
+	}
+
+	private int nextLookupIndex() {
+		int index = nextLookup;
+		nextLookup = (index + 1) & (LOOKUP_COUNT - 1);
+		return index;
+	}
+
+	@Benchmark
+	public boolean mightBeProtectedContainer() {
+		int index = this.nextLookupIndex();
+		return protectedContainers.mightBeProtected(WORLD_NAME, xs[index], zs[index]);
+	}
+
+	@Benchmark
+	public List<PlayerShopkeeper> getProtectedContainerShopkeepers() {
+		int index = this.nextLookupIndex();
+		return protectedContainers.getShopkeepers(WORLD_NAME, xs[index], ys[index], zs[index]);
+	}
+
+	@Benchmark
+	public Object getChunkEntryByChunkKey() {
+		int index = this.nextLookupIndex();
+		return entriesByChunkKey.get(ChunkKeys.fromBlockPos(xs[index], zs[index]));
+	}
+
+	// For comparison: The lookup via ChunkCoords, which needs to allocate a key object for every lookup.
+	@Benchmark
+	public Object getChunkEntryByChunkCoords() {
+		int index = this.nextLookupIndex();
+		return entriesByChunkCoords.get(new ChunkCoords(WORLD_NAME, xs[index] >> 4, zs[index] >> 4));
+	}
+}
@@ -0,0 +1,283 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.benchmark.BenchmarkSetup;
+
+/**
+ * Benchmarks the saving and loading of synthetic shopkeeper datasets by the storage backends of the
+ * {@link SKShopkeeperStorage}.
+ * <p>
+ * Each operation is measured once per iteration, since a single save or load of the larger datasets already takes a
+ * considerable amount of time. The data is written to a temporary directory.
+ * <p>
+ * The encoding and decoding of the data of a single shopkeeper by the YAML and binary data formats is measured
+ * separately.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StorageBenchmark {
+
+	private static final int OFFERS_COUNT = 5;
+	// Every nth shopkeeper is a player shopkeeper:
+	private static final int PLAYER_SHOP_INTERVAL = 4;
+	// The share of shopkeepers that are dirty during an incremental save:
+	private static final int DIRTY_PERCENTAGE = 1;
+
+	@State(Scope.Benchmark)
+	public static class Dataset {
+
+		@Param({ "yaml", "yaml-split", "binary", "sqlite" })
+		public String storageType;
+
+		@Param({ "10000", "50000" })
+		public int shopCount;
+
+		File directory;
+		SaveData saveData;
+		SaveData dirtySaveData;
+		// Contains the saved dataset, for the loading benchmarks:
+		File loadDirectory;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException, StorageException {
+			BenchmarkSetup.setup();
+			directory = Files.createTempDirectory("shopkeepers-benchmark").toFile();
+			String dataVersion = new DataVersion(2, Bukkit.getUnsafe().getDataVersion()).getCombinded();
+			saveData = new SaveData(dataVersion);
+			dirtySaveData = new SaveData(dataVersion);
+			int dirtyInterval = 100 / DIRTY_PERCENTAGE;
+			for (int id = 1; id <= shopCount; id++) {
+				MemoryConfiguration shopkeeperData = createShopkeeperData(id);
+				saveData.shopkeepers.put(id, DataSnapshot.of(shopkeeperData));
+				if (id % dirtyInterval == 0) {
+					// Changed data, so that the backends cannot skip writing it:
+					shopkeeperData.set("name", "&aRenamed shopkeeper " + id);
+					dirtySaveData.shopkeepers.put(id, DataSnapshot.of(shopkeeperData));
+				}
+			}
+
+			loadDirectory = new File(directory, "load");
+			StorageBackend backend = this.createBackend(loadDirectory);
+			try {
+				backend.save(saveData);
+			} finally {
+				backend.close();
+			}
+		}
+
+		StorageBackend createBackend(File dataFolder) {
+			return SKShopkeeperStorage.createBackend(StorageType.fromIdentifier(storageType), dataFolder);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			deleteDirectory(directory);
+		}
+	}
+
+	// Data similar to the save data of admin and player shopkeepers:
+	private static MemoryConfiguration createShopkeeperData(int id) {
+		MemoryConfiguration shopkeeperData = new MemoryConfiguration();
+		boolean playerShop = (id % PLAYER_SHOP_INTERVAL == 0);
+		shopkeeperData.set("uniqueId", new UUID(id, id).toString());
+		shopkeeperData.set("name", "&aShopkeeper " + id);
+		shopkeeperData.set("world", "world");
+		shopkeeperData.set("x", (id % 1000) * 3);
+		shopkeeperData.set("y", 64);
+		shopkeeperData.set("z", (id / 1000) * 3);
+		shopkeeperData.set("yaw", 90.0F);
+		shopkeeperData.set("type", playerShop ? "sell" : "admin");
+		shopkeeperData.set("object.type", "villager");
+		shopkeeperData.set("object.profession", "FARMER");
+		if (playerShop) {
+			shopkeeperData.set("owner uuid", new UUID(0L, id % 500).toString());
+			shopkeeperData.set("owner", "Player" + (id % 500));
+			shopkeeperData.set("chestx", (id % 1000) * 3);
+			shopkeeperData.set("chesty", 63);
+			shopkeeperData.set("chestz", (id / 1000) * 3);
+		} else {
+			shopkeeperData.set("trade-perm", "");
+		}
+		for (int i = 1; i <= OFFERS_COUNT; i++) {
+			String offerKey = "recipes." + i;
+			shopkeeperData.set(offerKey + ".resultItem", BenchmarkSetup.createCustomItem(Material.DIAMOND_SWORD, 1));
+			shopkeeperData.set(offerKey + ".item1", new ItemStack(Material.EMERALD, i));
+			shopkeeperData.set(offerKey + ".item2", new ItemStack(Material.DIAMOND, 2));
+		}
+		return shopkeeperData;
+	}
+
+	private static void deleteDirectory(File directory) throws IOException {
+		if (directory == null || !directory.exists()) return;
+		try (Stream<Path> paths = Files.walk(directory.toPath())) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	// The storage backends are package-private, so the benchmarks do not expose them in their signatures.
+
+	// A new backend that stores into an empty directory.
+	@State(Scope.Thread)
+	public static class EmptyBackend {
+
+		File directory;
+		StorageBackend backend;
+
+		@Setup(Level.Iteration)
+		public void setup(Dataset dataset) throws IOException {
+			directory = Files.createTempDirectory(dataset.directory.toPath(), "save").toFile();
+			backend = dataset.createBackend(directory);
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown() throws IOException {
+			backend.close();
+			deleteDirectory(directory);
+		}
+	}
+
+	// A backend that has already stored the complete dataset.
+	@State(Scope.Thread)
+	public static class SavedBackend {
+
+		File directory;
+		StorageBackend backend;
+
+		@Setup(Level.Iteration)
+		public void setup(Dataset dataset) throws IOException, StorageException {
+			directory = Files.createTempDirectory(dataset.directory.toPath(), "save").toFile();
+			backend = dataset.createBackend(directory);
+			backend.save(dataset.saveData);
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown() throws IOException {
+			backend.close();
+			deleteDirectory(directory);
+		}
+	}
+
+	// A new backend that loads the saved dataset.
+	@State(Scope.Thread)
+	public static class LoadingBackend {
+
+		StorageBackend backend;
+
+		@Setup(Level.Iteration)
+		public void setup(Dataset dataset) {
+			backend = dataset.createBackend(dataset.loadDirectory);
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown() {
+			backend.close();
+		}
+	}
+
+	@Benchmark
+	public void saveAll(Dataset dataset, EmptyBackend emptyBackend) throws StorageException {
+		emptyBackend.backend.save(dataset.saveData);
+	}
+
+	@Benchmark
+	public void saveDirty(Dataset dataset, SavedBackend savedBackend) throws StorageException {
+		savedBackend.backend.save(dataset.dirtySaveData);
+	}
+
+	@Benchmark
+	public int load(LoadingBackend loadingBackend) throws StorageException {
+		return loadingBackend.backend.load(null).shopkeepers.size();
+	}
+
+	@Benchmark
+	public int loadParallel(LoadingBackend loadingBackend) throws StorageException {
+		return loadingBackend.backend.load(ForkJoinPool.commonPool()).shopkeepers.size();
+	}
+
+	// The data of a single shopkeeper, in the different data formats.
+	@State(Scope.Benchmark)
+	public static class ShopkeeperValues {
+
+		Map<String, Object> values;
+		String yaml;
+		byte[] binary;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			BenchmarkSetup.setup();
+			values = DataSnapshot.of(createShopkeeperData(1)).getValues();
+			yaml = StorageBackend.toYamlString(values);
+			binary = BinaryDataFormat.encode(values);
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 5, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public String encodeYaml(ShopkeeperValues shopkeeperValues) {
+		return StorageBackend.toYamlString(shopkeeperValues.values);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 5, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public byte[] encodeBinary(ShopkeeperValues shopkeeperValues) {
+		return BinaryDataFormat.encode(shopkeeperValues.values);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 5, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public YamlConfiguration decodeYaml(ShopkeeperValues shopkeeperValues) throws InvalidConfigurationException {
+		return StorageBackend.loadYaml(shopkeeperValues.yaml);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 5, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public ConfigurationSection decodeBinary(ShopkeeperValues shopkeeperValues) throws IOException {
+		return BinaryDataFormat.decode(shopkeeperValues.binary);
+	}
+}
@@ -0,0 +1,87 @@
+package com.nisovin.shopkeepers.ui.defaults;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.craftbukkit.v1_14_R1.inventory.CraftItemStack;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.benchmark.BenchmarkSetup;
+import com.nisovin.shopkeepers.util.ItemUtils;
+
+/**
+ * Benchmarks the checks that the {@link TradingHandler} performs to match the offered items to the required items of
+ * the used trading recipe, including the strict item comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TradeCheckBenchmark {
+
+	// Trade with a single currency item:
+	private ItemStack requiredCurrency;
+	private ItemStack offeredCurrency;
+
+	// Trade with two custom items, offered in swapped order:
+	private ItemStack requiredItem1;
+	private ItemStack requiredItem2;
+	private ItemStack offeredItem1;
+	private ItemStack offeredItem2;
+
+	private static ItemStack asCraftItem(ItemStack itemStack) {
+		return CraftItemStack.asCraftMirror(CraftItemStack.asNMSCopy(itemStack));
+	}
+
+	@Setup
+	public void setup() {
+		BenchmarkSetup.setup();
+		requiredCurrency = new ItemStack(Material.EMERALD, 10);
+		offeredCurrency = asCraftItem(new ItemStack(Material.EMERALD, 64));
+
+		requiredItem1 = BenchmarkSetup.createCustomItem(Material.DIAMOND, 2);
+		requiredItem2 = BenchmarkSetup.createCustomItem(Material.GOLD_INGOT, 5);
+		offeredItem1 = asCraftItem(BenchmarkSetup.createCustomItem(Material.GOLD_INGOT, 64));
+		offeredItem2 = asCraftItem(BenchmarkSetup.createCustomItem(Material.DIAMOND, 64));
+	}
+
+	// Mimics the determination of the used item order by the TradingHandler, followed by the strict item comparison.
+	private static boolean checkTrade(ItemStack offeredItem1, ItemStack offeredItem2, ItemStack requiredItem1, ItemStack requiredItem2) {
+		if (!TradingHandler.matches(offeredItem1, offeredItem2, requiredItem1, requiredItem2)) {
+			if (!TradingHandler.matches(offeredItem1, offeredItem2, requiredItem2, requiredItem1)) {
+				return false;
+			}
+			ItemStack temp = offeredItem1;
+			offeredItem1 = offeredItem2;
+			offeredItem2 = temp;
+		}
+		return ItemUtils.isSimilar(requiredItem1, offeredItem1) && ItemUtils.isSimilar(requiredItem2, offeredItem2);
+	}
+
+	@Benchmark
+	public boolean checkCurrencyTrade() {
+		return checkTrade(offeredCurrency, null, requiredCurrency, null);
+	}
+
+	@Benchmark
+	public boolean checkSwappedCustomItemsTrade() {
+		return checkTrade(offeredItem1, offeredItem2, requiredItem1, requiredItem2);
+	}
+
+	@Benchmark
+	public boolean checkMismatchingTrade() {
+		return checkTrade(offeredCurrency, null, requiredItem1, requiredItem2);
+	}
+}
@@ -0,0 +1,87 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.craftbukkit.v1_14_R1.inventory.CraftItemStack;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.benchmark.BenchmarkSetup;
+
+/**
+ * Benchmarks {@link ItemData#matches(ItemStack)} for the kinds of items that are typically compared against the
+ * currency and trade items.
+ * <p>
+ * The compared items are {@link CraftItemStack}s, like the items of inventories on a live server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemDataBenchmark {
+
+	private ItemData plainData;
+	private ItemData customData;
+	private ItemStack plainItem;
+	private ItemStack customItem;
+	private ItemStack otherCustomItem;
+	private ItemStack otherTypeItem;
+
+	private static ItemStack asCraftItem(ItemStack itemStack) {
+		return CraftItemStack.asCraftMirror(CraftItemStack.asNMSCopy(itemStack));
+	}
+
+	@Setup
+	public void setup() {
+		BenchmarkSetup.setup();
+		ItemStack custom = BenchmarkSetup.createCustomItem(Material.EMERALD, 1);
+		plainData = new ItemData(Material.EMERALD);
+		customData = new ItemData(custom);
+		plainItem = asCraftItem(new ItemStack(Material.EMERALD, 16));
+		customItem = asCraftItem(custom);
+		otherCustomItem = asCraftItem(ItemUtils.createItemStack(Material.EMERALD, 1, "Other", null));
+		otherTypeItem = asCraftItem(new ItemStack(Material.DIAMOND, 16));
+	}
+
+	@Benchmark
+	public boolean plainDataMatchesPlainItem() {
+		return plainData.matches(plainItem);
+	}
+
+	@Benchmark
+	public boolean plainDataMatchesCustomItem() {
+		return plainData.matches(customItem);
+	}
+
+	@Benchmark
+	public boolean customDataMatchesCustomItem() {
+		return customData.matches(customItem);
+	}
+
+	@Benchmark
+	public boolean customDataMatchesPlainItem() {
+		return customData.matches(plainItem);
+	}
+
+	@Benchmark
+	public boolean customDataMatchesOtherCustomItem() {
+		return customData.matches(otherCustomItem);
+	}
+
+	@Benchmark
+	public boolean customDataMatchesOtherTypeItem() {
+		return customData.matches(otherTypeItem);
+	}
+}
@@ -0,0 +1,113 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.benchmark.BenchmarkSetup;
+
+/**
+ * Benchmarks the item operations that are used on the contents of player inventories and shop containers during
+ * trades.
+ * <p>
+ * The adding and removing benchmarks operate on a copy of the contents, because they modify the contents. The
+ * {@link #copyContents()} benchmark measures the cost of this copy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemUtilsBenchmark {
+
+	// The size of the storage contents of a player inventory:
+	private static final int CONTENTS_SIZE = 36;
+
+	private ItemStack[] contents;
+	private ItemStack currencyItems;
+	private ItemData currencyData;
+	private ItemStack customItem;
+
+	@Setup
+	public void setup() {
+		BenchmarkSetup.setup();
+		currencyItems = new ItemStack(Material.EMERALD, 100);
+		currencyData = new ItemData(Material.EMERALD);
+		customItem = BenchmarkSetup.createCustomItem(Material.DIAMOND_SWORD, 1);
+
+		// A partially filled inventory with a mix of stackable, custom and currency items:
+		contents = new ItemStack[CONTENTS_SIZE];
+		for (int slot = 0; slot < 24; slot++) {
+			switch (slot % 4) {
+			case 0:
+				contents[slot] = new ItemStack(Material.EMERALD, 16);
+				break;
+			case 1:
+				contents[slot] = BenchmarkSetup.createCustomItem(Material.EMERALD, 8);
+				break;
+			case 2:
+				contents[slot] = new ItemStack(Material.COBBLESTONE, 64);
+				break;
+			default:
+				contents[slot] = BenchmarkSetup.createCustomItem(Material.DIAMOND_SWORD, 1);
+				break;
+			}
+		}
+	}
+
+	private ItemStack[] copyOfContents() {
+		ItemStack[] copy = new ItemStack[contents.length];
+		for (int slot = 0; slot < contents.length; slot++) {
+			ItemStack itemStack = contents[slot];
+			copy[slot] = (itemStack != null) ? itemStack.clone() : null;
+		}
+		return copy;
+	}
+
+	@Benchmark
+	public ItemStack[] copyContents() {
+		return this.copyOfContents();
+	}
+
+	@Benchmark
+	public List<ItemCount> countItems() {
+		return ItemUtils.countItems(contents, null);
+	}
+
+	@Benchmark
+	public int addCurrencyItems() {
+		ItemStack[] contents = this.copyOfContents();
+		return ItemUtils.addItems(contents, currencyItems);
+	}
+
+	@Benchmark
+	public int addCustomItem() {
+		ItemStack[] contents = this.copyOfContents();
+		return ItemUtils.addItems(contents, customItem);
+	}
+
+	@Benchmark
+	public int removeCurrencyItemsByData() {
+		ItemStack[] contents = this.copyOfContents();
+		return ItemUtils.removeItems(contents, currencyData, 40);
+	}
+
+	@Benchmark
+	public int removeCustomItem() {
+		ItemStack[] contents = this.copyOfContents();
+		return ItemUtils.removeItems(contents, customItem);
+	}
+}
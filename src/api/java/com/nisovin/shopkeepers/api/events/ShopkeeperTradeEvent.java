@@ -16,6 +16,10 @@ import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
  * Depending on the inventory action, a single inventory click of a player might trigger several successive trades
  * (possibly even using different trading recipes). Canceling a trade will also cancel all successive trades.
  * <p>
+ * Successive trades that use the same trading recipe and offered items (eg. when the player shift-clicks the result
+ * slot) are handled together and only call a single event. {@link #getTradeCount()} returns the number of trades that
+ * are represented by the event. Canceling the event cancels all of these trades.
+ * <p>
  * All other preconditions regarding the trade have already been checked before this event gets called. So if this event
  * does not get cancelled you can assume that the trade is going to get applied.
  * <p>
@@ -30,6 +34,7 @@ public class ShopkeeperTradeEvent extends ShopkeeperEvent implements Cancellable
 	private final ItemStack offeredItem1;
 	private final ItemStack offeredItem2;
 	private final boolean swappedItemOrder;
+	private final int tradeCount;
 	private boolean cancelled = false;
 
 	// the passed offered items are expected to be copies and their stack sizes are supposed to match those of the
@@ -37,6 +42,13 @@ public class ShopkeeperTradeEvent extends ShopkeeperEvent implements Cancellable
 	public ShopkeeperTradeEvent(Shopkeeper shopkeeper, Player player, InventoryClickEvent clickEvent,
 								TradingRecipe tradingRecipe, ItemStack offeredItem1, ItemStack offeredItem2,
 								boolean swappedItemOrder) {
+		this(shopkeeper, player, clickEvent, tradingRecipe, offeredItem1, offeredItem2, swappedItemOrder, 1);
+	}
+
+	// the trade count has to be positive
+	public ShopkeeperTradeEvent(Shopkeeper shopkeeper, Player player, InventoryClickEvent clickEvent,
+								TradingRecipe tradingRecipe, ItemStack offeredItem1, ItemStack offeredItem2,
+								boolean swappedItemOrder, int tradeCount) {
 		super(shopkeeper);
 		this.player = player;
 		this.clickEvent = clickEvent;
@@ -44,6 +56,7 @@ public class ShopkeeperTradeEvent extends ShopkeeperEvent implements Cancellable
 		this.offeredItem1 = offeredItem1;
 		this.offeredItem2 = offeredItem2;
 		this.swappedItemOrder = swappedItemOrder;
+		this.tradeCount = tradeCount;
 	}
 
 	/**
@@ -116,6 +129,18 @@ public class ShopkeeperTradeEvent extends ShopkeeperEvent implements Cancellable
 		return swappedItemOrder;
 	}
 
+	/**
+	 * Gets the number of successive trades represented by this event.
+	 * <p>
+	 * All of these trades use the same trading recipe and offered items. The stack sizes of the trading recipe and the
+	 * offered items correspond to a single trade.
+	 * 
+	 * @return the number of trades, at least <code>1</code>
+	 */
+	public int getTradeCount() {
+		return tradeCount;
+	}
+
 	/**
 	 * If cancelled the trade will not take place.
 	 */
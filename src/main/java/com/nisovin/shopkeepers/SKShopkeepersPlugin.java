@@ -59,6 +59,7 @@ import com.nisovin.shopkeepers.shopkeeper.SKTradingRecipe;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKBookOffer;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKPriceOffer;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKTradingOffer;
+import com.nisovin.shopkeepers.shopkeeper.player.ContainerStockListener;
 import com.nisovin.shopkeepers.shopobjects.SKDefaultShopObjectTypes;
 import com.nisovin.shopkeepers.shopobjects.SKShopObjectTypesRegistry;
 import com.nisovin.shopkeepers.shopobjects.citizens.CitizensShops;
@@ -122,6 +123,8 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 	private final SignShops signShops = new SignShops(this);
 	private final CitizensShops citizensShops = new CitizensShops(this);
 
+	private final TradeFileLogger tradeFileLogger = new TradeFileLogger(this);
+
 	private boolean outdatedServer = false;
 	private boolean incompatibleServer = false;
 	private ConfigLoadException configLoadError = null; // null on success
@@ -337,7 +340,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 		PluginManager pm = Bukkit.getPluginManager();
 		pm.registerEvents(new PlayerJoinQuitListener(this), this);
 		pm.registerEvents(new TradingCountListener(this), this);
-		pm.registerEvents(new TradeFileLogger(this.getSKDataFolder()), this);
+		pm.registerEvents(new ContainerStockListener(this), this);
+		tradeFileLogger.onEnable();
+		pm.registerEvents(tradeFileLogger, this);
 
 		// DEFAULT SHOP OBJECT TYPES
 
@@ -451,6 +456,9 @@ public class SKShopkeepersPlugin extends JavaPlugin implements ShopkeepersPlugin
 		// Save shopkeepers:
 		shopkeeperStorage.saveImmediateIfDirty();
 
+		// Write any pending trade logs:
+		tradeFileLogger.onDisable();
+
 		// Disable protected containers:
 		protectedContainers.disable();
 		removeShopOnContainerBreak.onDisable();
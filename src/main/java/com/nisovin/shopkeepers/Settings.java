@@ -26,6 +26,7 @@ import org.bukkit.inventory.ItemStack;
 
 import com.nisovin.shopkeepers.config.ConfigLoadException;
 import com.nisovin.shopkeepers.config.migration.ConfigMigrations;
+import com.nisovin.shopkeepers.storage.StorageType;
 import com.nisovin.shopkeepers.util.ItemData;
 import com.nisovin.shopkeepers.util.ItemUtils;
 import com.nisovin.shopkeepers.util.Log;
@@ -104,6 +105,8 @@ public class Settings {
 	// See DebugOptions for all available options.
 	public static List<String> debugOptions = new ArrayList<>(0);
 	public static boolean enableMetrics = true;
+	public static int shopkeeperTickBudget = 2;
+	public static int shopObjectChecksPerTick = 0;
 
 	/*
 	 * Messages
@@ -115,6 +118,10 @@ public class Settings {
 	 */
 	public static String fileEncoding = "UTF-8";
 	public static boolean saveInstantly = true;
+	public static String storageType = StorageType.YAML.getIdentifier();
+	public static boolean saveJournal = false;
+	public static int saveJournalCompactionSize = 1024;
+	public static boolean parallelLoading = false;
 
 	public static boolean convertPlayerItems = false;
 	public static boolean convertAllPlayerItems = true;
@@ -224,6 +231,7 @@ public class Settings {
 
 	public static boolean disableGravity = false;
 	public static int gravityChunkRange = 4;
+	public static int distantEntityAITickInterval = 4;
 	public static boolean silenceLivingShopEntities = true;
 
 	public static boolean showNameplates = true;
@@ -292,6 +300,9 @@ public class Settings {
 	public static boolean preventTradingWhileOwnerIsOnline = false;
 	public static boolean useStrictItemComparison = false;
 	public static boolean enablePurchaseLogging = false;
+	public static int purchaseLogMaxFileSize = 0;
+	public static boolean purchaseLogCompressRotatedFiles = false;
+	public static boolean purchaseLogItemData = false;
 	public static boolean incrementVillagerStatistics = false;
 
 	public static int taxRate = 0;
@@ -313,7 +324,7 @@ public class Settings {
 
 	// These String / String list settings are exempt from color conversion:
 	private static final Set<String> noColorConversionKeys = new HashSet<>(Arrays.asList(
-			toConfigKey("debugOptions"), toConfigKey("fileEncoding"), toConfigKey("shopCreationItemSpawnEggEntityType"),
+			toConfigKey("debugOptions"), toConfigKey("fileEncoding"), toConfigKey("storageType"), toConfigKey("shopCreationItemSpawnEggEntityType"),
 			toConfigKey("maxShopsPermOptions"), toConfigKey("enabledLivingShops"), toConfigKey("nameRegex"),
 			toConfigKey("language")));
 
@@ -398,6 +409,14 @@ public class Settings {
 			Log.warning("Config: All existing entity type names can be found here: https://hub.spigotmc.org/javadocs/spigot/org/bukkit/entity/EntityType.html");
 		}
 
+		if (StorageType.fromIdentifier(storageType) == null) {
+			Log.warning("Config: Unknown 'storage-type': " + storageType + ". Reverting to '" + StorageType.YAML.getIdentifier() + "'.");
+			storageType = StorageType.YAML.getIdentifier();
+		}
+		if (saveJournalCompactionSize <= 0) {
+			Log.warning("Config: 'save-journal-compaction-size' has to be positive.");
+			saveJournalCompactionSize = 1;
+		}
 		if (maxContainerDistance > 50) {
 			Log.warning("Config: 'max-container-distance' can be at most 50.");
 			maxContainerDistance = 50;
@@ -406,6 +425,10 @@ public class Settings {
 			Log.warning("Config: 'gravity-chunk-range' cannot be negative.");
 			gravityChunkRange = 0;
 		}
+		if (distantEntityAITickInterval <= 0) {
+			Log.warning("Config: 'distant-entity-ai-tick-interval' has to be positive.");
+			distantEntityAITickInterval = 1;
+		}
 		// Certain items cannot be of type AIR:
 		if (shopCreationItem.getType() == Material.AIR) {
 			Log.warning("Config: 'shop-creation-item' can not be AIR.");
@@ -432,6 +455,18 @@ public class Settings {
 			Log.warning("Config: 'max-trades-pages' can not be greater than 10!");
 			maxTradesPages = 10;
 		}
+		if (purchaseLogMaxFileSize < 0) {
+			Log.warning("Config: 'purchase-log-max-file-size' can not be negative!");
+			purchaseLogMaxFileSize = 0;
+		}
+		if (shopkeeperTickBudget < 0) {
+			Log.warning("Config: 'shopkeeper-tick-budget' can not be negative!");
+			shopkeeperTickBudget = 0;
+		}
+		if (shopObjectChecksPerTick < 0) {
+			Log.warning("Config: 'shop-object-checks-per-tick' can not be negative!");
+			shopObjectChecksPerTick = 0;
+		}
 		if (taxRate < 0) {
 			Log.warning("Config: 'tax-rate' can not be less than 0!");
 			taxRate = 0;
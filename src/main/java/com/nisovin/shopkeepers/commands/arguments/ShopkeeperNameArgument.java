@@ -1,10 +1,11 @@
 package com.nisovin.shopkeepers.commands.arguments;
 
-import java.util.Locale;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import com.nisovin.shopkeepers.api.ShopkeepersAPI;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistry;
 import com.nisovin.shopkeepers.commands.lib.ArgumentFilter;
 import com.nisovin.shopkeepers.commands.lib.arguments.ObjectNameArgument;
 import com.nisovin.shopkeepers.util.StringUtils;
@@ -46,18 +47,21 @@ public class ShopkeeperNameArgument extends ObjectNameArgument {
 	public static Iterable<String> getDefaultCompletionSuggestions(String namePrefix, Predicate<Shopkeeper> shopkeeperFilter) {
 		// Strips color, normalizes whitespace, converts to lowercase:
 		String normalizedNamePrefix = StringUtils.normalize(TextUtils.stripColor(namePrefix));
-		// TODO Improve by using a TreeMap for the prefix matching?
-		return ShopkeepersAPI.getShopkeeperRegistry().getAllShopkeepers().stream()
+		ShopkeeperRegistry shopkeeperRegistry = ShopkeepersAPI.getShopkeeperRegistry();
+		Stream<? extends Shopkeeper> shopkeepers;
+		if (StringUtils.isEmpty(normalizedNamePrefix)) {
+			// Suggest the names of all shopkeepers:
+			shopkeepers = shopkeeperRegistry.getAllShopkeepers().stream();
+		} else {
+			// Prefix lookup via the registry's name index:
+			shopkeepers = shopkeeperRegistry.getShopkeepersByNamePrefix(namePrefix);
+		}
+		return shopkeepers
 				.filter(shopkeeperFilter)
 				.map(shopkeeper -> {
 					String name = TextUtils.stripColor(shopkeeper.getName());
 					if (name.isEmpty()) return null;
-					String normalizedWithCase = StringUtils.normalizeKeepCase(name);
-					String normalized = normalizedWithCase.toLowerCase(Locale.ROOT);
-					if (normalized.startsWith(normalizedNamePrefix)) {
-						return normalizedWithCase;
-					}
-					return null; // no match
+					return StringUtils.normalizeKeepCase(name);
 				}).filter(name -> name != null)::iterator;
 	}
 
@@ -1,10 +1,9 @@
 package com.nisovin.shopkeepers.commands.arguments;
 
-import java.util.Locale;
 import java.util.UUID;
 import java.util.function.Predicate;
 
-import com.nisovin.shopkeepers.api.ShopkeepersAPI;
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.commands.lib.ArgumentFilter;
 import com.nisovin.shopkeepers.commands.lib.arguments.ObjectUUIDArgument;
@@ -45,15 +44,10 @@ public class ShopkeeperUUIDArgument extends ObjectUUIDArgument {
 	 * @return the shopkeeper uuid completion suggestions
 	 */
 	public static Iterable<UUID> getDefaultCompletionSuggestions(String uuidPrefix, Predicate<Shopkeeper> shopkeeperFilter) {
-		String normalizedUUIDPrefix = uuidPrefix.toLowerCase(Locale.ROOT);
-		// TODO Improve by using a TreeMap for the prefix matching?
-		return ShopkeepersAPI.getShopkeeperRegistry().getAllShopkeepers().stream()
+		// Prefix lookup via the registry's sorted unique id index:
+		return SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().getShopkeepersByUniqueIdPrefix(uuidPrefix)
 				.filter(shopkeeperFilter)
-				.map(shopkeeper -> shopkeeper.getUniqueId())
-				.filter(uuid -> {
-					// Assumption: UUID#toString is already lowercase (normalized)
-					return uuid.toString().startsWith(normalizedUUIDPrefix);
-				})::iterator;
+				.map(shopkeeper -> shopkeeper.getUniqueId())::iterator;
 	}
 
 	@Override
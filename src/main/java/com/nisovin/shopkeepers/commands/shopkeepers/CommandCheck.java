@@ -31,6 +31,7 @@ import com.nisovin.shopkeepers.commands.lib.arguments.OptionalArgument;
 import com.nisovin.shopkeepers.shopobjects.living.LivingEntityAI;
 import com.nisovin.shopkeepers.text.Text;
 import com.nisovin.shopkeepers.util.TextUtils;
+import com.nisovin.shopkeepers.util.Timings;
 
 class CommandCheck extends Command {
 
@@ -89,6 +90,9 @@ class CommandCheck extends Command {
 		sender.sendMessage("  Active shopkeepers: " + shopkeeperRegistry.getActiveShopkeepers().size());
 		sender.sendMessage("    With AI: " + livingEntityAI.getEntityCount());
 		sender.sendMessage("    With active AI: " + livingEntityAI.getActiveAIEntityCount());
+		sender.sendMessage("      By level of detail (near | distant): " + livingEntityAI.getNearAIEntityCount()
+				+ " | " + livingEntityAI.getDistantAIEntityCount());
+		sender.sendMessage("      AI ticked in the last tick: " + livingEntityAI.getTickedAIEntityCount());
 		sender.sendMessage("    With active gravity: " + livingEntityAI.getActiveGravityEntityCount());
 
 		double avgTotalAITimings = livingEntityAI.getTotalTimings().getAverageTimeMillis();
@@ -116,6 +120,14 @@ class CommandCheck extends Command {
 				+ TextUtils.DECIMAL_FORMAT.format(avgAITimings) + " ms" + " | "
 				+ TextUtils.DECIMAL_FORMAT.format(maxAITiming) + " ms");
 
+		Timings shopObjectCheckTimings = plugin.getShopkeeperRegistry().getShopObjectCheckTimings();
+		double avgShopObjectCheckTimings = shopObjectCheckTimings.getAverageTimeMillis();
+		double maxShopObjectCheckTiming = shopObjectCheckTimings.getMaxTimeMillis();
+		sender.sendMessage("  Shop object check timings (per tick) (avg | max): "
+				+ TextUtils.DECIMAL_FORMAT.format(avgShopObjectCheckTimings) + " ms" + " | "
+				+ TextUtils.DECIMAL_FORMAT.format(maxShopObjectCheckTiming) + " ms");
+		sender.sendMessage("    Pending checks in current cycle: " + plugin.getShopkeeperRegistry().getPendingShopObjectChecksCount());
+
 		for (World world : Bukkit.getWorlds()) {
 			String worldName = world.getName();
 			Chunk[] worldLoadedChunks = world.getLoadedChunks();
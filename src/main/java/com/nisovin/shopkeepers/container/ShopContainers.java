@@ -4,6 +4,7 @@ import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.block.Container;
+import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.Inventory;
 
 import com.nisovin.shopkeepers.util.ItemUtils;
@@ -30,6 +31,27 @@ public class ShopContainers {
 				|| ItemUtils.isShulkerBox(material);
 	}
 
+	/**
+	 * Checks if the given inventory type is used by the inventories of supported shop containers.
+	 * <p>
+	 * This can be used as a quick check before the location of an inventory is looked up. Other inventories, such as
+	 * custom plugin inventories, may use the same inventory types.
+	 * 
+	 * @param inventoryType
+	 *            the inventory type
+	 * @return <code>true</code> if the inventory type might belong to a supported shop container
+	 */
+	public static boolean isSupportedContainerInventory(InventoryType inventoryType) {
+		switch (inventoryType) {
+		case CHEST: // Also used by double chests
+		case BARREL:
+		case SHULKER_BOX:
+			return true;
+		default:
+			return false;
+		}
+	}
+
 	/**
 	 * Gets the {@link Inventory} of a supported type of shop container block.
 	 * <p>
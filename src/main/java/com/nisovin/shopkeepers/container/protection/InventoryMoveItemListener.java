@@ -1,6 +1,7 @@
 package com.nisovin.shopkeepers.container.protection;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -35,6 +36,12 @@ class InventoryMoveItemListener implements Listener {
 		// snapshot of the block's BlockState.
 		Location inventoryLocation = inventory.getLocation(); // can be null
 		if (inventoryLocation == null) return false;
+		// Quick check, which avoids fetching the block for most containers:
+		World world = inventoryLocation.getWorld();
+		if (world == null) return false;
+		if (!protectedContainers.mightBeProtected(world.getName(), inventoryLocation.getBlockX(), inventoryLocation.getBlockZ())) {
+			return false;
+		}
 		Block block = inventoryLocation.getBlock(); // not null
 		if (!ShopContainers.isSupportedContainer(block.getType())) return false;
 		// Also checks for protected connected chests (double chests):
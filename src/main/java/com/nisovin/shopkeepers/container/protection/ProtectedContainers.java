@@ -20,7 +20,10 @@ import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.container.ShopContainers;
+import com.nisovin.shopkeepers.util.BlockPositionKeys;
+import com.nisovin.shopkeepers.util.ChunkKeys;
 import com.nisovin.shopkeepers.util.ItemUtils;
+import com.nisovin.shopkeepers.util.LongObjectHashMap;
 import com.nisovin.shopkeepers.util.PermissionUtils;
 import com.nisovin.shopkeepers.util.Validate;
 
@@ -59,11 +62,30 @@ import com.nisovin.shopkeepers.util.Validate;
  */
 public class ProtectedContainers {
 
+	// The protected containers of a world.
+	private static class WorldContainers {
+
+		// Player shopkeepers by packed block position:
+		final LongObjectHashMap<List<PlayerShopkeeper>> shopkeepersByPosition = new LongObjectHashMap<>();
+		// The number of directly protected containers within or adjacent to each chunk, by chunk key. This also
+		// includes the chunks that may contain a chest which is connected to a directly protected chest.
+		final LongObjectHashMap<ChunkEntry> chunkEntries = new LongObjectHashMap<>();
+
+		boolean isEmpty() {
+			return shopkeepersByPosition.isEmpty();
+		}
+	}
+
+	private static class ChunkEntry {
+
+		int containerCount = 0;
+	}
+
 	private final SKShopkeepersPlugin plugin;
 	private final ContainerProtectionListener containerProtectionListener = new ContainerProtectionListener(this);
 	private final InventoryMoveItemListener inventoryMoveItemListener = new InventoryMoveItemListener(this);
-	// Player shopkeepers by location key:
-	private final Map<String, List<PlayerShopkeeper>> protectedContainers = new HashMap<>();
+	// Protected containers by world name:
+	private final Map<String, WorldContainers> protectedContainers = new HashMap<>();
 
 	public ProtectedContainers(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -85,36 +107,92 @@ public class ProtectedContainers {
 		protectedContainers.clear();
 	}
 
-	private String getKey(String worldName, int x, int y, int z) {
-		return worldName + ";" + x + ";" + y + ";" + z;
-	}
-
 	public void addContainer(String worldName, int x, int y, int z, PlayerShopkeeper shopkeeper) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
-		String key = this.getKey(worldName, x, y, z);
-		List<PlayerShopkeeper> shopkeepers = protectedContainers.get(key);
+		WorldContainers worldContainers = protectedContainers.computeIfAbsent(worldName, key -> new WorldContainers());
+		long positionKey = BlockPositionKeys.of(x, y, z);
+		List<PlayerShopkeeper> shopkeepers = worldContainers.shopkeepersByPosition.get(positionKey);
 		if (shopkeepers == null) {
 			shopkeepers = new ArrayList<>(1);
-			protectedContainers.put(key, shopkeepers);
+			worldContainers.shopkeepersByPosition.put(positionKey, shopkeepers);
+			this.updateChunkEntries(worldContainers, x, z, 1);
 		}
 		shopkeepers.add(shopkeeper);
 	}
 
 	public void removeContainer(String worldName, int x, int y, int z, PlayerShopkeeper shopkeeper) {
 		Validate.notNull(shopkeeper, "shopkeeper is null");
-		String key = this.getKey(worldName, x, y, z);
-		List<PlayerShopkeeper> shopkeepers = protectedContainers.get(key);
+		WorldContainers worldContainers = protectedContainers.get(worldName);
+		if (worldContainers == null) return;
+		long positionKey = BlockPositionKeys.of(x, y, z);
+		List<PlayerShopkeeper> shopkeepers = worldContainers.shopkeepersByPosition.get(positionKey);
 		if (shopkeepers == null) return;
 		shopkeepers.remove(shopkeeper);
 		if (shopkeepers.isEmpty()) {
-			protectedContainers.remove(key);
+			worldContainers.shopkeepersByPosition.remove(positionKey);
+			this.updateChunkEntries(worldContainers, x, z, -1);
+			if (worldContainers.isEmpty()) {
+				protectedContainers.remove(worldName);
+			}
+		}
+	}
+
+	// Updates the container counts of the chunk of the container and of the chunks of its horizontally adjacent blocks
+	// (which may contain connected chests). Every affected chunk is only counted once.
+	private void updateChunkEntries(WorldContainers worldContainers, int x, int z, int delta) {
+		long chunkKey = ChunkKeys.fromBlockPos(x, z);
+		this.updateChunkEntry(worldContainers, chunkKey, delta);
+		long adjacentChunkKey;
+		if ((adjacentChunkKey = ChunkKeys.fromBlockPos(x - 1, z)) != chunkKey) {
+			this.updateChunkEntry(worldContainers, adjacentChunkKey, delta);
+		} else if ((adjacentChunkKey = ChunkKeys.fromBlockPos(x + 1, z)) != chunkKey) {
+			this.updateChunkEntry(worldContainers, adjacentChunkKey, delta);
+		}
+		if ((adjacentChunkKey = ChunkKeys.fromBlockPos(x, z - 1)) != chunkKey) {
+			this.updateChunkEntry(worldContainers, adjacentChunkKey, delta);
+		} else if ((adjacentChunkKey = ChunkKeys.fromBlockPos(x, z + 1)) != chunkKey) {
+			this.updateChunkEntry(worldContainers, adjacentChunkKey, delta);
 		}
 	}
 
+	private void updateChunkEntry(WorldContainers worldContainers, long chunkKey, int delta) {
+		ChunkEntry chunkEntry = worldContainers.chunkEntries.get(chunkKey);
+		if (chunkEntry == null) {
+			if (delta <= 0) return; // Not expected
+			chunkEntry = new ChunkEntry();
+			worldContainers.chunkEntries.put(chunkKey, chunkEntry);
+		}
+		chunkEntry.containerCount += delta;
+		if (chunkEntry.containerCount <= 0) {
+			worldContainers.chunkEntries.remove(chunkKey);
+		}
+	}
+
+	/**
+	 * Quickly checks whether the block at the specified position might be a protected container.
+	 * <p>
+	 * This only checks whether there are any protected containers within or adjacent to the chunk of the block. It
+	 * does not allocate any objects, and does not access the block.
+	 * 
+	 * @param worldName
+	 *            the world name
+	 * @param x
+	 *            the block's x coordinate
+	 * @param z
+	 *            the block's z coordinate
+	 * @return <code>false</code> if the block is definitely not a protected container
+	 */
+	public boolean mightBeProtected(String worldName, int x, int z) {
+		WorldContainers worldContainers = protectedContainers.get(worldName);
+		if (worldContainers == null) return false;
+		return worldContainers.chunkEntries.containsKey(ChunkKeys.fromBlockPos(x, z));
+	}
+
 	// Gets the shopkeepers which are directly using the container at the specified location:
 	private List<PlayerShopkeeper> _getShopkeepers(String worldName, int x, int y, int z) {
-		String key = this.getKey(worldName, x, y, z);
-		return protectedContainers.get(key);
+		WorldContainers worldContainers = protectedContainers.get(worldName);
+		if (worldContainers == null) return null;
+		return worldContainers.shopkeepersByPosition.get(BlockPositionKeys.of(x, y, z));
 	}
 
 	// Gets the shopkeepers which are directly using the specified container block:
@@ -240,6 +318,10 @@ public class ProtectedContainers {
 		if (results == null) {
 			results = new ArrayList<>();
 		}
+		// Quick check, which avoids accessing the block data of chests:
+		if (!this.mightBeProtected(containerBlock.getWorld().getName(), containerBlock.getX(), containerBlock.getZ())) {
+			return results;
+		}
 
 		// Check if the block is directly used by shopkeepers:
 		List<PlayerShopkeeper> shopkeepers = this._getShopkeepers(containerBlock);
@@ -74,6 +74,8 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 	private boolean dirty = false;
 	// Is currently registered:
 	private boolean valid = false;
+	// The position inside the bucket of the ShopkeeperTicker, or -1 if not ticked:
+	int tickingIndex = -1;
 
 	// UI type identifier -> UI handler
 	private final Map<String, UIHandler> uiHandlers = new HashMap<>();
@@ -581,7 +583,12 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 		if (preparedName == null) preparedName = "";
 		preparedName = TextUtils.colorize(preparedName);
 		preparedName = this.trimName(preparedName);
+		String oldName = this.name;
 		this.name = preparedName;
+		if (this.isValid()) {
+			// Update the registry's name index:
+			SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().onShopkeeperNameChanged(this, oldName);
+		}
 
 		// Update shop object:
 		shopObject.setName(preparedName);
@@ -705,6 +712,9 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 	/**
 	 * This is called periodically (roughly once per second) for shopkeepers in active chunks.
 	 * <p>
+	 * The ticking of the shopkeepers is spread across multiple server ticks. If the server is under heavy load, the
+	 * interval between two invocations may therefore be longer than one second.
+	 * <p>
 	 * This can for example be used for checks that need to happen periodically, such as checking if the container of a
 	 * player shop still exists.
 	 * <p>
@@ -712,7 +722,7 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 	 * only run it every X invocations.
 	 * <p>
 	 * If any of the ticked shopkeepers are marked as {@link Shopkeeper#isDirty() dirty}, a
-	 * {@link ShopkeeperStorage#save() save} will be triggered after all shopkeepers in active chunks have been ticked.
+	 * {@link ShopkeeperStorage#save() save} will be triggered once all shopkeepers in active chunks have been ticked.
 	 */
 	public void tick() {
 		// Nothing to do by default.
@@ -9,8 +9,11 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -42,9 +45,12 @@ import com.nisovin.shopkeepers.shopobjects.block.DefaultBlockShopObjectIds;
 import com.nisovin.shopkeepers.shopobjects.entity.AbstractEntityShopObjectType;
 import com.nisovin.shopkeepers.shopobjects.entity.DefaultEntityShopObjectIds;
 import com.nisovin.shopkeepers.storage.SKShopkeeperStorage;
+import com.nisovin.shopkeepers.util.ChunkKeys;
 import com.nisovin.shopkeepers.util.Log;
+import com.nisovin.shopkeepers.util.LongObjectHashMap;
 import com.nisovin.shopkeepers.util.StringUtils;
 import com.nisovin.shopkeepers.util.TextUtils;
+import com.nisovin.shopkeepers.util.Timings;
 import com.nisovin.shopkeepers.util.Validate;
 
 public class SKShopkeeperRegistry implements ShopkeeperRegistry {
@@ -53,6 +59,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 		final WorldShopkeepers worldEntry;
 		final ChunkCoords chunkCoords;
+		final long chunkKey;
 		// List instead of set or map: We don't expect there to be excessive amounts of shopkeepers inside a single
 		// chunk, so removal from the list should be sufficiently fast.
 		final List<AbstractShopkeeper> shopkeepers = new ArrayList<>();
@@ -64,6 +71,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			assert worldEntry != null && chunkCoords != null;
 			this.worldEntry = worldEntry;
 			this.chunkCoords = chunkCoords;
+			this.chunkKey = ChunkKeys.of(chunkCoords.getChunkX(), chunkCoords.getChunkZ());
 			this.active = active;
 		}
 
@@ -85,7 +93,8 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	private static final class WorldShopkeepers {
 
 		final String worldName;
-		final Map<ChunkCoords, ChunkShopkeepers> shopkeepersByChunk = new HashMap<>();
+		// Indexed by packed chunk coordinates, for allocation-free lookups:
+		final LongObjectHashMap<ChunkShopkeepers> shopkeepersByChunkKey = new LongObjectHashMap<>();
 		// Unmodifiable entries:
 		final Map<ChunkCoords, List<AbstractShopkeeper>> shopkeeperViewsByChunk = new HashMap<>();
 		// Unmodifiable map with unmodifiable entries:
@@ -97,7 +106,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		final Set<AbstractShopkeeper> shopkeepersView = new AbstractSet<AbstractShopkeeper>() {
 			@Override
 			public Iterator<AbstractShopkeeper> iterator() {
-				return shopkeepersByChunk.values().stream()
+				return shopkeepersByChunkKey.values().stream()
 						.flatMap(chunkEntry -> chunkEntry.shopkeepers.stream())
 						.iterator();
 			}
@@ -111,7 +120,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		final Set<ChunkCoords> activeChunksView = new AbstractSet<ChunkCoords>() {
 			@Override
 			public Iterator<ChunkCoords> iterator() {
-				return shopkeepersByChunk.values().stream()
+				return shopkeepersByChunkKey.values().stream()
 						.filter(chunkEntry -> chunkEntry.active)
 						.map(chunkEntry -> chunkEntry.chunkCoords)
 						.iterator();
@@ -119,7 +128,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 			@Override
 			public int size() {
-				return shopkeepersByChunk.values().stream()
+				return shopkeepersByChunkKey.values().stream()
 						.filter(chunkEntry -> chunkEntry.active)
 						.mapToInt(chunkEntry -> 1)
 						.sum();
@@ -129,7 +138,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		final Set<AbstractShopkeeper> shopkeepersInActiveChunksView = new AbstractSet<AbstractShopkeeper>() {
 			@Override
 			public Iterator<AbstractShopkeeper> iterator() {
-				return shopkeepersByChunk.values().stream()
+				return shopkeepersByChunkKey.values().stream()
 						.filter(chunkEntry -> chunkEntry.active)
 						.flatMap(chunkEntry -> chunkEntry.shopkeepers.stream())
 						.iterator();
@@ -137,7 +146,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 			@Override
 			public int size() {
-				return shopkeepersByChunk.values().stream()
+				return shopkeepersByChunkKey.values().stream()
 						.filter(chunkEntry -> chunkEntry.active)
 						.mapToInt(chunkEntry -> chunkEntry.shopkeepers.size())
 						.sum();
@@ -153,12 +162,13 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			assert shopkeeper != null && chunkCoords != null;
 			// Assert: World name matches this world entry.
 			// Assert: Shopkeeper is not yet contained.
-			ChunkShopkeepers chunkEntry = shopkeepersByChunk.get(chunkCoords);
+			long chunkKey = ChunkKeys.of(chunkCoords.getChunkX(), chunkCoords.getChunkZ());
+			ChunkShopkeepers chunkEntry = shopkeepersByChunkKey.get(chunkKey);
 			if (chunkEntry == null) {
 				// If the chunk is currently loaded, the chunk entry gets initialized as active:
 				boolean chunkLoaded = chunkCoords.isChunkLoaded();
 				chunkEntry = new ChunkShopkeepers(this, chunkCoords, chunkLoaded);
-				shopkeepersByChunk.put(chunkCoords, chunkEntry);
+				shopkeepersByChunkKey.put(chunkKey, chunkEntry);
 				shopkeeperViewsByChunk.put(chunkCoords, Collections.unmodifiableList(chunkEntry.shopkeepers));
 			}
 			chunkEntry.shopkeepers.add(shopkeeper);
@@ -169,13 +179,13 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		ChunkShopkeepers removeShopkeeper(AbstractShopkeeper shopkeeper, ChunkCoords chunkCoords) {
 			assert shopkeeper != null && chunkCoords != null;
 			// Assert: World name matches this world entry.
-			ChunkShopkeepers chunkEntry = shopkeepersByChunk.get(chunkCoords);
+			ChunkShopkeepers chunkEntry = shopkeepersByChunkKey.get(ChunkKeys.of(chunkCoords.getChunkX(), chunkCoords.getChunkZ()));
 			if (chunkEntry == null) return null; // Could not find shopkeeper
 			if (chunkEntry.shopkeepers.remove(shopkeeper)) {
 				shopkeeperCount -= 1;
 				if (chunkEntry.shopkeepers.isEmpty()) {
 					chunkEntry.cleanUp();
-					shopkeepersByChunk.remove(chunkCoords);
+					shopkeepersByChunkKey.remove(chunkEntry.chunkKey);
 					shopkeeperViewsByChunk.remove(chunkCoords);
 				}
 			}
@@ -198,6 +208,8 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	}
 
 	private static final long CHUNK_ACTIVATION_DELAY_TICKS = 2;
+	// The minimum duration of a full shop object check cycle:
+	private static final int SHOP_OBJECT_CHECK_PERIOD_TICKS = 200; // 10 seconds
 
 	private final SKShopkeepersPlugin plugin;
 
@@ -205,8 +217,13 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	private final Map<UUID, AbstractShopkeeper> shopkeepersByUUID = new LinkedHashMap<>();
 	private final Collection<AbstractShopkeeper> allShopkeepersView = Collections.unmodifiableCollection(shopkeepersByUUID.values());
 	private final Map<Integer, AbstractShopkeeper> shopkeepersById = new HashMap<>();
+	// By unique id String:
+	// Sorted, to allow for prefix matching.
+	private final NavigableMap<String, AbstractShopkeeper> shopkeepersByUUIDString = new TreeMap<>();
 
-	// TODO Shopkeepers by name TreeMap to speedup name lookups and prefix matching?
+	// By normalized name (see normalizeShopName):
+	// Sorted, to allow for prefix matching. Shopkeepers without name are not included.
+	private final NavigableMap<String, Set<AbstractShopkeeper>> shopkeepersByName = new TreeMap<>();
 	// TODO TreeMaps for shopkeeper owners by name and uuid to speedup prefix matching?
 
 	// Virtual shopkeepers:
@@ -220,6 +237,9 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 	// Player shopkeepers:
 	private int playerShopCount = 0;
+	// By owner uuid:
+	// Only contains entries for owners with at least one shopkeeper.
+	private final Map<UUID, Set<AbstractPlayerShopkeeper>> playerShopkeepersByOwner = new HashMap<>();
 	// Note: Already unmodifiable.
 	private final Set<AbstractPlayerShopkeeper> allPlayerShopkeepersView = new AbstractSet<AbstractPlayerShopkeeper>() {
 		@Override
@@ -238,21 +258,32 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 	// TODO This may become out-of-sync if shop objects get despawned or removed independently, problem? potential
 	// memory leak?
-	// -> Gets cleaned up by 'teleporter' task currently which periodically checks all activeShopkeepers entries.
+	// -> Gets cleaned up by the shop object check task currently which periodically checks all activeShopkeepers entries.
 	// 'active': With active shop object (i.e. after successful spawning).
 	private final Map<String, AbstractShopkeeper> activeShopkeepers = new HashMap<>();
 	private final Collection<AbstractShopkeeper> activeShopkeepersView = Collections.unmodifiableCollection(activeShopkeepers.values());
 
+	private final ShopkeeperTicker shopkeeperTicker;
+
+	// Shop object checks:
+	// The active shopkeepers that remain to be checked during the current check cycle:
+	private final List<AbstractShopkeeper> shopObjectCheckQueue = new ArrayList<>();
+	private int shopObjectCheckIndex = 0;
+	private int shopObjectCheckCycleTicks = 0; // Ticks since the start of the current check cycle
+	private int shopObjectChecksPerTick = 0; // Determined at the start of each check cycle
+	private final Timings shopObjectCheckTimings = new Timings();
+
 	public SKShopkeeperRegistry(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
+		this.shopkeeperTicker = new ShopkeeperTicker(plugin);
 	}
 
 	public void onEnable() {
 		// Start shopkeeper ticking task:
-		this.startShopkeeperTickTask();
+		shopkeeperTicker.start();
 
-		// Start teleporter task:
-		this.startTeleporterTask();
+		// Start shop object check task:
+		this.startShopObjectCheckTask();
 
 		// Start verifier task:
 		if (Settings.enableSpawnVerifier) {
@@ -263,6 +294,11 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	}
 
 	public void onDisable() {
+		// Stop shopkeeper ticking:
+		// This happens prior to unloading the shopkeepers, so that they don't need to be removed from the ticker
+		// individually.
+		shopkeeperTicker.stop();
+
 		// Unload all shopkeepers:
 		this.unloadAllShopkeepers();
 		assert this.getAllShopkeepers().isEmpty();
@@ -273,42 +309,77 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		shopkeepersByWorld.clear();
 		virtualShopkeepers.clear();
 		activeShopkeepers.clear();
+		shopObjectCheckQueue.clear();
+		shopObjectCheckIndex = 0;
+		shopObjectCheckCycleTicks = 0;
+		shopObjectCheckTimings.reset();
 		playerShopCount = 0;
 	}
 
 	// PERIODIC TASKS
 
-	private void startTeleporterTask() {
-		Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-			List<AbstractShopkeeper> readd = new ArrayList<>();
-			Iterator<Map.Entry<String, AbstractShopkeeper>> iter = activeShopkeepers.entrySet().iterator();
-			while (iter.hasNext()) {
-				Map.Entry<String, AbstractShopkeeper> entry = iter.next();
-				AbstractShopkeeper shopkeeper = entry.getValue();
-				boolean update = shopkeeper.getShopObject().check();
-				if (update) { // TODO Remove return boolean and instead compare old with current object id?
-					// If the shopkeeper had to be respawned its shop id changed.
-					// This removes the entry which was stored with the old shop id and later adds back the
-					// shopkeeper with its new id.
-					readd.add(shopkeeper);
-					iter.remove();
-				}
+	// Checks the shop objects of all active shopkeepers at most once every SHOP_OBJECT_CHECK_PERIOD_TICKS (eg. to
+	// respawn missing shop objects and to teleport shop entities back into place). Instead of checking all shop objects
+	// at once, this only checks a limited number of shop objects each tick.
+	private void startShopObjectCheckTask() {
+		Bukkit.getScheduler().runTaskTimer(plugin, this::checkShopObjects, 1L, 1L);
+	}
+
+	private void checkShopObjects() {
+		shopObjectCheckCycleTicks++;
+		if (shopObjectCheckIndex >= shopObjectCheckQueue.size()) {
+			// The current check cycle has been completed. Start the next cycle once the check period has passed:
+			if (shopObjectCheckCycleTicks < SHOP_OBJECT_CHECK_PERIOD_TICKS) return;
+			shopObjectCheckQueue.clear();
+			shopObjectCheckIndex = 0;
+			shopObjectCheckCycleTicks = 0;
+			if (activeShopkeepers.isEmpty()) return;
+			shopObjectCheckQueue.addAll(activeShopkeepers.values());
+
+			shopObjectChecksPerTick = Settings.shopObjectChecksPerTick;
+			if (shopObjectChecksPerTick <= 0) {
+				// Spread the checks evenly across the check period:
+				shopObjectChecksPerTick = (shopObjectCheckQueue.size() + SHOP_OBJECT_CHECK_PERIOD_TICKS - 1) / SHOP_OBJECT_CHECK_PERIOD_TICKS;
 			}
-			if (!readd.isEmpty()) {
-				boolean dirty = false;
-				for (AbstractShopkeeper shopkeeper : readd) {
-					if (shopkeeper.getShopObject().isActive()) {
-						this._activateShopkeeper(shopkeeper);
-					}
-					if (shopkeeper.isDirty()) dirty = true;
-				}
+		}
 
-				// Shop objects might have been removed or respawned, request a save:
-				if (dirty) {
-					this.getShopkeeperStorage().save();
+		shopObjectCheckTimings.start();
+		boolean dirty = false;
+		int endIndex = Math.min(shopObjectCheckIndex + shopObjectChecksPerTick, shopObjectCheckQueue.size());
+		while (shopObjectCheckIndex < endIndex) {
+			AbstractShopkeeper shopkeeper = shopObjectCheckQueue.set(shopObjectCheckIndex++, null); // Release reference
+			// Skip the shopkeeper if it has been removed or deactivated in the meantime:
+			AbstractShopObject shopObject = shopkeeper.getShopObject();
+			String objectId = shopObject.getLastId();
+			if (objectId == null || activeShopkeepers.get(objectId) != shopkeeper) continue;
+
+			boolean update = shopObject.check();
+			if (update) { // TODO Remove return boolean and instead compare old with current object id?
+				// If the shopkeeper had to be respawned its shop id changed.
+				// This removes the entry which was stored with the old shop id and adds back the shopkeeper with its
+				// new id.
+				this._deactivateShopkeeper(shopkeeper);
+				if (shopObject.isActive()) {
+					this._activateShopkeeper(shopkeeper);
 				}
+				if (shopkeeper.isDirty()) dirty = true;
 			}
-		}, 200, 200); // 10 seconds
+		}
+		shopObjectCheckTimings.stop();
+
+		// Shop objects might have been removed or respawned, request a save:
+		if (dirty) {
+			this.getShopkeeperStorage().save();
+		}
+	}
+
+	public Timings getShopObjectCheckTimings() {
+		return shopObjectCheckTimings;
+	}
+
+	// The number of active shopkeepers that remain to be checked during the current check cycle.
+	public int getPendingShopObjectChecksCount() {
+		return Math.max(shopObjectCheckQueue.size() - shopObjectCheckIndex, 0);
 	}
 
 	// TODO Ideally this task should not be required..
@@ -320,7 +391,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			boolean dirty = false;
 
 			for (WorldShopkeepers worldEntry : shopkeepersByWorld.values()) {
-				for (ChunkShopkeepers chunkEntry : worldEntry.shopkeepersByChunk.values()) {
+				for (ChunkShopkeepers chunkEntry : worldEntry.shopkeepersByChunkKey.values()) {
 					if (!chunkEntry.active) continue;
 
 					for (AbstractShopkeeper shopkeeper : chunkEntry.shopkeepers) {
@@ -353,29 +424,6 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		}, 600, 1200); // 30,60 seconds
 	}
 
-	// TICKING
-
-	private void startShopkeeperTickTask() {
-		Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-			// Prevents concurrent modification errors by making copies of the iterated data:
-			// The copies are required because the worlds, active chunks and chunk shopkeepers may change if shopkeepers
-			// get removed or chunks get loaded (which cannot be safely avoided).
-			boolean dirty = false;
-			for (String worldName : new ArrayList<>(this.getWorldsWithShopkeepers())) {
-				for (AbstractShopkeeper shopkeeper : new ArrayList<>(this.getShopkeepersInActiveChunks(worldName))) {
-					if (!shopkeeper.isValid()) continue; // Skip if no longer valid
-					shopkeeper.tick();
-					if (shopkeeper.isDirty()) {
-						dirty = true;
-					}
-				}
-			}
-			if (dirty) {
-				this.getShopkeeperStorage().save();
-			}
-		}, 20L, 20L); // 1 second
-	}
-
 	// SHOPKEEPER CREATION
 
 	private SKShopkeeperStorage getShopkeeperStorage() {
@@ -451,6 +499,8 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		UUID shopkeeperUniqueId = shopkeeper.getUniqueId();
 		shopkeepersByUUID.put(shopkeeperUniqueId, shopkeeper);
 		shopkeepersById.put(shopkeeper.getId(), shopkeeper);
+		shopkeepersByUUIDString.put(shopkeeperUniqueId.toString(), shopkeeper);
+		this.addShopkeeperToName(shopkeeper, shopkeeper.getName());
 
 		ChunkCoords chunkCoords = shopkeeper.getChunkCoords(); // Null for virtual shops
 		ChunkShopkeepers chunkEntry;
@@ -463,9 +513,11 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			chunkEntry = this.addShopkeeperToChunk(shopkeeper, chunkCoords);
 		}
 
-		// Update player shop count:
+		// Update player shop count and add to owner index:
 		if (shopkeeper instanceof PlayerShopkeeper) {
 			playerShopCount++;
+			AbstractPlayerShopkeeper playerShopkeeper = (AbstractPlayerShopkeeper) shopkeeper;
+			this.addPlayerShopkeeperToOwner(playerShopkeeper, playerShopkeeper.getOwnerUUID());
 		}
 
 		// Inform shopkeeper:
@@ -499,7 +551,12 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			worldEntry = new WorldShopkeepers(worldName);
 			shopkeepersByWorld.put(worldName, worldEntry);
 		}
-		return worldEntry.addShopkeeper(shopkeeper, chunkCoords); // Add to chunk
+		ChunkShopkeepers chunkEntry = worldEntry.addShopkeeper(shopkeeper, chunkCoords); // Add to chunk
+		// Only shopkeepers in active chunks are ticked. Virtual shopkeepers are not ticked.
+		if (chunkEntry.active) {
+			shopkeeperTicker.addShopkeeper(shopkeeper);
+		}
+		return chunkEntry;
 	}
 
 	private void removeShopkeeper(AbstractShopkeeper shopkeeper, ShopkeeperRemoveEvent.Cause cause) {
@@ -518,6 +575,8 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		UUID shopkeeperUniqueId = shopkeeper.getUniqueId();
 		shopkeepersByUUID.remove(shopkeeperUniqueId);
 		shopkeepersById.remove(shopkeeper.getId());
+		shopkeepersByUUIDString.remove(shopkeeperUniqueId.toString());
+		this.removeShopkeeperFromName(shopkeeper, shopkeeper.getName());
 
 		ChunkCoords chunkCoords = shopkeeper.getChunkCoords(); // Null for virtual shops
 		if (chunkCoords == null) {
@@ -528,13 +587,18 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			this.removeShopkeeperFromChunk(shopkeeper, chunkCoords);
 		}
 
-		// Update player shop count:
+		// Update player shop count and remove from owner index:
 		if (shopkeeper instanceof PlayerShopkeeper) {
 			playerShopCount--;
+			AbstractPlayerShopkeeper playerShopkeeper = (AbstractPlayerShopkeeper) shopkeeper;
+			this.removePlayerShopkeeperFromOwner(playerShopkeeper, playerShopkeeper.getOwnerUUID());
 		}
 
 		// Remove shopkeeper from storage:
-		this.getShopkeeperStorage().clearShopkeeperData(shopkeeper);
+		// Unloaded shopkeepers keep their stored data.
+		if (cause == ShopkeeperRemoveEvent.Cause.DELETE) {
+			this.getShopkeeperStorage().clearShopkeeperData(shopkeeper);
+		}
 	}
 
 	// Only called for non-virtual shopkeepers.
@@ -544,6 +608,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		WorldShopkeepers worldEntry = shopkeepersByWorld.get(worldName);
 		if (worldEntry == null) return; // Could not find shopkeeper
 		worldEntry.removeShopkeeper(shopkeeper, chunkCoords); // Remove from chunk
+		shopkeeperTicker.removeShopkeeper(shopkeeper);
 		if (worldEntry.shopkeeperCount <= 0) {
 			worldEntry.cleanUp();
 			shopkeepersByWorld.remove(worldName);
@@ -573,6 +638,65 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		}
 	}
 
+	// Strips colors and normalizes whitespace and case. Returns an empty String if the name is empty.
+	private static String normalizeShopName(String shopName) {
+		if (shopName == null) return "";
+		return StringUtils.normalize(TextUtils.stripColor(shopName));
+	}
+
+	private void addShopkeeperToName(AbstractShopkeeper shopkeeper, String shopName) {
+		assert shopkeeper != null;
+		String normalizedShopName = normalizeShopName(shopName);
+		if (normalizedShopName.isEmpty()) return; // Shopkeepers without name are not indexed
+		shopkeepersByName.computeIfAbsent(normalizedShopName, key -> new LinkedHashSet<>()).add(shopkeeper);
+	}
+
+	private void removeShopkeeperFromName(AbstractShopkeeper shopkeeper, String shopName) {
+		assert shopkeeper != null;
+		String normalizedShopName = normalizeShopName(shopName);
+		Set<AbstractShopkeeper> namedShopkeepers = shopkeepersByName.get(normalizedShopName);
+		if (namedShopkeepers == null) return; // Could not find shopkeeper
+		namedShopkeepers.remove(shopkeeper);
+		if (namedShopkeepers.isEmpty()) {
+			shopkeepersByName.remove(normalizedShopName);
+		}
+	}
+
+	// Only called for shopkeepers that are currently registered.
+	public void onShopkeeperNameChanged(AbstractShopkeeper shopkeeper, String oldName) {
+		assert shopkeeper != null;
+		String newName = shopkeeper.getName();
+		if (!normalizeShopName(newName).equals(normalizeShopName(oldName))) {
+			this.removeShopkeeperFromName(shopkeeper, oldName);
+			this.addShopkeeperToName(shopkeeper, newName);
+		}
+	}
+
+	private void addPlayerShopkeeperToOwner(AbstractPlayerShopkeeper shopkeeper, UUID ownerUUID) {
+		assert shopkeeper != null && ownerUUID != null;
+		playerShopkeepersByOwner.computeIfAbsent(ownerUUID, key -> new LinkedHashSet<>()).add(shopkeeper);
+	}
+
+	private void removePlayerShopkeeperFromOwner(AbstractPlayerShopkeeper shopkeeper, UUID ownerUUID) {
+		assert shopkeeper != null && ownerUUID != null;
+		Set<AbstractPlayerShopkeeper> ownedShopkeepers = playerShopkeepersByOwner.get(ownerUUID);
+		if (ownedShopkeepers == null) return; // Could not find shopkeeper
+		ownedShopkeepers.remove(shopkeeper);
+		if (ownedShopkeepers.isEmpty()) {
+			playerShopkeepersByOwner.remove(ownerUUID);
+		}
+	}
+
+	// Only called for player shopkeepers that are currently registered.
+	public void onShopkeeperOwnerChanged(AbstractPlayerShopkeeper shopkeeper, UUID oldOwnerUUID) {
+		assert shopkeeper != null && oldOwnerUUID != null;
+		UUID newOwnerUUID = shopkeeper.getOwnerUUID();
+		if (!newOwnerUUID.equals(oldOwnerUUID)) {
+			this.removePlayerShopkeeperFromOwner(shopkeeper, oldOwnerUUID);
+			this.addPlayerShopkeeperToOwner(shopkeeper, newOwnerUUID);
+		}
+	}
+
 	// This does not get called for virtual shopkeepers.
 	public void onShopkeeperMove(AbstractShopkeeper shopkeeper, ChunkCoords oldChunk) {
 		assert shopkeeper != null && oldChunk != null;
@@ -594,14 +718,23 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		String worldName = chunkCoords.getWorldName();
 		WorldShopkeepers worldEntry = shopkeepersByWorld.get(worldName);
 		if (worldEntry == null) return null; // There are no shopkeepers in this world
-		return worldEntry.shopkeepersByChunk.get(chunkCoords);
+		return worldEntry.shopkeepersByChunkKey.get(ChunkKeys.of(chunkCoords.getChunkX(), chunkCoords.getChunkZ()));
+	}
+
+	// This does not allocate any objects.
+	private ChunkShopkeepers getChunkEntry(Chunk chunk) {
+		assert chunk != null;
+		// Note: The world name String caches its hash.
+		WorldShopkeepers worldEntry = shopkeepersByWorld.get(chunk.getWorld().getName());
+		if (worldEntry == null) return null; // There are no shopkeepers in this world
+		return worldEntry.shopkeepersByChunkKey.get(ChunkKeys.of(chunk));
 	}
 
 	void onChunkLoad(Chunk chunk) {
 		assert chunk != null;
-		ChunkCoords chunkCoords = new ChunkCoords(chunk);
-		ChunkShopkeepers chunkEntry = this.getChunkEntry(chunkCoords);
+		ChunkShopkeepers chunkEntry = this.getChunkEntry(chunk);
 		if (chunkEntry == null) return; // There are no shopkeepers in this chunk
+		ChunkCoords chunkCoords = chunkEntry.chunkCoords;
 
 		// Chunk is not expected to already be active or pending activation (if chunk loading and unloading events are
 		// consistently ordered and correctly handled by us):
@@ -634,9 +767,10 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		chunkEntry.cancelActivationTask(); // Stop pending activation if any
 		chunkEntry.active = true; // Mark chunk active
 
-		// Inform shopkeepers:
+		// Inform shopkeepers and start ticking them:
 		for (AbstractShopkeeper shopkeeper : chunkEntry.shopkeepers) {
 			shopkeeper.getShopObject().onChunkActivation();
+			shopkeeperTicker.addShopkeeper(shopkeeper);
 		}
 
 		// Spawn shopkeepers:
@@ -680,8 +814,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 	void onChunkUnload(Chunk chunk) {
 		assert chunk != null;
-		ChunkCoords chunkCoords = new ChunkCoords(chunk);
-		ChunkShopkeepers chunkEntry = this.getChunkEntry(chunkCoords);
+		ChunkShopkeepers chunkEntry = this.getChunkEntry(chunk);
 		if (chunkEntry == null) return; // There are no shopkeepers in this chunk
 
 		this.deactivateChunk(chunkEntry);
@@ -696,9 +829,10 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		assert !chunkEntry.isActivationPending();
 		chunkEntry.active = false; // Mark chunk inactive
 
-		// Inform shopkeepers:
+		// Inform shopkeepers and stop ticking them:
 		for (AbstractShopkeeper shopkeeper : chunkEntry.shopkeepers) {
 			shopkeeper.getShopObject().onChunkDeactivation();
+			shopkeeperTicker.removeShopkeeper(shopkeeper);
 		}
 
 		// Despawn shopkeepers:
@@ -758,7 +892,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		);
 
 		// Activate loaded chunks:
-		for (ChunkShopkeepers chunkEntry : worldEntry.shopkeepersByChunk.values()) {
+		for (ChunkShopkeepers chunkEntry : worldEntry.shopkeepersByChunkKey.values()) {
 			// Check if already active or activation pending (avoids unnecessary isChunkLoaded calls):
 			if (chunkEntry.active || chunkEntry.isActivationPending()) {
 				continue;
@@ -798,7 +932,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		worldEntry.cancelWorldSaveRespawnTask();
 
 		// Deactivate chunks:
-		for (ChunkShopkeepers chunkEntry : worldEntry.shopkeepersByChunk.values()) {
+		for (ChunkShopkeepers chunkEntry : worldEntry.shopkeepersByChunkKey.values()) {
 			this.deactivateChunk(chunkEntry);
 		}
 	}
@@ -833,7 +967,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 				() -> "Despawning " + worldEntry.shopkeeperCount + " shopkeepers in world '" + worldEntry.worldName + "'"
 						+ (worldSaving ? " (world saving)" : "")
 		);
-		for (ChunkShopkeepers chunkEntry : worldEntry.shopkeepersByChunk.values()) {
+		for (ChunkShopkeepers chunkEntry : worldEntry.shopkeepersByChunkKey.values()) {
 			if (chunkEntry.active) {
 				this.despawnShopkeepers(chunkEntry, worldSaving);
 			}
@@ -846,7 +980,7 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 				() -> "Spawning " + worldEntry.shopkeeperCount + " shopkeepers in world '" + worldEntry.worldName + "'"
 						+ (worldSavingFinished ? " (world saving finished)" : "")
 		);
-		for (ChunkShopkeepers chunkEntry : worldEntry.shopkeepersByChunk.values()) {
+		for (ChunkShopkeepers chunkEntry : worldEntry.shopkeepersByChunkKey.values()) {
 			if (chunkEntry.active) {
 				this.spawnShopkeepers(chunkEntry, worldSavingFinished);
 			}
@@ -961,6 +1095,27 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		return shopkeepersById.get(shopkeeperId);
 	}
 
+	/**
+	 * Searches for shopkeepers whose unique ids start with the specified prefix.
+	 * <p>
+	 * The comparison ignores case. The returned {@link Stream} lazily iterates the matching shopkeepers, sorted by their
+	 * unique ids, and only visits the shopkeepers that match the prefix.
+	 * 
+	 * @param uuidPrefix
+	 *            the unique id prefix, may be empty, not <code>null</code>
+	 * @return a stream over the matching shopkeepers
+	 */
+	public Stream<? extends AbstractShopkeeper> getShopkeepersByUniqueIdPrefix(String uuidPrefix) {
+		Validate.notNull(uuidPrefix, "UUID prefix is null!");
+		// UUID#toString is lowercase:
+		String normalizedUUIDPrefix = uuidPrefix.toLowerCase(Locale.ROOT);
+		if (normalizedUUIDPrefix.isEmpty()) {
+			return shopkeepersByUUIDString.values().stream();
+		}
+		return shopkeepersByUUIDString.subMap(normalizedUUIDPrefix, true, normalizedUUIDPrefix + Character.MAX_VALUE, false)
+				.values().stream();
+	}
+
 	// PLAYER SHOPS
 
 	@Override
@@ -971,24 +1126,27 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	@Override
 	public Collection<? extends AbstractPlayerShopkeeper> getPlayerShopkeepersByOwner(UUID ownerUUID) {
 		Validate.notNull(ownerUUID, "Owner UUID is null!");
-		// TODO Improve? Maybe keep an index of player shops? or even index by owner?
 		// Note: Already unmodifiable.
+		// The view looks up the owner's current shopkeepers, since the owner's entry inside the index gets removed and
+		// recreated when the owner's shopkeeper count drops to zero.
 		return new AbstractSet<AbstractPlayerShopkeeper>() {
-			private Stream<AbstractPlayerShopkeeper> createStream() {
-				return getAllShopkeepers().stream()
-						.filter(shopkeeper -> shopkeeper instanceof PlayerShopkeeper)
-						.map(shopkeeper -> (AbstractPlayerShopkeeper) shopkeeper)
-						.filter(shopkeeper -> shopkeeper.getOwnerUUID().equals(ownerUUID));
+			private Set<AbstractPlayerShopkeeper> getOwnedShopkeepers() {
+				return playerShopkeepersByOwner.getOrDefault(ownerUUID, Collections.emptySet());
 			}
 
 			@Override
 			public Iterator<AbstractPlayerShopkeeper> iterator() {
-				return this.createStream().iterator();
+				return Collections.unmodifiableSet(this.getOwnedShopkeepers()).iterator();
 			}
 
 			@Override
 			public int size() {
-				return this.createStream().mapToInt(shopkeeper -> 1).sum();
+				return this.getOwnedShopkeepers().size();
+			}
+
+			@Override
+			public boolean contains(Object object) {
+				return this.getOwnedShopkeepers().contains(object);
 			}
 		};
 	}
@@ -997,34 +1155,24 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 	@Override
 	public Stream<? extends AbstractShopkeeper> getShopkeepersByName(String shopName) {
-		String normalizedShopName = StringUtils.normalize(TextUtils.stripColor(shopName));
-		if (StringUtils.isEmpty(normalizedShopName)) return Stream.empty();
-
-		// TODO Improve via (Tree)Map?
-		return this.getAllShopkeepers().stream().filter(shopkeeper -> {
-			String shopkeeperName = shopkeeper.getName(); // Can be empty
-			if (shopkeeperName.isEmpty()) return false; // Has no name, filter
+		String normalizedShopName = normalizeShopName(shopName);
+		if (normalizedShopName.isEmpty()) return Stream.empty();
 
-			shopkeeperName = TextUtils.stripColor(shopkeeperName);
-			shopkeeperName = StringUtils.normalize(shopkeeperName);
-			return (shopkeeperName.equals(normalizedShopName)); // Include shopkeeper if name matches
-		});
+		Set<AbstractShopkeeper> namedShopkeepers = shopkeepersByName.get(normalizedShopName);
+		if (namedShopkeepers == null) return Stream.empty();
+		return namedShopkeepers.stream();
 	}
 
 	@Override
 	public Stream<? extends AbstractShopkeeper> getShopkeepersByNamePrefix(String shopNamePrefix) {
-		String normalizedShopNamePrefix = StringUtils.normalize(TextUtils.stripColor(shopNamePrefix));
-		if (StringUtils.isEmpty(normalizedShopNamePrefix)) return Stream.empty();
-
-		// TODO Improve via TreeMap?
-		return this.getAllShopkeepers().stream().filter(shopkeeper -> {
-			String shopkeeperName = shopkeeper.getName(); // Can be empty
-			if (shopkeeperName.isEmpty()) return false; // Has no name, filter
-
-			shopkeeperName = TextUtils.stripColor(shopkeeperName);
-			shopkeeperName = StringUtils.normalize(shopkeeperName);
-			return (shopkeeperName.startsWith(normalizedShopNamePrefix)); // Include shopkeeper if name matches
-		});
+		String normalizedShopNamePrefix = normalizeShopName(shopNamePrefix);
+		if (normalizedShopNamePrefix.isEmpty()) return Stream.empty();
+
+		// All names starting with the prefix are sorted between the prefix itself and the prefix followed by the
+		// highest possible character:
+		return shopkeepersByName.subMap(normalizedShopNamePrefix, true, normalizedShopNamePrefix + Character.MAX_VALUE, false)
+				.values().stream()
+				.flatMap(Set::stream);
 	}
 
 	// BY WORLD
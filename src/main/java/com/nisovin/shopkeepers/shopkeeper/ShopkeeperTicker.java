@@ -0,0 +1,157 @@
+package com.nisovin.shopkeepers.shopkeeper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.Settings;
+
+/**
+ * Ticks the shopkeepers in active chunks roughly once per second, spreading the work across all server ticks.
+ * <p>
+ * The shopkeepers are distributed across {@link #BUCKET_COUNT} buckets based on their session id. Each server tick
+ * processes the next bucket. If the time spent on ticking shopkeepers exceeds the configured per-tick budget, the
+ * remaining work is carried over to the next server tick.
+ * <p>
+ * Only the shopkeepers in active chunks are ticked: The {@link SKShopkeeperRegistry} adds and removes shopkeepers when
+ * their chunks get activated or deactivated.
+ * <p>
+ * The buckets are iterated without making copies of them: Removed shopkeepers are replaced by <code>null</code> and
+ * only get cleaned up once the bucket has been fully processed. Added shopkeepers are appended to their bucket. Each
+ * shopkeeper stores its position inside its bucket, so that it can be removed in constant time.
+ */
+class ShopkeeperTicker {
+
+	// One bucket per server tick, so that each shopkeeper is ticked roughly once per second:
+	static final int BUCKET_COUNT = 20;
+
+	private final SKShopkeepersPlugin plugin;
+	private final List<List<AbstractShopkeeper>> buckets = new ArrayList<>(BUCKET_COUNT);
+	// Number of removed (null) entries per bucket:
+	private final int[] removedCounts = new int[BUCKET_COUNT];
+
+	private BukkitTask task = null;
+	private int currentBucket = 0;
+	private int currentIndex = 0; // Position inside the current bucket
+	// The number of buckets that are due for processing (including the current bucket):
+	private int pendingBuckets = 0;
+	private boolean dirty = false;
+
+	ShopkeeperTicker(SKShopkeepersPlugin plugin) {
+		this.plugin = plugin;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.add(new ArrayList<>());
+		}
+	}
+
+	void start() {
+		if (task != null) return; // Already started
+		task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+	}
+
+	void stop() {
+		if (task != null) {
+			task.cancel();
+			task = null;
+		}
+		for (List<AbstractShopkeeper> bucket : buckets) {
+			for (AbstractShopkeeper shopkeeper : bucket) {
+				if (shopkeeper == null) continue; // Removed
+				shopkeeper.tickingIndex = -1;
+			}
+			bucket.clear();
+		}
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			removedCounts[i] = 0;
+		}
+		currentBucket = 0;
+		currentIndex = 0;
+		pendingBuckets = 0;
+		dirty = false;
+	}
+
+	private static int getBucketIndex(AbstractShopkeeper shopkeeper) {
+		return Math.floorMod(shopkeeper.getId(), BUCKET_COUNT);
+	}
+
+	// Has no effect if the shopkeeper is already ticked.
+	void addShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		if (shopkeeper.tickingIndex != -1) return; // Already ticked
+		List<AbstractShopkeeper> bucket = buckets.get(getBucketIndex(shopkeeper));
+		shopkeeper.tickingIndex = bucket.size();
+		bucket.add(shopkeeper);
+	}
+
+	// Has no effect if the shopkeeper is not ticked.
+	void removeShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		int index = shopkeeper.tickingIndex;
+		if (index == -1) return; // Not ticked
+		int bucketIndex = getBucketIndex(shopkeeper);
+		List<AbstractShopkeeper> bucket = buckets.get(bucketIndex);
+		assert bucket.get(index) == shopkeeper;
+		// Keeps the positions of the other shopkeepers intact, so that an ongoing iteration is not affected:
+		bucket.set(index, null);
+		shopkeeper.tickingIndex = -1;
+		removedCounts[bucketIndex]++;
+	}
+
+	// Removes the null entries and updates the positions of the remaining shopkeepers.
+	private static void compactBucket(List<AbstractShopkeeper> bucket) {
+		int size = 0;
+		for (int index = 0; index < bucket.size(); index++) {
+			AbstractShopkeeper shopkeeper = bucket.get(index);
+			if (shopkeeper == null) continue; // Removed
+			shopkeeper.tickingIndex = size;
+			bucket.set(size++, shopkeeper);
+		}
+		bucket.subList(size, bucket.size()).clear();
+	}
+
+	private void tick() {
+		if (pendingBuckets < BUCKET_COUNT) {
+			pendingBuckets++;
+		} // Else: We are lagging behind by a full cycle. Drop the additional work instead of accumulating it.
+
+		int budgetMillis = Settings.shopkeeperTickBudget;
+		long startNanos = System.nanoTime();
+		long budgetNanos = (budgetMillis > 0) ? TimeUnit.MILLISECONDS.toNanos(budgetMillis) : Long.MAX_VALUE;
+		while (pendingBuckets > 0) {
+			List<AbstractShopkeeper> bucket = buckets.get(currentBucket);
+			// Note: Ticking a shopkeeper may add or remove shopkeepers, so the bucket size is re-checked each time.
+			while (currentIndex < bucket.size()) {
+				if (System.nanoTime() - startNanos >= budgetNanos) {
+					// Budget exceeded: Continue at the current position during the next server tick.
+					return;
+				}
+				AbstractShopkeeper shopkeeper = bucket.get(currentIndex++);
+				if (shopkeeper == null) continue; // Removed
+				if (!shopkeeper.isValid()) continue;
+				shopkeeper.tick();
+				if (shopkeeper.isDirty()) {
+					dirty = true;
+				}
+			}
+
+			// The bucket has been fully processed:
+			if (removedCounts[currentBucket] > 0) {
+				compactBucket(bucket);
+				removedCounts[currentBucket] = 0;
+			}
+			currentIndex = 0;
+			pendingBuckets--;
+			currentBucket = (currentBucket + 1) % BUCKET_COUNT;
+
+			// Trigger at most one save per full cycle:
+			if (currentBucket == 0 && dirty) {
+				dirty = false;
+				plugin.getShopkeeperStorage().save();
+			}
+		}
+	}
+}
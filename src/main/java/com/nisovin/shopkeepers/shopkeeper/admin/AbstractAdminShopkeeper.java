@@ -1,11 +1,16 @@
 package com.nisovin.shopkeepers.shopkeeper.admin;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.MerchantRecipe;
 
 import com.nisovin.shopkeepers.Messages;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopCreationData;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperCreateException;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
 import com.nisovin.shopkeepers.api.shopkeeper.admin.AdminShopCreationData;
 import com.nisovin.shopkeepers.api.shopkeeper.admin.AdminShopkeeper;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
@@ -20,6 +25,12 @@ public abstract class AbstractAdminShopkeeper extends AbstractShopkeeper impleme
 
 	public static class AdminShopTradingHandler extends TradingHandler {
 
+		// The merchant recipes that are shared by all players trading with this shopkeeper, or null if they have not
+		// been created yet:
+		private List<MerchantRecipe> sharedMerchantRecipes = null;
+		// The trading recipes version of the shopkeeper that the shared merchant recipes correspond to:
+		private int sharedMerchantRecipesVersion;
+
 		protected AdminShopTradingHandler(AbstractAdminShopkeeper shopkeeper) {
 			super(SKDefaultUITypes.TRADING(), shopkeeper);
 		}
@@ -44,10 +55,39 @@ public abstract class AbstractAdminShopkeeper extends AbstractShopkeeper impleme
 			}
 			return true;
 		}
+
+		// Returns null if the trading recipes of the shopkeeper depend on the player.
+		private List<MerchantRecipe> getSharedMerchantRecipes(List<TradingRecipe> recipes) {
+			AbstractAdminShopkeeper shopkeeper = this.getShopkeeper();
+			if (!shopkeeper.hasPlayerIndependentTradingRecipes()) return null;
+			int tradingRecipesVersion = shopkeeper.tradingRecipesVersion;
+			if (sharedMerchantRecipes == null || sharedMerchantRecipesVersion != tradingRecipesVersion) {
+				// The given trading recipes are expected to be the shopkeeper's current trading recipes:
+				sharedMerchantRecipes = Collections.unmodifiableList(this.createMerchantRecipes(recipes));
+				sharedMerchantRecipesVersion = tradingRecipesVersion;
+			}
+			return sharedMerchantRecipes;
+		}
+
+		@Override
+		protected List<MerchantRecipe> getMerchantRecipes(List<TradingRecipe> recipes) {
+			List<MerchantRecipe> merchantRecipes = this.getSharedMerchantRecipes(recipes);
+			if (merchantRecipes == null) return super.getMerchantRecipes(recipes);
+			return merchantRecipes;
+		}
+
+		@Override
+		protected MerchantRecipe getMerchantRecipe(List<TradingRecipe> recipes, int index) {
+			List<MerchantRecipe> merchantRecipes = this.getSharedMerchantRecipes(recipes);
+			if (merchantRecipes == null) return super.getMerchantRecipe(recipes, index);
+			return merchantRecipes.get(index);
+		}
 	}
 
 	// Null indicates that no additional permission is required:
 	protected String tradePermission = null;
+	// Gets incremented whenever the trading recipes change:
+	private int tradingRecipesVersion = 0;
 
 	/**
 	 * Creates a not yet initialized {@link AbstractAdminShopkeeper} (for use in sub-classes).
@@ -91,6 +131,28 @@ public abstract class AbstractAdminShopkeeper extends AbstractShopkeeper impleme
 		configSection.set("tradePerm", tradePermission);
 	}
 
+	/**
+	 * Checks whether the trading recipes of this shopkeeper are the same for all players.
+	 * <p>
+	 * If this returns <code>true</code>, the merchant recipes for the trading recipes are only created once and then
+	 * shared by all players trading with this shopkeeper. Sub-classes are then required to call
+	 * {@link #onTradingRecipesChanged()} whenever their trading recipes change.
+	 * 
+	 * @return <code>true</code> if the trading recipes do not depend on the player
+	 */
+	protected boolean hasPlayerIndependentTradingRecipes() {
+		return false;
+	}
+
+	/**
+	 * Informs this shopkeeper that its trading recipes have changed, so that any shared merchant recipes get recreated.
+	 * 
+	 * @see #hasPlayerIndependentTradingRecipes()
+	 */
+	protected final void onTradingRecipesChanged() {
+		tradingRecipesVersion++;
+	}
+
 	@Override
 	public String getTradePremission() {
 		return tradePermission;
@@ -94,6 +94,11 @@ public class SKRegularAdminShopkeeper extends AbstractAdminShopkeeper implements
 		return recipesView;
 	}
 
+	@Override
+	protected boolean hasPlayerIndependentTradingRecipes() {
+		return true;
+	}
+
 	// OFFERS:
 
 	@Override
@@ -110,6 +115,7 @@ public class SKRegularAdminShopkeeper extends AbstractAdminShopkeeper implements
 	private void _clearOffers() {
 		offers.clear();
 		recipes.clear();
+		this.onTradingRecipesChanged();
 	}
 
 	@Override
@@ -142,6 +148,7 @@ public class SKRegularAdminShopkeeper extends AbstractAdminShopkeeper implements
 		} else {
 			recipes.add(ShopkeepersAPI.createTradingRecipe(offer.getResultItem(), offer.getItem1(), offer.getItem2(), false));
 		}
+		this.onTradingRecipesChanged();
 	}
 
 	@Override
@@ -1,11 +1,15 @@
 package com.nisovin.shopkeepers.shopkeeper.player;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
@@ -42,6 +46,8 @@ import com.nisovin.shopkeepers.util.Validate;
 public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implements PlayerShopkeeper {
 
 	private static final int CHECK_CONTAINER_PERIOD_SECONDS = 5;
+	// Safety net in case the container contents are modified without any events being called (eg. by other plugins):
+	private static final long CONTAINER_STOCK_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(5);
 
 	protected UUID ownerUUID; // Not null after successful initialization
 	protected String ownerName; // Not null after successful initialization
@@ -55,6 +61,10 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 	// Random shopkeeper-specific starting offset between [1, CHECK_CONTAINER_PERIOD_SECONDS]
 	private int remainingCheckContainerSeconds = (int) (Math.random() * CHECK_CONTAINER_PERIOD_SECONDS) + 1;
 
+	// Cached counts of all items inside the container, null if not cached:
+	private List<ItemCount> containerStock = null;
+	private long containerStockTimestamp;
+
 	/**
 	 * Creates a not yet initialized {@link AbstractPlayerShopkeeper} (for use in sub-classes).
 	 * <p>
@@ -236,8 +246,13 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 		Validate.notNull(ownerUUID, "Owner uuid is null!");
 		Validate.notEmpty(ownerName, "Owner name is empty!");
 		this.markDirty();
+		UUID oldOwnerUUID = this.ownerUUID;
 		this.ownerUUID = ownerUUID;
 		this.ownerName = ownerName;
+		if (this.isValid()) {
+			// Update the registry's owner index:
+			SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().onShopkeeperOwnerChanged(this, oldOwnerUUID);
+		}
 		// TODO Do this in a more abstract way.
 		if (!Settings.allowRenamingOfPlayerNpcShops && this.getShopObject().getType() == DefaultShopObjectTypes.CITIZEN()) {
 			// Update the NPC's name:
@@ -307,6 +322,7 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 		this.containerX = containerX;
 		this.containerY = containerY;
 		this.containerZ = containerZ;
+		this.invalidateContainerStock();
 
 		if (this.isValid()) {
 			// Register new protected container:
@@ -425,33 +441,88 @@ public abstract class AbstractPlayerShopkeeper extends AbstractShopkeeper implem
 
 	@Override
 	public int getCurrencyInContainer() {
-		Block container = this.getContainer();
-		if (!ShopContainers.isSupportedContainer(container.getType())) {
-			return 0;
-		}
-
 		int totalCurrency = 0;
-		Inventory inventory = ShopContainers.getInventory(container);
-		ItemStack[] contents = inventory.getContents();
-		for (ItemStack itemStack : contents) {
-			if (Settings.isCurrencyItem(itemStack)) {
-				totalCurrency += itemStack.getAmount();
-			} else if (Settings.isHighCurrencyItem(itemStack)) {
-				totalCurrency += (itemStack.getAmount() * Settings.highCurrencyValue);
+		for (ItemCount itemCount : this.getContainerStock()) {
+			ItemStack item = itemCount.getItem();
+			if (Settings.isCurrencyItem(item)) {
+				totalCurrency += itemCount.getAmount();
+			} else if (Settings.isHighCurrencyItem(item)) {
+				totalCurrency += (itemCount.getAmount() * Settings.highCurrencyValue);
 			}
 		}
 		return totalCurrency;
 	}
 
 	protected List<ItemCount> getItemsFromContainer(Filter<ItemStack> filter) {
-		ItemStack[] contents = null;
-		Block container = this.getContainer();
-		if (ShopContainers.isSupportedContainer(container.getType())) {
-			Inventory inventory = ShopContainers.getInventory(container);
-			contents = inventory.getContents();
-		}
 		// Returns an empty list if the container could not be found:
-		return ItemUtils.countItems(contents, filter);
+		List<ItemCount> containerStock = this.getContainerStock();
+		if (filter == null) return containerStock;
+		List<ItemCount> itemCounts = new ArrayList<>();
+		for (ItemCount itemCount : containerStock) {
+			if (filter.accept(itemCount.getItem())) {
+				itemCounts.add(itemCount);
+			}
+		}
+		return itemCounts;
+	}
+
+	protected boolean hasContainerItem(Material itemType) {
+		for (ItemCount itemCount : this.getContainerStock()) {
+			if (itemCount.getItem().getType() == itemType) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the counts of all items inside the shop's container.
+	 * <p>
+	 * Counting the container contents requires copying and comparing all of its items. The counts are therefore cached
+	 * until the container contents change, a trade takes place, or a few seconds have passed.
+	 * <p>
+	 * The returned item counts are not supposed to be modified.
+	 * 
+	 * @return an unmodifiable view on the item counts, empty if the container could not be found
+	 */
+	protected List<ItemCount> getContainerStock() {
+		long now = System.nanoTime();
+		if (containerStock == null || (now - containerStockTimestamp) > CONTAINER_STOCK_MAX_AGE_NANOS) {
+			ItemStack[] contents = null;
+			Block container = this.getContainer();
+			if (ShopContainers.isSupportedContainer(container.getType())) {
+				Inventory inventory = ShopContainers.getInventory(container);
+				contents = inventory.getContents();
+			}
+			this.updateContainerStock(contents, now);
+		}
+		return containerStock;
+	}
+
+	/**
+	 * Updates the cached container stock based on the given container contents.
+	 * <p>
+	 * This can be used when the new container contents are already known, for example after a trade.
+	 * 
+	 * @param contents
+	 *            the container contents, or <code>null</code> if the container is missing
+	 */
+	public void updateContainerStock(ItemStack[] contents) {
+		this.updateContainerStock(contents, System.nanoTime());
+	}
+
+	private void updateContainerStock(ItemStack[] contents, long timestamp) {
+		containerStock = Collections.unmodifiableList(ItemUtils.countItems(contents, null));
+		containerStockTimestamp = timestamp;
+	}
+
+	/**
+	 * Invalidates the cached container stock.
+	 * <p>
+	 * This is supposed to be called whenever the contents of the container change.
+	 */
+	public void invalidateContainerStock() {
+		containerStock = null;
 	}
 
 	// SHOPKEEPER UIs - Shortcuts for common UI types:
@@ -0,0 +1,79 @@
+package com.nisovin.shopkeepers.shopkeeper.player;
+
+import java.util.List;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.inventory.Inventory;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.container.ShopContainers;
+import com.nisovin.shopkeepers.container.protection.ProtectedContainers;
+
+/**
+ * Invalidates the cached container stock of player shopkeepers when the contents of their containers change.
+ */
+public class ContainerStockListener implements Listener {
+
+	private final SKShopkeepersPlugin plugin;
+
+	public ContainerStockListener(SKShopkeepersPlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryClick(InventoryClickEvent event) {
+		this.invalidateContainerStock(event.getView().getTopInventory());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryDrag(InventoryDragEvent event) {
+		this.invalidateContainerStock(event.getView().getTopInventory());
+	}
+
+	// The click and drag events are called before the inventory contents change. We therefore also invalidate the
+	// container stock once the inventory is closed.
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onInventoryClose(InventoryCloseEvent event) {
+		this.invalidateContainerStock(event.getView().getTopInventory());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryMoveItem(InventoryMoveItemEvent event) {
+		this.invalidateContainerStock(event.getSource());
+		this.invalidateContainerStock(event.getDestination());
+	}
+
+	private void invalidateContainerStock(Inventory inventory) {
+		// Skips player, crafting, and other inventories that cannot belong to shop containers, without having to
+		// determine the inventory location:
+		if (!ShopContainers.isSupportedContainerInventory(inventory.getType())) return;
+		// Note: We avoid calling Inventory#getHolder here for performance reasons. For block inventories this creates a
+		// snapshot of the block's BlockState.
+		Location inventoryLocation = inventory.getLocation(); // Can be null
+		if (inventoryLocation == null) return;
+		// Quick check, which avoids fetching the block for most containers:
+		World world = inventoryLocation.getWorld();
+		if (world == null) return;
+		ProtectedContainers protectedContainers = plugin.getProtectedContainers();
+		if (!protectedContainers.mightBeProtected(world.getName(), inventoryLocation.getBlockX(), inventoryLocation.getBlockZ())) {
+			return;
+		}
+		Block block = inventoryLocation.getBlock(); // Not null
+		if (!ShopContainers.isSupportedContainer(block.getType())) return;
+		// Also includes the shopkeepers using connected chests (double chests):
+		List<PlayerShopkeeper> shopkeepers = protectedContainers.getShopkeepersUsingContainer(block);
+		for (PlayerShopkeeper shopkeeper : shopkeepers) {
+			((AbstractPlayerShopkeeper) shopkeeper).invalidateContainerStock();
+		}
+	}
+}
@@ -84,12 +84,32 @@ public abstract class PlayerShopTradingHandler extends TradingHandler {
 		}
 
 		// Setup common state information for handling this trade:
-		this.containerInventory = ShopContainers.getInventory(container);
-		this.newContainerContents = containerInventory.getContents();
+		// Successive trades that get prepared together share the container contents.
+		if (containerInventory == null) {
+			this.containerInventory = ShopContainers.getInventory(container);
+			this.newContainerContents = containerInventory.getContents();
+		}
 
 		return true;
 	}
 
+	@Override
+	protected int prepareTrades(TradeData tradeData, int maxTrades) {
+		if (!this.prepareTrade(tradeData)) return 0;
+		int preparedTrades = 1;
+		while (preparedTrades < maxTrades) {
+			// The trade preparations only replace the item stacks inside the new container contents, so a shallow copy
+			// is sufficient to revert the changes of a trade that cannot be prepared:
+			ItemStack[] previousContainerContents = newContainerContents.clone();
+			if (!this.prepareTrade(tradeData)) {
+				newContainerContents = previousContainerContents;
+				break;
+			}
+			preparedTrades++;
+		}
+		return preparedTrades;
+	}
+
 	@Override
 	protected void onTradeApplied(TradeData tradeData) {
 		super.onTradeApplied(tradeData);
@@ -97,8 +117,13 @@ public abstract class PlayerShopTradingHandler extends TradingHandler {
 		// Apply container content changes:
 		if (containerInventory != null && newContainerContents != null) {
 			containerInventory.setContents(newContainerContents);
+			// The new container contents are already known:
+			this.getShopkeeper().updateContainerStock(newContainerContents);
 		}
 
+		// The changed stock might also affect the trades of the other players that are trading with this shopkeeper:
+		this.updateTradesOfAllPlayersLater();
+
 		// Reset trade related state information:
 		this.resetTradeState();
 	}
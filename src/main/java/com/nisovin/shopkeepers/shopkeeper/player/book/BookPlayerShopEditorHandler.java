@@ -49,7 +49,8 @@ public class BookPlayerShopEditorHandler extends PlayerShopEditorHandler {
 		// Add empty offers for items from the container:
 		for (int containerItemIndex = 0; containerItemIndex < containerItems.size(); containerItemIndex++) {
 			ItemCount itemCount = containerItems.get(containerItemIndex);
-			ItemStack itemFromContainer = itemCount.getItem(); // This item is already a copy with amount 1
+			// Copy, since the container item counts are cached and shared (the copy has an amount of 1):
+			ItemStack itemFromContainer = itemCount.getItem().clone();
 
 			String bookTitle = SKBookPlayerShopkeeper.getBookTitle(itemFromContainer);
 			assert bookTitle != null; // We filtered those book items earlier
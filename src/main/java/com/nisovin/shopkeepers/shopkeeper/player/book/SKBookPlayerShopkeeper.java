@@ -7,10 +7,8 @@ import java.util.List;
 import java.util.Objects;
 
 import org.bukkit.Material;
-import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BookMeta;
 import org.bukkit.inventory.meta.BookMeta.Generation;
@@ -22,7 +20,6 @@ import com.nisovin.shopkeepers.api.shopkeeper.offers.BookOffer;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopCreationData;
 import com.nisovin.shopkeepers.api.shopkeeper.player.book.BookPlayerShopkeeper;
 import com.nisovin.shopkeepers.api.ui.DefaultUITypes;
-import com.nisovin.shopkeepers.container.ShopContainers;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.SKDefaultShopTypes;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKBookOffer;
@@ -187,12 +184,7 @@ public class SKBookPlayerShopkeeper extends AbstractPlayerShopkeeper implements
 	}
 
 	protected boolean hasContainerBlankBooks() {
-		Block container = this.getContainer();
-		if (ShopContainers.isSupportedContainer(container.getType())) {
-			Inventory inventory = ShopContainers.getInventory(container);
-			return inventory.contains(Material.WRITABLE_BOOK);
-		}
-		return false;
+		return this.hasContainerItem(Material.WRITABLE_BOOK);
 	}
 
 	protected ItemStack createDummyBook(String title) {
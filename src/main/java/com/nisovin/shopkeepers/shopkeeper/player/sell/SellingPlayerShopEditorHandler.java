@@ -39,7 +39,8 @@ public class SellingPlayerShopEditorHandler extends PlayerShopEditorHandler {
 		List<ItemCount> containerItems = shopkeeper.getItemsFromContainer();
 		for (int containerItemIndex = 0; containerItemIndex < containerItems.size(); containerItemIndex++) {
 			ItemCount itemCount = containerItems.get(containerItemIndex);
-			ItemStack itemFromContainer = itemCount.getItem(); // This item is already a copy with amount 1
+			// Copy, since the container item counts are cached and shared (the copy has an amount of 1):
+			ItemStack itemFromContainer = itemCount.getItem().clone();
 
 			if (shopkeeper.getOffer(itemFromContainer) != null) {
 				continue; // Already added
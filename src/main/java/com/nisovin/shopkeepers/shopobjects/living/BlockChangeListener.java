@@ -0,0 +1,123 @@
+package com.nisovin.shopkeepers.shopobjects.living;
+
+import java.util.List;
+
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockRedstoneEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+/**
+ * Informs the {@link LivingEntityAI} about block changes, so that the affected shop entities check their ground again.
+ * <p>
+ * Only block changes that can remove the ground below an entity are relevant. This includes physics and redstone
+ * updates (eg. trapdoors that are opened by redstone). These events are called very frequently, but the
+ * {@link LivingEntityAI} only needs to look up the affected block column, which is cheap if there are no shop entities
+ * in it.
+ * <p>
+ * Block changes that do not call any event (eg. changes by other plugins) are eventually detected by the periodic
+ * ground checks of the {@link LivingEntityAI}.
+ */
+class BlockChangeListener implements Listener {
+
+	private final LivingEntityAI livingEntityAI;
+
+	BlockChangeListener(LivingEntityAI livingEntityAI) {
+		this.livingEntityAI = livingEntityAI;
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockBreak(BlockBreakEvent event) {
+		livingEntityAI.onBlockChanged(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockPlace(BlockPlaceEvent event) {
+		// Placing a block can replace a block with collision (eg. placing a block into a snow layer):
+		livingEntityAI.onBlockChanged(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockBurn(BlockBurnEvent event) {
+		livingEntityAI.onBlockChanged(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockFade(BlockFadeEvent event) {
+		livingEntityAI.onBlockChanged(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onLeavesDecay(LeavesDecayEvent event) {
+		livingEntityAI.onBlockChanged(event.getBlock());
+	}
+
+	// Example: Blocks starting to fall, or endermen picking up blocks.
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onEntityChangeBlock(EntityChangeBlockEvent event) {
+		livingEntityAI.onBlockChanged(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockPhysics(BlockPhysicsEvent event) {
+		livingEntityAI.onBlockChanged(event.getBlock());
+		// The block that caused the update might be located in a different block column:
+		Block sourceBlock = event.getSourceBlock();
+		if (sourceBlock.getX() != event.getBlock().getX() || sourceBlock.getZ() != event.getBlock().getZ()) {
+			livingEntityAI.onBlockChanged(sourceBlock);
+		}
+	}
+
+	// Example: Trapdoors that are opened or closed by redstone.
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onBlockRedstone(BlockRedstoneEvent event) {
+		livingEntityAI.onBlockChanged(event.getBlock());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onBlockExplode(BlockExplodeEvent event) {
+		this.onBlocksChanged(event.blockList());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onEntityExplode(EntityExplodeEvent event) {
+		this.onBlocksChanged(event.blockList());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onPistonExtend(BlockPistonExtendEvent event) {
+		this.onBlocksMoved(event.getBlocks(), event.getDirection());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onPistonRetract(BlockPistonRetractEvent event) {
+		this.onBlocksMoved(event.getBlocks(), event.getDirection());
+	}
+
+	private void onBlocksChanged(List<Block> blocks) {
+		for (Block block : blocks) {
+			livingEntityAI.onBlockChanged(block);
+		}
+	}
+
+	private void onBlocksMoved(List<Block> blocks, BlockFace direction) {
+		for (Block block : blocks) {
+			// Both the previous and the new block columns are affected:
+			livingEntityAI.onBlockChanged(block);
+			livingEntityAI.onBlockChanged(block.getRelative(direction));
+		}
+	}
+}
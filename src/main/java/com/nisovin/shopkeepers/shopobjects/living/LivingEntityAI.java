@@ -1,16 +1,17 @@
 package com.nisovin.shopkeepers.shopobjects.living;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.UUID;
 
 import org.bukkit.Bukkit;
-import org.bukkit.Chunk;
 import org.bukkit.Location;
-import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitTask;
@@ -19,7 +20,9 @@ import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.compat.NMSManager;
-import com.nisovin.shopkeepers.util.MathUtils;
+import com.nisovin.shopkeepers.util.ChunkKeys;
+import com.nisovin.shopkeepers.util.LongObjectHashMap;
+import com.nisovin.shopkeepers.util.Timings;
 import com.nisovin.shopkeepers.util.Utils;
 import com.nisovin.shopkeepers.util.Validate;
 
@@ -28,6 +31,10 @@ import com.nisovin.shopkeepers.util.Validate;
  * <p>
  * It is assumed that entities usually don't change their initial chunk: Their gravity and AI activation depend on
  * whether their initial chunk has players nearby, rather than whether their current chunk has players nearby.
+ * <p>
+ * The chunks are activated incrementally: Each chunk keeps track of the number of players whose activation range
+ * covers it. During each activation phase, only the players that have moved into a different chunk (or changed
+ * worlds, or went offline) update these counts.
  */
 public class LivingEntityAI {
 
@@ -43,19 +50,15 @@ public class LivingEntityAI {
 
 	// Entities won't fall, if their distance-to-ground is smaller than this:
 	private static final double DISTANCE_TO_GROUND_THRESHOLD = 0.01D;
-	// Determines the max. falling speed:
-	// Note: We allow a falling step size that is slightly larger than this, if we reach the end of the fall by that.
-	// Note: Entities get spawned 0.5 above the ground.
-	// By using 0.5 here (and allowing slightly larger step sizes if they stop the fall) we can be sure to require at
-	// most a single step for the most common falls and have the entity positioned perfectly on the ground.
-	// TODO Dynamically increase an entities falling speed? Need to dynamically adjust the collision check range as well
-	// then.
-	private static final double MAX_FALLING_DISTANCE_PER_TICK = 0.5D;
 	// The range in which we check for block collisions:
-	// Has to be slightly larger than the max-falling-distance-per-tick in order to make full use of the max. falling
-	// speed, and to be able to detect the end of the falling without having to check for block collisions another time
-	// in the next tick.
-	private static final double GRAVITY_COLLISION_CHECK_RANGE = MAX_FALLING_DISTANCE_PER_TICK + 0.1D;
+	// If the ground is found within this range, the entity is moved onto the ground with a single teleport. Otherwise,
+	// the entity is moved down by this distance and the falling continues during the next tick.
+	private static final double GRAVITY_COLLISION_CHECK_RANGE = 16.0D;
+	// Regarding ground checks:
+	// Once an entity has reached the ground, it is checked again once a block in its column changes (see
+	// onBlockChanged). Since not every block change triggers an event, grounded entities are also re-checked every
+	// GROUND_RECHECK_TICKS ticks.
+	private static final int GROUND_RECHECK_TICKS = 200;
 
 	private static final Random RANDOM = new Random();
 
@@ -63,33 +66,84 @@ public class LivingEntityAI {
 
 	private static class EntityData {
 		private final ChunkData chunkData;
-		// Random initial delay to distribute falling checks of entities among ticks:
+		private final long columnKey;
+		// Informed about block changes in the column of the entity. Can be null.
+		private final SKLivingShopObject<?> shopObject;
+		// Random initial delay to distribute the initial ground checks of entities among ticks:
 		public int skipFallingCheckTicks = RANDOM.nextInt(10);
 		public boolean falling = false;
 		public double distanceToGround = 0.0D;
+		// Random offset to distribute the AI ticks of distant entities among ticks:
+		public final int aiTickOffset = RANDOM.nextInt(1024);
 
-		public EntityData(ChunkData chunkData) {
+		public EntityData(ChunkData chunkData, long columnKey, SKLivingShopObject<?> shopObject) {
 			this.chunkData = chunkData;
+			this.columnKey = columnKey;
+			this.shopObject = shopObject;
 		}
 	}
 
 	// Ticking entities -> entity data
 	private final Map<LivingEntity, EntityData> entities = new HashMap<>();
+	// World name -> block column key -> entity data
+	// Used to re-check the ground of entities whose block column has changed.
+	private final Map<String, LongObjectHashMap<List<EntityData>>> entitiesByColumn = new HashMap<>();
 
 	private static class ChunkData {
-		private final Chunk chunk;
+		private final String worldName;
+		private final long chunkKey;
 		private int entityCount = 0;
-		// Active by default for fast initial reactions in case players are nearby:
-		public boolean activeGravity;
-		public boolean activeAI = true;
+		// The number of players whose AI or gravity activation range covers this chunk:
+		private int aiReferences = 0;
+		private int gravityReferences = 0;
+		// The number of players inside this chunk:
+		private int nearAIReferences = 0;
+
+		public ChunkData(String worldName, long chunkKey) {
+			this.worldName = worldName;
+			this.chunkKey = chunkKey;
+		}
+
+		public boolean isActiveAI() {
+			return (aiReferences > 0);
+		}
 
-		public ChunkData(Chunk chunk, boolean activeGravity) {
-			this.chunk = chunk;
-			this.activeGravity = activeGravity;
+		// Whether the entities in this chunk tick their AI every tick, rather than only every few ticks:
+		public boolean isNearAI() {
+			return (nearAIReferences > 0);
+		}
+
+		public boolean isActiveGravity() {
+			return (gravityReferences > 0);
+		}
+
+		public boolean isUnused() {
+			return (entityCount <= 0 && aiReferences <= 0 && nearAIReferences <= 0 && gravityReferences <= 0);
+		}
+	}
+
+	// World name -> chunk key -> chunk data
+	// Contains the chunks with entities, and the chunks within the activation range of players.
+	private final Map<String, LongObjectHashMap<ChunkData>> chunksByWorld = new HashMap<>();
+
+	private static class PlayerData {
+		// The chunk the player was last activating chunks around:
+		private String worldName;
+		private int chunkX;
+		private int chunkZ;
+		// The gravity chunk range that was used, or -1 if gravity was not active:
+		private int gravityChunkRange;
+		// The activation phase during which the player was last seen online:
+		private int lastActivationPhase;
+
+		public boolean isAt(String worldName, int chunkX, int chunkZ, int gravityChunkRange) {
+			return (this.chunkX == chunkX && this.chunkZ == chunkZ && this.gravityChunkRange == gravityChunkRange
+					&& this.worldName.equals(worldName));
 		}
 	}
 
-	private final Map<Chunk, ChunkData> activeChunks = new HashMap<>();
+	private final Map<UUID, PlayerData> players = new HashMap<>();
+	private int activationPhaseCounter = 0;
 
 	// Temporarily re-used Location object:
 	private final Location tempLocation = new Location(null, 0, 0, 0);
@@ -101,96 +155,15 @@ public class LivingEntityAI {
 	// Statistics:
 	private int activeAIChunksCount = 0;
 	private int activeAIEntityCount = 0;
+	// Entities with active AI by level of detail:
+	private int nearAIEntityCount = 0;
+	private int distantAIEntityCount = 0;
+	// The number of entities whose AI was actually ticked:
+	private int tickedAIEntityCount = 0;
 
 	private int activeGravityChunksCount = 0;
 	private int activeGravityEntityCount = 0;
 
-	public static class Timings {
-
-		private long[] timingsHistory;
-		private long maxTiming = 0L;
-		private int counter = 0;
-
-		// Current timing:
-		private boolean started = false;
-		private boolean paused = false;
-		private long startTime;
-		private long elapsedTime;
-
-		public Timings() {
-			this(100);
-		}
-
-		public Timings(int historySize) {
-			assert historySize > 0;
-			timingsHistory = new long[historySize];
-		}
-
-		void start() {
-			assert !started && !paused;
-			// Reset:
-			started = true;
-			paused = false;
-			elapsedTime = 0L;
-			// Start timing:
-			startTime = System.nanoTime();
-		}
-
-		void startPaused() {
-			this.start();
-			this.pause();
-		}
-
-		void pause() {
-			assert started && !paused;
-			paused = true;
-			// Update timing:
-			elapsedTime += (System.nanoTime() - startTime);
-		}
-
-		void resume() {
-			assert started && paused;
-			paused = false;
-			// Continue timing:
-			startTime = System.nanoTime();
-		}
-
-		void stop() {
-			assert started;
-			counter++;
-			if (!paused) {
-				// Update timing by pausing:
-				this.pause();
-			}
-			assert paused;
-
-			// Update timings history:
-			int historyIndex = (counter % timingsHistory.length);
-			timingsHistory[historyIndex] = elapsedTime;
-			// Reset/update max timing:
-			if (historyIndex == 0) maxTiming = elapsedTime;
-			else if (elapsedTime > maxTiming) maxTiming = elapsedTime;
-		}
-
-		public void reset() {
-			counter = 0;
-			Arrays.fill(timingsHistory, 0L);
-			maxTiming = 0L;
-		}
-
-		public int getCounter() {
-			return counter;
-		}
-
-		public double getAverageTimeMillis() {
-			return (MathUtils.average(timingsHistory) * 1.0E-6D);
-		}
-
-		public double getMaxTimeMillis() {
-			return (maxTiming * 1.0E-6D);
-		}
-	}
-
 	private final Timings totalTimings = new Timings();
 	private final Timings activationTimings = new Timings(10);
 	private final Timings gravityTimings = new Timings();
@@ -224,30 +197,16 @@ public class LivingEntityAI {
 			boolean activationPhase = (tickCounter % AI_ACTIVATION_TICK_RATE == 0);
 			if (activationPhase) {
 				activationTimings.start();
-
-				// Deactivate all chunks:
-				for (ChunkData chunkData : activeChunks.values()) {
-					chunkData.activeAI = false;
-					chunkData.activeGravity = false;
-				}
-				activeAIChunksCount = 0;
-				activeGravityChunksCount = 0;
-
-				// Activate chunks with nearby players:
-				boolean gravityActive = this.isGravityActive();
-				int gravityChunkRange = Math.max(Settings.gravityChunkRange, 0);
-				for (Player player : Bukkit.getOnlinePlayers()) {
-					Chunk centerChunk = player.getLocation(tempLocation).getChunk();
-					this.activateNearbyChunks(centerChunk, AI_ACTIVATION_CHUNK_RANGE, ActivationType.AI);
-					if (gravityActive) {
-						this.activateNearbyChunks(centerChunk, gravityChunkRange, ActivationType.GRAVITY);
-					}
-				}
+				this.updateChunkActivations();
 				activationTimings.stop();
 			}
 
 			activeAIEntityCount = 0;
+			nearAIEntityCount = 0;
+			distantAIEntityCount = 0;
+			tickedAIEntityCount = 0;
 			activeGravityEntityCount = 0;
+			int distantAITickInterval = Math.max(Settings.distantEntityAITickInterval, 1);
 			Iterator<Entry<LivingEntity, EntityData>> iterator = entities.entrySet().iterator();
 			while (iterator.hasNext()) {
 				Entry<LivingEntity, EntityData> entry = iterator.next();
@@ -263,12 +222,11 @@ public class LivingEntityAI {
 
 				// Handle gravity:
 				gravityTimings.resume();
-				if (chunkData.activeGravity) {
+				if (chunkData.isActiveGravity()) {
 					activeGravityEntityCount++;
 
-					// Check periodically, or if already falling, if the entity is meant to (continue to) fall:
-					entityData.skipFallingCheckTicks--;
-					if ((entityData.skipFallingCheckTicks <= 0) || entityData.falling) {
+					// Check if the entity is meant to (continue to) fall:
+					if (entityData.falling || --entityData.skipFallingCheckTicks <= 0) {
 						// Falling, if the distance-to-ground is above the threshold:
 						Location entityLocation = entity.getLocation(tempLocation);
 						entityData.distanceToGround = Utils.getCollisionDistanceToGround(entityLocation, GRAVITY_COLLISION_CHECK_RANGE);
@@ -283,21 +241,33 @@ public class LivingEntityAI {
 						if (!entityData.falling) {
 							// Prevents SPIGOT-3948 / MC-130725
 							NMSManager.getProvider().setOnGround(entity, true);
+							// Cache the result until the block column of the entity changes, or until the next
+							// periodic re-check:
+							entityData.skipFallingCheckTicks = GROUND_RECHECK_TICKS;
 						}
-
-						// Wait 10 ticks before checking again:
-						entityData.skipFallingCheckTicks = 10;
 					}
 				}
 				gravityTimings.pause();
 
 				// Handle AI:
 				aiTimings.resume();
-				if (chunkData.activeAI) {
+				if (chunkData.isActiveAI()) {
 					activeAIEntityCount++;
 
+					// Level of detail: Entities in chunks with players tick their AI every tick, and entities in the
+					// neighboring chunks only every few ticks.
+					boolean tickAI;
+					if (chunkData.isNearAI()) {
+						nearAIEntityCount++;
+						tickAI = true;
+					} else {
+						distantAIEntityCount++;
+						tickAI = (Math.floorMod(tickCounter + entityData.aiTickOffset, distantAITickInterval) == 0);
+					}
+
 					// Only handle AI if not currently falling:
-					if (!entityData.falling) {
+					if (tickAI && !entityData.falling) {
+						tickedAIEntityCount++;
 						this.handleAI(entity);
 					}
 				}
@@ -333,29 +303,40 @@ public class LivingEntityAI {
 		return (currentlyRunning || Bukkit.getScheduler().isQueued(aiTask.getTaskId()));
 	}
 
-	public void addEntity(LivingEntity entity) {
+	/**
+	 * Adds the given entity to the AI.
+	 * 
+	 * @param entity
+	 *            the entity
+	 * @param shopObject
+	 *            the shop object of the entity, which gets informed about block changes in the block column of the
+	 *            entity, can be <code>null</code>
+	 */
+	public void addEntity(LivingEntity entity, SKLivingShopObject<?> shopObject) {
 		Validate.notNull(entity, "Entity is null!");
 		Validate.isTrue(!entity.isDead() && entity.isValid(), "Entity is invalid!");
 		Validate.isTrue(!currentlyRunning, "Cannot add entities while the ai task is running!");
 		if (entities.containsKey(entity)) return;
 
 		// Determine entity chunk (asserts that the entity won't move!):
-		Chunk entityChunk = entity.getLocation(tempLocation).getChunk();
+		Location entityLocation = entity.getLocation(tempLocation);
+		String worldName = entityLocation.getWorld().getName();
+		long chunkKey = ChunkKeys.fromBlockPos(entityLocation.getBlockX(), entityLocation.getBlockZ());
+		long columnKey = getColumnKey(entityLocation.getBlockX(), entityLocation.getBlockZ());
 		tempLocation.setWorld(null); // Cleanup temporarily used location object
 
-		// Active gravity handling?
-		boolean gravityActive = this.isGravityActive();
-
 		// Add chunk entry:
-		ChunkData chunkData = activeChunks.get(entityChunk);
-		if (chunkData == null) {
-			chunkData = new ChunkData(entityChunk, gravityActive);
-			activeChunks.put(entityChunk, chunkData);
-		}
+		ChunkData chunkData = this.getOrCreateChunkData(worldName, chunkKey);
 		chunkData.entityCount++;
+		if (chunkData.entityCount == 1) {
+			if (chunkData.isActiveAI()) activeAIChunksCount++;
+			if (chunkData.isActiveGravity()) activeGravityChunksCount++;
+		}
 
 		// Add entity entry:
-		entities.put(entity, new EntityData(chunkData));
+		EntityData entityData = new EntityData(chunkData, columnKey, shopObject);
+		entities.put(entity, entityData);
+		this.addEntityToColumn(worldName, entityData);
 
 		// Start the AI task, if it isn't already running:
 		this.start();
@@ -372,27 +353,36 @@ public class LivingEntityAI {
 
 	private void onEntityRemoved(LivingEntity entity, EntityData entityData) {
 		assert entity != null && entityData != null;
+		this.removeEntityFromColumn(entityData);
+
 		// Update/remove chunk entry:
 		ChunkData chunkData = entityData.chunkData;
 		chunkData.entityCount--;
-		if (chunkData.entityCount <= 0) {
-			activeChunks.remove(chunkData.chunk);
+		if (chunkData.entityCount == 0) {
+			if (chunkData.isActiveAI()) activeAIChunksCount--;
+			if (chunkData.isActiveGravity()) activeGravityChunksCount--;
 		}
+		this.removeChunkDataIfUnused(chunkData);
 	}
 
 	public void reset() {
 		Validate.isTrue(!currentlyRunning, "Cannot reset while the ai task is running!");
 		entities.clear();
-		// activeChunks.clear();
+		entitiesByColumn.clear();
+		chunksByWorld.clear();
+		players.clear();
+		activeAIChunksCount = 0;
+		activeGravityChunksCount = 0;
 		this.resetStatistics();
 	}
 
 	public void resetStatistics() {
 		// Reset statistics:
-		activeAIChunksCount = 0;
+		// Note: The active chunk counts are kept up-to-date with the chunk activations.
 		activeAIEntityCount = 0;
-
-		activeGravityChunksCount = 0;
+		nearAIEntityCount = 0;
+		distantAIEntityCount = 0;
+		tickedAIEntityCount = 0;
 		activeGravityEntityCount = 0;
 
 		totalTimings.reset();
@@ -415,6 +405,18 @@ public class LivingEntityAI {
 		return activeAIEntityCount;
 	}
 
+	public int getNearAIEntityCount() {
+		return nearAIEntityCount;
+	}
+
+	public int getDistantAIEntityCount() {
+		return distantAIEntityCount;
+	}
+
+	public int getTickedAIEntityCount() {
+		return tickedAIEntityCount;
+	}
+
 	public int getActiveGravityChunksCount() {
 		return activeGravityChunksCount;
 	}
@@ -441,41 +443,109 @@ public class LivingEntityAI {
 
 	// Handling:
 
-	private static enum ActivationType {
-		GRAVITY,
-		AI;
-	}
-
-	private void activateNearbyChunks(Chunk centerChunk, int chunkRadius, ActivationType activationType) {
-		assert centerChunk != null && chunkRadius >= 0 && activationType != null;
-		World world = centerChunk.getWorld();
-		int minX = centerChunk.getX() - chunkRadius;
-		int minZ = centerChunk.getZ() - chunkRadius;
-		int maxX = centerChunk.getX() + chunkRadius;
-		int maxZ = centerChunk.getZ() + chunkRadius;
-		for (int x = minX; x <= maxX; x++) {
-			for (int z = minZ; z <= maxZ; z++) {
-				if (!world.isChunkLoaded(x, z)) continue;
-				Chunk chunk = world.getChunkAt(x, z);
-				ChunkData chunkData = activeChunks.get(chunk);
-				if (chunkData == null) continue;
-
-				switch (activationType) {
-				case GRAVITY:
-					if (!chunkData.activeGravity) {
-						chunkData.activeGravity = true;
-						activeGravityChunksCount++;
+	private ChunkData getOrCreateChunkData(String worldName, long chunkKey) {
+		LongObjectHashMap<ChunkData> worldChunks = chunksByWorld.get(worldName);
+		if (worldChunks == null) {
+			worldChunks = new LongObjectHashMap<>();
+			chunksByWorld.put(worldName, worldChunks);
+		}
+		ChunkData chunkData = worldChunks.get(chunkKey);
+		if (chunkData == null) {
+			chunkData = new ChunkData(worldName, chunkKey);
+			worldChunks.put(chunkKey, chunkData);
+		}
+		return chunkData;
+	}
+
+	private void removeChunkDataIfUnused(ChunkData chunkData) {
+		if (!chunkData.isUnused()) return;
+		LongObjectHashMap<ChunkData> worldChunks = chunksByWorld.get(chunkData.worldName);
+		if (worldChunks == null) return;
+		worldChunks.remove(chunkData.chunkKey);
+		if (worldChunks.isEmpty()) {
+			chunksByWorld.remove(chunkData.worldName);
+		}
+	}
+
+	// Only re-evaluates the players that have moved into a different chunk since the last activation phase.
+	private void updateChunkActivations() {
+		int activationPhase = ++activationPhaseCounter;
+		int gravityChunkRange = this.isGravityActive() ? Math.max(Settings.gravityChunkRange, 0) : -1;
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			Location playerLocation = player.getLocation(tempLocation);
+			String worldName = playerLocation.getWorld().getName();
+			int chunkX = (playerLocation.getBlockX() >> 4);
+			int chunkZ = (playerLocation.getBlockZ() >> 4);
+
+			PlayerData playerData = players.get(player.getUniqueId());
+			if (playerData == null) {
+				playerData = new PlayerData();
+				players.put(player.getUniqueId(), playerData);
+			} else if (playerData.isAt(worldName, chunkX, chunkZ, gravityChunkRange)) {
+				// The player has not moved into a different chunk: The chunk activations remain unchanged.
+				playerData.lastActivationPhase = activationPhase;
+				continue;
+			} else {
+				// Deactivate the chunks around the previous player position:
+				this.updateChunkReferences(playerData, -1);
+			}
+
+			// Activate the chunks around the current player position:
+			playerData.worldName = worldName;
+			playerData.chunkX = chunkX;
+			playerData.chunkZ = chunkZ;
+			playerData.gravityChunkRange = gravityChunkRange;
+			playerData.lastActivationPhase = activationPhase;
+			this.updateChunkReferences(playerData, 1);
+		}
+		tempLocation.setWorld(null); // Cleanup temporarily used location object
+
+		// Deactivate the chunks around players that are no longer online:
+		Iterator<PlayerData> playersIterator = players.values().iterator();
+		while (playersIterator.hasNext()) {
+			PlayerData playerData = playersIterator.next();
+			if (playerData.lastActivationPhase != activationPhase) {
+				playersIterator.remove();
+				this.updateChunkReferences(playerData, -1);
+			}
+		}
+	}
+
+	// Adds (delta 1) or removes (delta -1) the player's references to the chunks within its activation ranges.
+	private void updateChunkReferences(PlayerData playerData, int delta) {
+		assert delta == 1 || delta == -1;
+		int chunkRange = Math.max(AI_ACTIVATION_CHUNK_RANGE, playerData.gravityChunkRange);
+		for (int offsetX = -chunkRange; offsetX <= chunkRange; offsetX++) {
+			for (int offsetZ = -chunkRange; offsetZ <= chunkRange; offsetZ++) {
+				int distance = Math.max(Math.abs(offsetX), Math.abs(offsetZ));
+				long chunkKey = ChunkKeys.of(playerData.chunkX + offsetX, playerData.chunkZ + offsetZ);
+				ChunkData chunkData;
+				if (delta > 0) {
+					chunkData = this.getOrCreateChunkData(playerData.worldName, chunkKey);
+				} else {
+					LongObjectHashMap<ChunkData> worldChunks = chunksByWorld.get(playerData.worldName);
+					chunkData = (worldChunks != null) ? worldChunks.get(chunkKey) : null;
+					if (chunkData == null) continue; // Not expected
+				}
+
+				if (distance == 0) {
+					chunkData.nearAIReferences += delta;
+				}
+				if (distance <= AI_ACTIVATION_CHUNK_RANGE) {
+					boolean wasActive = chunkData.isActiveAI();
+					chunkData.aiReferences += delta;
+					if (chunkData.entityCount > 0 && wasActive != chunkData.isActiveAI()) {
+						activeAIChunksCount += (wasActive ? -1 : 1);
 					}
-					break;
-				case AI:
-					if (!chunkData.activeAI) {
-						chunkData.activeAI = true;
-						activeAIChunksCount++;
+				}
+				if (distance <= playerData.gravityChunkRange) {
+					boolean wasActive = chunkData.isActiveGravity();
+					chunkData.gravityReferences += delta;
+					if (chunkData.entityCount > 0 && wasActive != chunkData.isActiveGravity()) {
+						activeGravityChunksCount += (wasActive ? -1 : 1);
 					}
-				default:
-					// Not expected.
-					break;
 				}
+				this.removeChunkDataIfUnused(chunkData);
 			}
 		}
 	}
@@ -483,16 +553,11 @@ public class LivingEntityAI {
 	// Gets run every tick while falling:
 	private void handleFalling(LivingEntity entity, EntityData entityData) {
 		assert entityData.falling && entityData.distanceToGround >= DISTANCE_TO_GROUND_THRESHOLD;
-		// Determine falling step size:
-		double fallingStepSize;
-		double remainingDistance = (entityData.distanceToGround - MAX_FALLING_DISTANCE_PER_TICK);
-		if (remainingDistance <= DISTANCE_TO_GROUND_THRESHOLD) {
-			// We are nearly there: Let's position the entity exactly on the ground and stop the falling.
-			fallingStepSize = entityData.distanceToGround;
+		// If the ground is within the checked range, we move the entity directly onto the ground. Otherwise, we move it
+		// down by the checked range and continue the falling during the next tick.
+		double fallingStepSize = entityData.distanceToGround;
+		if (fallingStepSize < GRAVITY_COLLISION_CHECK_RANGE) {
 			entityData.falling = false;
-		} else {
-			fallingStepSize = MAX_FALLING_DISTANCE_PER_TICK;
-			// We continue the falling and check for collisions again in the next tick.
 		}
 
 		// Teleport the entity to its new location:
@@ -502,6 +567,67 @@ public class LivingEntityAI {
 		tempLocation.setWorld(null); // Cleanup temporarily used location object
 	}
 
+	// GROUND CACHE
+
+	private static long getColumnKey(int blockX, int blockZ) {
+		// Block columns are packed the same way as chunk coordinates:
+		return ChunkKeys.of(blockX, blockZ);
+	}
+
+	private void addEntityToColumn(String worldName, EntityData entityData) {
+		LongObjectHashMap<List<EntityData>> worldColumns = entitiesByColumn.get(worldName);
+		if (worldColumns == null) {
+			worldColumns = new LongObjectHashMap<>();
+			entitiesByColumn.put(worldName, worldColumns);
+		}
+		List<EntityData> columnEntities = worldColumns.get(entityData.columnKey);
+		if (columnEntities == null) {
+			// Usually there is only a single entity per block column:
+			columnEntities = new ArrayList<>(1);
+			worldColumns.put(entityData.columnKey, columnEntities);
+		}
+		columnEntities.add(entityData);
+	}
+
+	private void removeEntityFromColumn(EntityData entityData) {
+		String worldName = entityData.chunkData.worldName;
+		LongObjectHashMap<List<EntityData>> worldColumns = entitiesByColumn.get(worldName);
+		if (worldColumns == null) return;
+		List<EntityData> columnEntities = worldColumns.get(entityData.columnKey);
+		if (columnEntities == null) return;
+		columnEntities.remove(entityData);
+		if (columnEntities.isEmpty()) {
+			worldColumns.remove(entityData.columnKey);
+			if (worldColumns.isEmpty()) {
+				entitiesByColumn.remove(worldName);
+			}
+		}
+	}
+
+	/**
+	 * Invalidates the cached ground state of the entities located in the block column of the given block.
+	 * <p>
+	 * This is supposed to be called whenever a block is about to change. The affected entities check their ground
+	 * again during the next tick, and their shop objects freshly determine their spawn location during their next
+	 * check.
+	 * 
+	 * @param block
+	 *            the block
+	 */
+	public void onBlockChanged(Block block) {
+		if (entitiesByColumn.isEmpty()) return;
+		LongObjectHashMap<List<EntityData>> worldColumns = entitiesByColumn.get(block.getWorld().getName());
+		if (worldColumns == null) return;
+		List<EntityData> columnEntities = worldColumns.get(getColumnKey(block.getX(), block.getZ()));
+		if (columnEntities == null) return;
+		for (EntityData entityData : columnEntities) {
+			entityData.skipFallingCheckTicks = 1;
+			if (entityData.shopObject != null) {
+				entityData.shopObject.onBlockColumnChanged();
+			}
+		}
+	}
+
 	// Gets run every tick while in range of players:
 	private void handleAI(LivingEntity entity) {
 		// Look at nearby players: Implemented by manually running the vanilla AI goal.
@@ -48,6 +48,7 @@ import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.shopobjects.DefaultShopObjectTypes;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.SKShopkeeperRegistry;
+import com.nisovin.shopkeepers.shopobjects.AbstractShopObject;
 import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.TestPlayerInteractEntityEvent;
 import com.nisovin.shopkeepers.util.Utils;
@@ -334,6 +335,18 @@ class LivingEntityShopListener implements Listener {
 		}
 	}
 
+	// If some other plugin still applied a potion effect, it gets removed during the next check of the shop object:
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onEntityPotionEffectApplied(EntityPotionEffectEvent event) {
+		if (event.getNewEffect() == null) return; // Effect removed or cleared
+		AbstractShopkeeper shopkeeper = shopkeeperRegistry.getShopkeeperByEntity(event.getEntity());
+		if (shopkeeper == null) return;
+		AbstractShopObject shopObject = shopkeeper.getShopObject();
+		if (shopObject instanceof SKLivingShopObject) {
+			((SKLivingShopObject<?>) shopObject).onPotionEffectReceived();
+		}
+	}
+
 	// Prevent shopkeeper entities from getting set on fire (eg. monsters in daylight).
 	@EventHandler(priority = EventPriority.LOW, ignoreCancelled = true)
 	void onEntityCombustEvent(EntityCombustEvent event) {
@@ -14,16 +14,19 @@ public class LivingShops {
 	private final SKLivingShopObjectTypes livingEntityObjectTypes = new SKLivingShopObjectTypes(this);
 	private final LivingEntityAI livingEntityAI;
 	private final LivingEntityShopListener livingEntityShopListener;
+	private final BlockChangeListener blockChangeListener;
 	private final CreatureForceSpawnListener creatureForceSpawnListener = new CreatureForceSpawnListener();
 
 	public LivingShops(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
 		livingEntityAI = new LivingEntityAI(plugin);
 		livingEntityShopListener = new LivingEntityShopListener(plugin.getShopkeeperRegistry());
+		blockChangeListener = new BlockChangeListener(livingEntityAI);
 	}
 
 	public void onEnable() {
 		Bukkit.getPluginManager().registerEvents(livingEntityShopListener, plugin);
+		Bukkit.getPluginManager().registerEvents(blockChangeListener, plugin);
 		// Register force-creature-spawn event handler:
 		if (Settings.bypassSpawnBlocking) {
 			Bukkit.getPluginManager().registerEvents(creatureForceSpawnListener, plugin);
@@ -32,6 +35,7 @@ public class LivingShops {
 
 	public void onDisable() {
 		HandlerList.unregisterAll(livingEntityShopListener);
+		HandlerList.unregisterAll(blockChangeListener);
 		HandlerList.unregisterAll(creatureForceSpawnListener);
 		// Reset force spawning:
 		creatureForceSpawnListener.forceCreatureSpawn(null, null);
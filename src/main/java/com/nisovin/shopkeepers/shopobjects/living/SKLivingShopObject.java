@@ -37,11 +37,27 @@ public class SKLivingShopObject<E extends LivingEntity> extends AbstractEntitySh
 
 	protected static final double SPAWN_LOCATION_OFFSET = 0.98D;
 	protected static final double SPAWN_LOCATION_RANGE = 2.0D;
+	// Entities that moved further than this (squared distance) away from their spawn location get teleported back:
+	private static final double MAX_SPAWN_LOCATION_DISTANCE_SQUARED = 0.4D;
+
+	// The spawn location is freshly determined at least every this many checks, in case the ground below the entity
+	// changed without us noticing (roughly once per minute):
+	private static final int SPAWN_LOCATION_UPDATE_CHECKS = 6;
+
+	// Temporarily re-used Location object:
+	private static final Location TEMP_LOCATION = new Location(null, 0, 0, 0);
 
 	protected final LivingShops livingShops;
 	private final SKLivingShopObjectType<?> livingObjectType;
 	private E entity;
 	private int respawnAttempts = 0;
+	// The location the entity was last placed at. Used to detect whether the entity has moved without having to
+	// freshly determine the spawn location each time. Null if the entity is not spawned, or if the spawn location needs
+	// to be freshly determined during the next check.
+	private Location lastSpawnLocation = null;
+	private int checksSinceSpawnLocationUpdate = 0;
+	// Whether the entity received potion effects since the last check:
+	private boolean potionEffectsReceived = false;
 	private boolean debuggingSpawn = false;
 	private static long lastSpawnDebugging = 0; // Shared among all living shopkeepers to prevent spam
 
@@ -172,6 +188,8 @@ public class SKLivingShopObject<E extends LivingEntity> extends AbstractEntitySh
 			this.cleanUpEntity(entity);
 			entity = null; // Reset
 		}
+		lastSpawnLocation = null;
+		potionEffectsReceived = false;
 
 		// Prepare spawn location:
 		Location spawnLocation = this.getSpawnLocation();
@@ -238,6 +256,8 @@ public class SKLivingShopObject<E extends LivingEntity> extends AbstractEntitySh
 			// Apply sub type:
 			this.onSpawn(entity);
 
+			lastSpawnLocation = spawnLocation;
+
 			// Success:
 			return true;
 		} else {
@@ -309,7 +329,7 @@ public class SKLivingShopObject<E extends LivingEntity> extends AbstractEntitySh
 		this.setNoAI(entity);
 
 		if (NMSManager.getProvider().supportsCustomMobAI()) {
-			livingShops.getLivingEntityAI().addEntity(entity);
+			livingShops.getLivingEntityAI().addEntity(entity, this);
 		}
 
 		if (Settings.silenceLivingShopEntities) {
@@ -361,6 +381,7 @@ public class SKLivingShopObject<E extends LivingEntity> extends AbstractEntitySh
 		// Remove entity:
 		entity.remove();
 		entity = null;
+		lastSpawnLocation = null;
 	}
 
 	@Override
@@ -393,26 +414,53 @@ public class SKLivingShopObject<E extends LivingEntity> extends AbstractEntitySh
 				return (++respawnAttempts > 5);
 			}
 		} else {
-			Location entityLoc = entity.getLocation();
-			Location spawnLocation = this.getSpawnLocation();
-			assert spawnLocation != null; // Since entity is active
-			spawnLocation.setYaw(entityLoc.getYaw());
-			spawnLocation.setPitch(entityLoc.getPitch());
-			if (!entityLoc.getWorld().equals(spawnLocation.getWorld()) || entityLoc.distanceSquared(spawnLocation) > 0.4D) {
-				// Teleport back:
-				entity.teleport(spawnLocation);
-				this.overwriteAI();
-				Log.debug(() -> "Shopkeeper (" + shopkeeper.getPositionString() + ") out of place, teleported back");
+			Location entityLoc = entity.getLocation(TEMP_LOCATION);
+			// Only freshly determine the spawn location (which involves a ray trace) if the entity has moved away from
+			// the location it was last placed at, if a block in its column changed, or periodically:
+			if (lastSpawnLocation == null || ++checksSinceSpawnLocationUpdate >= SPAWN_LOCATION_UPDATE_CHECKS
+					|| isOutOfPlace(entityLoc, lastSpawnLocation)) {
+				checksSinceSpawnLocationUpdate = 0;
+				Location spawnLocation = this.getSpawnLocation();
+				assert spawnLocation != null; // Since entity is active
+				if (isOutOfPlace(entityLoc, spawnLocation)) {
+					// Teleport back:
+					spawnLocation.setYaw(entityLoc.getYaw());
+					spawnLocation.setPitch(entityLoc.getPitch());
+					entity.teleport(spawnLocation);
+					this.overwriteAI();
+					Log.debug(() -> "Shopkeeper (" + shopkeeper.getPositionString() + ") out of place, teleported back");
+				}
+				lastSpawnLocation = spawnLocation;
 			}
+			TEMP_LOCATION.setWorld(null); // Cleanup temporarily used location object
 
 			// Remove potion effects:
-			for (PotionEffect potionEffect : entity.getActivePotionEffects()) {
-				entity.removePotionEffect(potionEffect.getType());
+			if (potionEffectsReceived) {
+				potionEffectsReceived = false;
+				for (PotionEffect potionEffect : entity.getActivePotionEffects()) {
+					entity.removePotionEffect(potionEffect.getType());
+				}
 			}
 			return false;
 		}
 	}
 
+	// Called when a block in the block column of the entity changed. The spawn location gets freshly determined during
+	// the next check.
+	void onBlockColumnChanged() {
+		lastSpawnLocation = null;
+	}
+
+	private static boolean isOutOfPlace(Location entityLocation, Location spawnLocation) {
+		return !entityLocation.getWorld().equals(spawnLocation.getWorld())
+				|| entityLocation.distanceSquared(spawnLocation) > MAX_SPAWN_LOCATION_DISTANCE_SQUARED;
+	}
+
+	// Called when the entity received a potion effect. The potion effects get removed during the next check.
+	void onPotionEffectReceived() {
+		potionEffectsReceived = true;
+	}
+
 	public void teleportBack() {
 		E entity = this.getEntity(); // Null if not active
 		if (entity == null) return;
@@ -423,6 +471,7 @@ public class SKLivingShopObject<E extends LivingEntity> extends AbstractEntitySh
 		spawnLocation.setYaw(entityLoc.getYaw());
 		spawnLocation.setPitch(entityLoc.getPitch());
 		entity.teleport(spawnLocation);
+		lastSpawnLocation = spawnLocation;
 	}
 
 	// NAMING
@@ -0,0 +1,238 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+/**
+ * A compact binary encoding of the shopkeeper data.
+ * <p>
+ * This encodes the data of {@link DataSnapshot}s as a tree of type-tagged values. Strings, maps and lists are prefixed
+ * with their length. Unlike YAML, the encoding preserves the exact types of numbers. Serialized objects (such as item
+ * stacks) are stored in the same serialized form that is used by Bukkit's YAML serialization, i.e. as maps with a
+ * {@link ConfigurationSerialization#SERIALIZED_TYPE_KEY type key}, and are deserialized again during decoding.
+ */
+final class BinaryDataFormat {
+
+	private static final byte TAG_NULL = 0;
+	private static final byte TAG_STRING = 1;
+	private static final byte TAG_INT = 2;
+	private static final byte TAG_LONG = 3;
+	private static final byte TAG_DOUBLE = 4;
+	private static final byte TAG_FLOAT = 5;
+	private static final byte TAG_BOOLEAN = 6;
+	private static final byte TAG_SHORT = 7;
+	private static final byte TAG_BYTE = 8;
+	private static final byte TAG_MAP = 9;
+	private static final byte TAG_LIST = 10;
+	// Any other values are stored in their YAML representation:
+	private static final byte TAG_YAML = 11;
+
+	private static final String YAML_VALUE_KEY = "value";
+
+	/**
+	 * Encodes the given snapshot data.
+	 * <p>
+	 * This can be invoked on any thread.
+	 * 
+	 * @param values
+	 *            the snapshot data
+	 * @return the encoded data
+	 */
+	static byte[] encode(Map<String, Object> values) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(buffer);
+		try {
+			writeValue(out, values);
+			out.flush();
+		} catch (IOException e) {
+			// Not expected to happen for in-memory streams:
+			throw new IllegalStateException(e);
+		}
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Decodes the given data into a configuration section, in the same way in which the data would be loaded from a
+	 * YAML file.
+	 * <p>
+	 * This deserializes any serialized objects contained in the data.
+	 * 
+	 * @param data
+	 *            the encoded data
+	 * @return the decoded configuration section
+	 * @throws IOException
+	 *             if the data is invalid
+	 */
+	static ConfigurationSection decode(byte[] data) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		if (in.readByte() != TAG_MAP) {
+			throw new IOException("Data does not start with a map!");
+		}
+		Map<String, Object> values = readMap(in);
+		MemoryConfiguration section = new MemoryConfiguration();
+		for (Entry<String, Object> entry : values.entrySet()) {
+			Object value = entry.getValue();
+			if (value instanceof Map) {
+				// Nested maps are converted to sections:
+				section.createSection(entry.getKey(), (Map<?, ?>) value);
+			} else {
+				section.set(entry.getKey(), value);
+			}
+		}
+		return section;
+	}
+
+	// ENCODING
+
+	static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(TAG_NULL);
+		} else if (value instanceof String) {
+			out.writeByte(TAG_STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(TAG_INT);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(TAG_LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			out.writeByte(TAG_DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			out.writeByte(TAG_FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(TAG_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Short) {
+			out.writeByte(TAG_SHORT);
+			out.writeShort((Short) value);
+		} else if (value instanceof Byte) {
+			out.writeByte(TAG_BYTE);
+			out.writeByte((Byte) value);
+		} else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			out.writeByte(TAG_MAP);
+			out.writeInt(map.size());
+			for (Entry<?, ?> entry : map.entrySet()) {
+				writeString(out, String.valueOf(entry.getKey()));
+				writeValue(out, entry.getValue());
+			}
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			out.writeByte(TAG_LIST);
+			out.writeInt(list.size());
+			for (Object element : list) {
+				writeValue(out, element);
+			}
+		} else {
+			out.writeByte(TAG_YAML);
+			writeString(out, StorageBackend.toYamlString(Collections.singletonMap(YAML_VALUE_KEY, value)));
+		}
+	}
+
+	// DECODING
+
+	static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > in.available()) {
+			throw new IOException("Invalid string length: " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int readSize(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		// Every element takes at least one byte:
+		if (size < 0 || size > in.available()) {
+			throw new IOException("Invalid size: " + size);
+		}
+		return size;
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case TAG_NULL:
+			return null;
+		case TAG_STRING:
+			return readString(in);
+		case TAG_INT:
+			return in.readInt();
+		case TAG_LONG:
+			return in.readLong();
+		case TAG_DOUBLE:
+			return in.readDouble();
+		case TAG_FLOAT:
+			return in.readFloat();
+		case TAG_BOOLEAN:
+			return in.readBoolean();
+		case TAG_SHORT:
+			return in.readShort();
+		case TAG_BYTE:
+			return in.readByte();
+		case TAG_MAP:
+			Map<String, Object> map = readMap(in);
+			if (map.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+				try {
+					return ConfigurationSerialization.deserializeObject(map);
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Could not deserialize object!", e);
+				}
+			}
+			return map;
+		case TAG_LIST:
+			int size = readSize(in);
+			List<Object> list = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(readValue(in));
+			}
+			return list;
+		case TAG_YAML:
+			try {
+				return StorageBackend.loadYaml(readString(in)).get(YAML_VALUE_KEY);
+			} catch (InvalidConfigurationException e) {
+				throw new IOException("Invalid YAML value!", e);
+			}
+		default:
+			throw new IOException("Unknown value type: " + tag);
+		}
+	}
+
+	private static Map<String, Object> readMap(DataInputStream in) throws IOException {
+		int size = readSize(in);
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i < size; i++) {
+			String key = readString(in);
+			map.put(key, readValue(in));
+		}
+		return map;
+	}
+
+	private BinaryDataFormat() {
+	}
+}
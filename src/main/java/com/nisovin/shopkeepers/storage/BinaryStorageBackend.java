@@ -0,0 +1,201 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import com.nisovin.shopkeepers.util.Log;
+
+/**
+ * Stores all shopkeepers inside a single file in a compact binary format.
+ * <p>
+ * The file consists of a header (a magic number, the format version and the data version), followed by one
+ * length-prefixed record per shopkeeper. The shopkeeper data is encoded via {@link BinaryDataFormat}.
+ * <p>
+ * Every save rewrites the complete file. However, the encoded records of all stored shopkeepers are cached, so that
+ * only the records of the saved shopkeepers need to be encoded again. This also retains the records of shopkeepers
+ * that could not be loaded. When loading in parallel, the records are decoded in parallel.
+ */
+class BinaryStorageBackend extends StorageBackend {
+
+	// 'SKBD'
+	private static final int MAGIC = 0x534B4244;
+	private static final int FORMAT_VERSION = 1;
+
+	private final File saveFile;
+	private final File tempSaveFile;
+
+	// The data version that is currently stored, or null if it is not known:
+	private String storedDataVersion = null;
+	// Shopkeeper id -> encoded record
+	private final Map<Integer, byte[]> records = new LinkedHashMap<>();
+
+	BinaryStorageBackend(File saveFile) {
+		this.saveFile = saveFile;
+		this.tempSaveFile = getTempFile(saveFile);
+	}
+
+	@Override
+	String getName() {
+		return saveFile.getName();
+	}
+
+	@Override
+	boolean hasData() {
+		return saveFile.exists() || tempSaveFile.exists();
+	}
+
+	// LOADING
+
+	@Override
+	StoredData load(ForkJoinPool loadingPool) throws StorageException {
+		storedDataVersion = null;
+		records.clear();
+
+		File loadFile = saveFile;
+		if (!loadFile.exists()) {
+			if (tempSaveFile.exists()) {
+				// Load from temporary save file instead:
+				Log.warning("Found no save file, but an existing temporary save file! (" + tempSaveFile.getName() + ")");
+				Log.warning("This might indicate an issue during a previous saving attempt!");
+				Log.warning("We try to load the Shopkeepers data from this temporary save file instead!");
+
+				loadFile = tempSaveFile;
+			} else {
+				// No save file exists yet -> No shopkeeper data available.
+				return new StoredData(SKShopkeeperStorage.MISSING_DATA_VERSION);
+			}
+		}
+
+		String dataVersion;
+		try {
+			byte[] fileContent = Files.readAllBytes(loadFile.toPath());
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(fileContent));
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Unknown file format!");
+			}
+			int formatVersion = in.readInt();
+			if (formatVersion != FORMAT_VERSION) {
+				throw new IOException("Unsupported format version: " + formatVersion);
+			}
+			dataVersion = BinaryDataFormat.readString(in);
+			int recordCount = in.readInt();
+			for (int i = 0; i < recordCount; i++) {
+				int id = in.readInt();
+				int length = in.readInt();
+				if (length < 0 || length > in.available()) {
+					throw new IOException("Invalid length of record " + (i + 1) + ": " + length);
+				}
+				byte[] record = new byte[length];
+				in.readFully(record);
+				records.put(id, record);
+			}
+		} catch (Exception e) {
+			throw new StorageException("Failed to load save file! (" + loadFile.getName() + ") : " + e.getMessage(), e);
+		}
+		storedDataVersion = dataVersion;
+
+		// Decode the records (possibly in parallel):
+		List<Entry<Integer, byte[]>> recordEntries = new ArrayList<>(records.entrySet());
+		ConfigurationSection[] sections = new ConfigurationSection[recordEntries.size()];
+		if (loadingPool != null) {
+			loadingPool.submit(() -> Arrays.parallelSetAll(sections, index -> decodeRecord(recordEntries.get(index)))).join();
+		} else {
+			for (int index = 0; index < sections.length; index++) {
+				sections[index] = decodeRecord(recordEntries.get(index));
+			}
+		}
+
+		StoredData storedData = new StoredData(dataVersion);
+		for (int index = 0; index < sections.length; index++) {
+			int id = recordEntries.get(index).getKey();
+			if (id <= 0) {
+				// Note: The data remains inside the save file.
+				Log.warning("Failed to load shopkeeper '" + id + "': Invalid id: " + id);
+				continue;
+			}
+			// Null if the data is invalid:
+			storedData.shopkeepers.put(id, sections[index]);
+		}
+		return storedData;
+	}
+
+	// Can be run in parallel.
+	private static ConfigurationSection decodeRecord(Entry<Integer, byte[]> record) {
+		try {
+			return BinaryDataFormat.decode(record.getValue());
+		} catch (Exception e) {
+			Log.warning("Failed to load shopkeeper '" + record.getKey() + "': Invalid data!", e);
+			return null;
+		}
+	}
+
+	// SAVING
+
+	@Override
+	void save(SaveData saveData) throws StorageException {
+		boolean changed = !saveData.dataVersion.equals(storedDataVersion) || !saveFile.exists();
+		for (Integer deletedId : saveData.deletedShopkeepers) {
+			if (records.remove(deletedId) != null) {
+				changed = true;
+			}
+		}
+		for (Entry<Integer, DataSnapshot> entry : saveData.shopkeepers.entrySet()) {
+			byte[] record = BinaryDataFormat.encode(entry.getValue().getValues());
+			// Replaces the previous record, but keeps its position inside the save file:
+			byte[] previousRecord = records.put(entry.getKey(), record);
+			if (!Arrays.equals(record, previousRecord)) {
+				changed = true;
+			}
+		}
+		if (!changed) return; // The save file is still up-to-date
+
+		// Forget the stored data version in case writing fails:
+		storedDataVersion = null;
+		try {
+			writeFile(saveFile, outputStream -> {
+				DataOutputStream out = new DataOutputStream(outputStream);
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				BinaryDataFormat.writeString(out, saveData.dataVersion);
+				out.writeInt(records.size());
+				for (Entry<Integer, byte[]> record : records.entrySet()) {
+					out.writeInt(record.getKey());
+					out.writeInt(record.getValue().length);
+					out.write(record.getValue());
+				}
+				out.flush();
+			});
+		} catch (IOException e) {
+			throw new StorageException("Couldn't write save file! (" + saveFile.getName() + ") : " + e.getMessage(), e);
+		}
+		storedDataVersion = saveData.dataVersion;
+	}
+
+	@Override
+	String backup() throws IOException {
+		File backupFile = getBackupFile(saveFile);
+		if (!saveFile.exists() && tempSaveFile.exists()) {
+			// We loaded the data from the temporary save file:
+			Files.move(tempSaveFile.toPath(), backupFile.toPath());
+		} else {
+			Files.move(saveFile.toPath(), backupFile.toPath());
+			Files.deleteIfExists(tempSaveFile.toPath());
+		}
+		storedDataVersion = null;
+		records.clear();
+		return backupFile.getName();
+	}
+}
@@ -0,0 +1,98 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+/**
+ * An immutable copy of the data of a shopkeeper.
+ * <p>
+ * Snapshots get created on the server's main thread. Any nested {@link ConfigurationSection configuration sections}
+ * are converted to maps, and any {@link ConfigurationSerializable} objects (such as item stacks) are replaced with
+ * their serialized form, in the same way in which they would be represented by Bukkit's YAML serialization. The
+ * resulting data only consists of unmodifiable maps and lists, Strings, and primitive wrappers, which can then be
+ * safely encoded on another thread.
+ */
+final class DataSnapshot {
+
+	/**
+	 * Creates a snapshot of the given shopkeeper data.
+	 * <p>
+	 * This has to be invoked on the server's main thread.
+	 * 
+	 * @param section
+	 *            the shopkeeper data
+	 * @return the snapshot
+	 */
+	static DataSnapshot of(ConfigurationSection section) {
+		return new DataSnapshot(snapshotMap(section.getValues(false)));
+	}
+
+	/**
+	 * Creates an immutable copy of the given value.
+	 * <p>
+	 * This has to be invoked on the server's main thread.
+	 * 
+	 * @param value
+	 *            the value
+	 * @return the immutable copy of the value
+	 */
+	static Object snapshotValue(Object value) {
+		if (value instanceof ConfigurationSection) {
+			return snapshotMap(((ConfigurationSection) value).getValues(false));
+		} else if (value instanceof ConfigurationSerializable) {
+			ConfigurationSerializable serializable = (ConfigurationSerializable) value;
+			Map<String, Object> serialized = new LinkedHashMap<>();
+			serialized.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, ConfigurationSerialization.getAlias(serializable.getClass()));
+			serialized.putAll(serializable.serialize());
+			return snapshotMap(serialized);
+		} else if (value instanceof Map) {
+			Map<String, Object> map = new LinkedHashMap<>();
+			for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				map.put(String.valueOf(entry.getKey()), entry.getValue());
+			}
+			return snapshotMap(map);
+		} else if (value instanceof Collection) {
+			Collection<?> collection = (Collection<?>) value;
+			List<Object> list = new ArrayList<>(collection.size());
+			for (Object element : collection) {
+				list.add(snapshotValue(element));
+			}
+			return Collections.unmodifiableList(list);
+		} else {
+			// Strings, primitive wrappers and other immutable values:
+			return value;
+		}
+	}
+
+	private static Map<String, Object> snapshotMap(Map<String, Object> values) {
+		Map<String, Object> snapshot = new LinkedHashMap<>(values.size());
+		for (Entry<String, Object> entry : values.entrySet()) {
+			snapshot.put(entry.getKey(), snapshotValue(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	private final Map<String, Object> values;
+
+	private DataSnapshot(Map<String, Object> values) {
+		this.values = values;
+	}
+
+	/**
+	 * Gets the unmodifiable top-level values of this snapshot.
+	 * 
+	 * @return the values
+	 */
+	Map<String, Object> getValues() {
+		return values;
+	}
+}
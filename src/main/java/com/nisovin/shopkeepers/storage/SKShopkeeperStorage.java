@@ -1,20 +1,26 @@
 package com.nisovin.shopkeepers.storage;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.entity.Player;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
@@ -26,15 +32,14 @@ import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopType;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.SKShopkeeperRegistry;
-import com.nisovin.shopkeepers.util.ConfigUtils;
-import com.nisovin.shopkeepers.util.ConversionUtils;
 import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.SchedulerUtils;
-import com.nisovin.shopkeepers.util.StringUtils;
 
 /**
  * Storage responsible for the shopkeepers data.
  * <p>
+ * The actual persistence of the data is delegated to the {@link StorageBackend} of the configured {@link StorageType}.
+ * <p>
  * Implementation notes:
  * <ul>
  * <li>There can at most be one thread doing file IO at the same time.
@@ -54,28 +59,29 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	// - Minecraft's data version, which updates with every server update (even minor updates). Since these updates
 	// sometimes indicate item migrations done by Minecraft, they are also relevant for our stored item data.
 
-	// Our goal is to always keep the item data stored within the save.yml file up-to-date with the current server
+	// Our goal is to always keep the item data stored within the save data up-to-date with the current server
 	// version to avoid ending up with very old items inside our save data that never got updated. For that reason we
 	// always trigger a full save of all shopkeepers data whenever one of the above mentioned data versions has changed.
 	// The stored and compared data version is a simple concatenation of these two data versions.
 
 	private static final int SHOPKEEPERS_DATA_VERSION = 2;
-	private static final String MISSING_DATA_VERSION = "-";
-	private static final String DATA_VERSION_KEY = "data-version";
-
-	private static final String HEADER = "This file is not intended to be manually modified! If you want to manually edit this"
-			+ " file anyways, ensure that the server is not running currently and that you have prepared a backup of this file.";
+	static final String MISSING_DATA_VERSION = "-";
 
 	private final SKShopkeepersPlugin plugin;
 	private final int minecraftDataVersion;
 	private final DataVersion currentDataVersion;
 
-	/*
-	 * Holds the data that gets used by the current/next (possibly async) save task.
-	 * This also contains any data of shopkeepers that could not be loaded correctly.
-	 * This cannot be modified while an async save is in progress.
-	 */
-	private final FileConfiguration saveData = new YamlConfiguration();
+	// The backend of the currently used storage type. Gets setup during loading.
+	// This cannot be accessed while an async save is in progress.
+	private StorageBackend backend = null;
+	// The journal of changes that have not yet been saved to the backend. Gets setup during loading.
+	// Apart from during loading, this is only accessed by the writer thread, or during sync saves.
+	private SaveJournal journal = null;
+	// Ids of shopkeepers and deleted shopkeepers whose data has been written to the journal, but not yet to the backend:
+	private final Set<Integer> journaledShopkeeperIds = new HashSet<>();
+	private final Set<Integer> journaledDeletedShopkeeperIds = new LinkedHashSet<>();
+	// Ids of stored shopkeepers that could not be loaded. Their data is kept by the backend.
+	private final Set<Integer> unloadedShopkeeperIds = new HashSet<>();
 	private int maxStoredShopkeeperId = 0;
 	private int nextShopkeeperId = 1;
 
@@ -96,18 +102,23 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	private final SaveResult saveResult = new SaveResult();
 	// Previously dirty shopkeepers which we currently attempt to save:
 	private final List<AbstractShopkeeper> savingShopkeepers = new ArrayList<>();
-	// The task which performs async file io during a save:
-	private int saveIOTask = -1;
+	// The dedicated thread which encodes and writes the data of async saves:
+	private ExecutorService saveWriter = null;
+	// The task which performs async data encoding and file io during a save:
+	private Future<?> saveIOTask = null;
+	// Gets claimed either by the writer thread when it starts the async task, or by the main thread when it cancels the
+	// not yet started task:
+	private AtomicBoolean saveIOTaskClaimed = null;
 	// The saving callback of the current save: may need to be run manually during plugin disable or save abortion
 	private Runnable syncSavingCallback = null;
 	// Whether there was an abort request for the last async save:
 	private boolean abortSave = false;
 	// Determines if there was another saveReal-request while the saveIOTask was still in progress
 	private boolean saveAgain = false;
-	// Shopkeepers that got deleted during the last async save:
-	private final List<AbstractShopkeeper> shopkeepersToDelete = new ArrayList<>();
-	// Number of shopkeepers whose data got removed since the last save:
-	private int deletedShopkeepersCount = 0;
+	// Ids of shopkeepers whose data got removed since the last save:
+	private final Set<Integer> deletedShopkeeperIds = new LinkedHashSet<>();
+	// The changes that get persisted by the current save:
+	private SaveData currentSaveData = null;
 
 	public SKShopkeeperStorage(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -125,8 +136,16 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	}
 
 	public void onEnable() {
+		// Setup the writer thread for async saves:
+		saveWriter = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, plugin.getName() + " Save Writer");
+			thread.setDaemon(false); // Let pending writes complete during server shutdown
+			return thread;
+		});
+
 		// Start save task:
-		if (!Settings.saveInstantly) {
+		// If the save journal is used, this task periodically compacts the journal.
+		if (!Settings.saveInstantly || Settings.saveJournal) {
 			this.startSaveTask();
 		}
 	}
@@ -134,17 +153,31 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	public void onDisable() {
 		// Reset a few things:
 		this.clearSaveData();
+		if (backend != null) {
+			backend.close();
+			backend = null;
+		}
+		if (journal != null) {
+			journal.close();
+			journal = null;
+		}
 		savingShopkeepers.clear();
 		savingDisabled = false;
 		lastSavingErrorMsgTimestamp = 0L;
 		dirty = false;
 		delayedSaveTaskId = -1;
-		saveIOTask = -1;
+		saveIOTask = null;
+		saveIOTaskClaimed = null;
+		if (saveWriter != null) {
+			// Any async save has already been completed or aborted at this point:
+			saveWriter.shutdown();
+			saveWriter = null;
+		}
 		syncSavingCallback = null;
 		abortSave = false;
 		saveAgain = false;
-		shopkeepersToDelete.clear();
-		deletedShopkeepersCount = 0;
+		deletedShopkeeperIds.clear();
+		currentSaveData = null;
 	}
 
 	private void startSaveTask() {
@@ -170,7 +203,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	}
 
 	public int getUnsavedDeletedCount() {
-		return deletedShopkeepersCount;
+		return deletedShopkeeperIds.size();
 	}
 
 	public void disableSaving() {
@@ -190,6 +223,36 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		return new File(saveFile.getParentFile(), saveFile.getName() + ".temp");
 	}
 
+	private File getJournalFile() {
+		return new File(plugin.getSKDataFolder(), "save.journal");
+	}
+
+	private StorageBackend createBackend(StorageType storageType) {
+		return createBackend(storageType, plugin.getSKDataFolder());
+	}
+
+	// Also used by the storage benchmarks, which run without a plugin instance.
+	static StorageBackend createBackend(StorageType storageType, File dataFolder) {
+		switch (storageType) {
+		case YAML_SPLIT:
+			return new YamlSplitStorageBackend(new File(dataFolder, "shopkeepers"));
+		case BINARY:
+			return new BinaryStorageBackend(new File(dataFolder, "save.dat"));
+		case SQLITE:
+			return new SqliteStorageBackend(new File(dataFolder, "shopkeepers.db"));
+		case YAML:
+		default:
+			return new YamlFileStorageBackend(new File(dataFolder, "save.yml"));
+		}
+	}
+
+	private StorageType getConfiguredStorageType() {
+		StorageType storageType = StorageType.fromIdentifier(Settings.storageType);
+		// The setting is validated when the config gets loaded:
+		assert storageType != null;
+		return (storageType != null) ? storageType : StorageType.YAML;
+	}
+
 	// SHOPKEEPER IDs
 
 	// Does not increment the shopkeeper id counter on its own (we don't want to increment it in case the shopkeeper
@@ -228,7 +291,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 
 	// Also takes ids of stored shopkeepers in account that couldn't be loaded for some reason.
 	private boolean isUnusedId(int id) {
-		return (!saveData.contains(String.valueOf(id)) && this.getShopkeeperRegistry().getShopkeeperById(id) == null);
+		return (!unloadedShopkeeperIds.contains(id) && this.getShopkeeperRegistry().getShopkeeperById(id) == null);
 	}
 
 	public void onShopkeeperIdUsed(int id) {
@@ -238,31 +301,20 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	// SHOPKEEPER DATA REMOVAL
 
 	/**
-	 * Clears and sets up the empty save data file configuration.
+	 * Clears the information about the stored shopkeepers data.
 	 */
 	private void clearSaveData() {
-		ConfigUtils.clearConfigSection(saveData);
+		unloadedShopkeeperIds.clear();
+		journaledShopkeeperIds.clear();
+		journaledDeletedShopkeeperIds.clear();
 		maxStoredShopkeeperId = 0;
 		nextShopkeeperId = 1;
-
-		// Setup data version as first / top entry:
-		// Explicitly setting the 'missing data version' value here ensures that the data version will be the first
-		// entry in the save file, even if it is missing in the actual file currently (without having to move all loaded
-		// shopkeeper entries around later).
-		// It gets replaced with the actual data version during loading.
-		saveData.set(DATA_VERSION_KEY, MISSING_DATA_VERSION);
 	}
 
 	public void clearShopkeeperData(AbstractShopkeeper shopkeeper) {
 		assert shopkeeper != null;
-		if (this.isCurrentlySavingAsync()) {
-			// Remember to remove the data after the current async save has finished:
-			shopkeepersToDelete.add(shopkeeper);
-		} else {
-			String key = String.valueOf(shopkeeper.getId());
-			saveData.set(key, null);
-			deletedShopkeepersCount++;
-		}
+		// The data gets removed with the next save. Any currently in-progress async save is not affected.
+		deletedShopkeeperIds.add(shopkeeper.getId());
 	}
 
 	// LOADING
@@ -281,6 +333,12 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	// Returns false if the migration failed.
 	// Returns true if the migration succeeded or there is no old save file to migrate.
 	private boolean migrateOldSaveFile() {
+		File saveFile = this.getSaveFile();
+		if (saveFile.exists() || this.getTempSaveFile().exists()) {
+			// There is already a save file at the new location.
+			return true;
+		}
+
 		File oldSaveFile = this.getOldSaveFile();
 		if (!oldSaveFile.exists()) {
 			File oldTempSaveFile = this.getOldTempSaveFile();
@@ -298,7 +356,6 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		}
 
 		// Move old save file to new location:
-		File saveFile = this.getSaveFile();
 		Log.info("Migrating old save file (" + oldSaveFile.getName() + ") to new location ("
 				+ saveFile.getParentFile().getName() + "/" + saveFile.getName() + ")!");
 		try {
@@ -311,6 +368,49 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		return true;
 	}
 
+	// If the given backend has no data yet, this checks the backends of all other storage types for existing data and
+	// converts the first data that is found.
+	// Returns false if the conversion failed.
+	// Returns true if the conversion succeeded or there is no data to convert.
+	private boolean convertStorageIfRequired(StorageType storageType, StorageBackend backend, ForkJoinPool loadingPool) {
+		if (backend.hasData()) return true; // Nothing to convert
+
+		for (StorageType otherStorageType : StorageType.values()) {
+			if (otherStorageType == storageType) continue;
+			StorageBackend otherBackend = this.createBackend(otherStorageType);
+			try {
+				if (!otherBackend.hasData()) continue;
+
+				Log.info("Converting the shopkeepers data from storage type '" + otherStorageType.getIdentifier()
+						+ "' (" + otherBackend.getName() + ") to storage type '" + storageType.getIdentifier()
+						+ "' (" + backend.getName() + ") ..");
+				StoredData storedData;
+				try {
+					storedData = otherBackend.load(loadingPool);
+					backend.save(SaveData.of(storedData));
+				} catch (StorageException e) {
+					Log.severe("Failed to convert the shopkeepers data: " + e.getMessage(), e.getCause());
+					return false;
+				}
+
+				// Move the previous data out of the way, so that it does not get converted again:
+				String backupName;
+				try {
+					backupName = otherBackend.backup();
+				} catch (IOException e) {
+					Log.severe("Failed to move the converted shopkeepers data out of the way! (" + otherBackend.getName() + ")", e);
+					return false;
+				}
+				Log.info("Converted the data of " + storedData.shopkeepers.size() + " shopkeepers. The previous data has been moved to '"
+						+ backupName + "'.");
+				return true;
+			} finally {
+				otherBackend.close();
+			}
+		}
+		return true;
+	}
+
 	// Returns true on success, and false if there was some severe issue during loading.
 	public boolean reload() {
 		if (currentlyLoading) {
@@ -319,135 +419,248 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		currentlyLoading = true;
 		boolean result;
 
+		// Wait for any pending journal writes:
+		this.waitForPendingWrites();
+
 		// No concurrent access of the save file:
 		synchronized (SAVING_IO_LOCK) {
+			ForkJoinPool loadingPool = null;
+			if (Settings.parallelLoading) {
+				loadingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+			}
 			try {
-				result = this.doReload();
+				result = this.doReload(loadingPool);
 			} catch (Exception e) {
 				Log.severe("Something completely unexpected went wrong during the loading of the saved shopkeepers data!", e);
 				result = false; // Error
+			} finally {
+				if (loadingPool != null) {
+					loadingPool.shutdown();
+				}
 			}
 		}
 		currentlyLoading = false;
+
+		// Compact any replayed journal entries:
+		if (result && journal.getSize() > 0L) {
+			this.saveNow();
+		}
 		return result;
 	}
 
 	// Returns true on success, and false if there was some severe issue during loading.
-	private boolean doReload() {
+	// If a loading pool is provided, the shopkeepers data is read, parsed and prepared in parallel. The actual loading
+	// of the shopkeepers always happens on the main thread.
+	private boolean doReload(ForkJoinPool loadingPool) {
+		final long startTime = System.currentTimeMillis();
+
+
 		// Unload all currently loaded shopkeepers:
 		SKShopkeeperRegistry shopkeeperRegistry = this.getShopkeeperRegistry();
 		shopkeeperRegistry.unloadAllShopkeepers();
 		this.clearSaveData();
+		deletedShopkeeperIds.clear();
 
-		File saveFile = this.getSaveFile();
-		if (!saveFile.exists()) {
-			File tempSaveFile = this.getTempSaveFile();
-			if (tempSaveFile.exists()) {
-				// Load from temporary save file instead:
-				Log.warning("Found no save file, but an existing temporary save file! (" + tempSaveFile.getName() + ")");
-				Log.warning("This might indicate an issue during a previous saving attempt!");
-				Log.warning("We try to load the Shopkeepers data from this temporary save file instead!");
-
-				saveFile = tempSaveFile;
-			} else if (!this.migrateOldSaveFile()) {
-				// Migration of old save file failed:
-				return false; // Disable without save
-			} else if (!saveFile.exists()) {
-				// No save file exists yet (even after checking for it again, after the migration) -> No shopkeeper data
-				// available.
-				// We silently setup the data version and abort:
-				saveData.set(DATA_VERSION_KEY, currentDataVersion.getCombinded());
-				return true;
-			}
+		// Setup the storage backend:
+		if (backend != null) {
+			backend.close();
+		}
+		StorageType storageType = this.getConfiguredStorageType();
+		backend = this.createBackend(storageType);
+
+		if (!this.migrateOldSaveFile()) {
+			// Migration of old save file failed:
+			return false; // Disable without save
+		}
+		if (!this.convertStorageIfRequired(storageType, backend, loadingPool)) {
+			// Conversion of the data of another storage type failed:
+			return false; // Disable without save
 		}
 
+		final long dataLoadStartTime = System.currentTimeMillis();
+		StoredData storedData;
 		try {
-			if (!StringUtils.isEmpty(Settings.fileEncoding)) {
-				// Load with specified charset:
-				try (	FileInputStream stream = new FileInputStream(saveFile);
-						InputStreamReader reader = new InputStreamReader(stream, Settings.fileEncoding)) {
-					saveData.load(reader);
-				}
-			} else {
-				// Load with default charset handling:
-				saveData.load(saveFile);
-			}
-		} catch (Exception e) {
-			Log.severe("Failed to load save file!", e);
+			storedData = backend.load(loadingPool);
+		} catch (StorageException e) {
+			Log.severe(e.getMessage(), e.getCause());
+			return false; // Disable without save
+		}
+		final long dataLoadDuration = System.currentTimeMillis() - dataLoadStartTime;
+
+		// Replay the changes that remained inside the save journal:
+		if (journal != null) {
+			journal.close();
+		}
+		journal = new SaveJournal(this.getJournalFile());
+		Set<Integer> replayedShopkeeperIds = new HashSet<>();
+		final long journalReplayStartTime = System.currentTimeMillis();
+		if (!this.replayJournal(storedData, replayedShopkeeperIds)) {
 			return false; // Disable without save
 		}
+		final long journalReplayDuration = System.currentTimeMillis() - journalReplayStartTime;
 
-		Set<String> keys = saveData.getKeys(false);
-		// Contains at least the (missing) data-version entry:
-		assert keys.contains(DATA_VERSION_KEY);
-		int shopkeepersCount = (keys.size() - 1);
+		int shopkeepersCount = storedData.shopkeepers.size();
 		if (shopkeepersCount == 0) {
-			// No shopkeeper data exists yet. Silently setup/update data version and abort:
-			saveData.set(DATA_VERSION_KEY, currentDataVersion.getCombinded());
+			// No shopkeeper data exists yet. The data version gets setup / updated with the next save.
 			return true;
 		}
 
 		Log.info("Loading data of " + shopkeepersCount + " shopkeepers..");
-		String dataVersion = saveData.getString(DATA_VERSION_KEY, MISSING_DATA_VERSION);
+		String dataVersion = storedData.dataVersion;
 		boolean dataVersionChanged = (!currentDataVersion.getCombinded().equals(dataVersion));
 		if (dataVersionChanged) {
 			Log.info("The data version has changed from '" + dataVersion + "' to '" + currentDataVersion.getCombinded()
 					+ "': We update the saved data for all loaded shopkeepers.");
-			// Update the data version:
-			saveData.set(DATA_VERSION_KEY, currentDataVersion.getCombinded());
 		}
 
-		for (String key : keys) {
-			if (key.equals(DATA_VERSION_KEY)) continue;
+		// Validate and migrate the shopkeeper data (possibly in parallel):
+		final long preparationStartTime = System.currentTimeMillis();
+		List<PreparedShopkeeperData> preparedData = this.prepareShopkeeperData(storedData, loadingPool);
+		final long preparationDuration = System.currentTimeMillis() - preparationStartTime;
 
-			Integer idInt = ConversionUtils.parseInt(key);
-			if (idInt == null || idInt <= 0) {
-				Log.warning("Failed to load shopkeeper '" + key + "': Invalid id: " + key);
-				continue;
-			}
-			int id = idInt.intValue();
+		// Load the shopkeepers on the main thread:
+		final long shopkeepersLoadStartTime = System.currentTimeMillis();
+		int loadedShopkeepersCount = 0;
+		for (PreparedShopkeeperData shopkeeperData : preparedData) {
+			int id = shopkeeperData.id;
 			if (id > maxStoredShopkeeperId) {
 				maxStoredShopkeeperId = id;
 			}
+			// Ids of shopkeepers that cannot be loaded stay reserved:
+			unloadedShopkeeperIds.add(id);
 
-			ConfigurationSection shopkeeperSection = saveData.getConfigurationSection(key);
-			if (shopkeeperSection == null) {
-				Log.warning("Failed to load shopkeeper '" + key + "': Invalid config section!");
-				continue; // Skip this shopkeeper
-			}
-
-			// Perform common migrations:
-			MigrationResult migrationResult = this.migrateShopkeeperData(id, shopkeeperSection, dataVersion);
-			if (migrationResult == MigrationResult.FAILED) {
-				// Migration failed, skip this shopkeeper
-				continue;
-			}
-
-			String shopTypeString = shopkeeperSection.getString("type");
-			AbstractShopType<?> shopType = plugin.getShopTypeRegistry().get(shopTypeString);
+			AbstractShopType<?> shopType = shopkeeperData.shopType;
 			if (shopType == null) {
-				Log.warning("Failed to load shopkeeper '" + key + "': Unknown shop type: " + shopTypeString);
 				continue; // Skip this shopkeeper
 			}
 
 			// Load shopkeeper:
 			AbstractShopkeeper shopkeeper;
 			try {
-				shopkeeper = shopkeeperRegistry.loadShopkeeper(shopType, id, shopkeeperSection);
+				shopkeeper = shopkeeperRegistry.loadShopkeeper(shopType, id, shopkeeperData.shopkeeperSection);
 				assert shopkeeper != null && shopkeeper.isValid();
 			} catch (ShopkeeperCreateException e) {
-				Log.warning("Failed to load shopkeeper '" + key + "': " + e.getMessage());
+				Log.warning("Failed to load shopkeeper '" + id + "': " + e.getMessage());
 				continue; // Skip this shopkeeper
 			} catch (Exception e) {
-				Log.warning("Failed to load shopkeeper '" + key + "'", e);
+				Log.warning("Failed to load shopkeeper '" + id + "'", e);
 				continue; // Skip this shopkeeper
 			}
+			unloadedShopkeeperIds.remove(id);
+			loadedShopkeepersCount++;
 
-			// If the shopkeeper got migrated or the data version has changed, mark as dirty:
-			if (migrationResult == MigrationResult.MIGRATED || dataVersionChanged) {
+			// If the shopkeeper got migrated, the data version has changed, or its data got restored from the journal,
+			// mark as dirty:
+			if (shopkeeperData.migrationResult == MigrationResult.MIGRATED || dataVersionChanged
+					|| replayedShopkeeperIds.contains(id)) {
 				shopkeeper.markDirty();
 			}
 		}
+		final long shopkeepersLoadDuration = System.currentTimeMillis() - shopkeepersLoadStartTime;
+
+		final long totalDuration = System.currentTimeMillis() - startTime;
+		Log.info("Loaded " + loadedShopkeepersCount + " shopkeepers in " + totalDuration + "ms (Data loading: "
+				+ dataLoadDuration + "ms, Journal replay: " + journalReplayDuration + "ms, "
+				+ (loadingPool != null ? "Parallel " : "") + "Data preparation: " + preparationDuration + "ms, "
+				+ "Shopkeeper loading: " + shopkeepersLoadDuration + "ms)");
+		return true;
+	}
+
+	private static class PreparedShopkeeperData {
+
+		private final int id;
+		private final ConfigurationSection shopkeeperSection;
+		private final MigrationResult migrationResult;
+		// Null if the shopkeeper cannot be loaded:
+		private final AbstractShopType<?> shopType;
+
+		PreparedShopkeeperData(int id, ConfigurationSection shopkeeperSection, MigrationResult migrationResult, AbstractShopType<?> shopType) {
+			this.id = id;
+			this.shopkeeperSection = shopkeeperSection;
+			this.migrationResult = migrationResult;
+			this.shopType = shopType;
+		}
+	}
+
+	// Returns the prepared shopkeeper data in the order of the stored data.
+	private List<PreparedShopkeeperData> prepareShopkeeperData(StoredData storedData, ForkJoinPool loadingPool) {
+		String dataVersion = storedData.dataVersion;
+		List<Entry<Integer, ConfigurationSection>> entries = new ArrayList<>(storedData.shopkeepers.entrySet());
+		if (loadingPool != null) {
+			return loadingPool.submit(() -> entries.parallelStream()
+					.map(entry -> this.prepareShopkeeperData(entry.getKey(), entry.getValue(), dataVersion))
+					.collect(Collectors.toList())).join();
+		} else {
+			List<PreparedShopkeeperData> preparedData = new ArrayList<>(entries.size());
+			for (Entry<Integer, ConfigurationSection> entry : entries) {
+				preparedData.add(this.prepareShopkeeperData(entry.getKey(), entry.getValue(), dataVersion));
+			}
+			return preparedData;
+		}
+	}
+
+	// Can be run in parallel.
+	private PreparedShopkeeperData prepareShopkeeperData(int id, ConfigurationSection shopkeeperSection, String dataVersion) {
+		if (shopkeeperSection == null) {
+			Log.warning("Failed to load shopkeeper '" + id + "': Invalid config section!");
+			return new PreparedShopkeeperData(id, null, MigrationResult.FAILED, null);
+		}
+
+		// Perform common migrations:
+		MigrationResult migrationResult;
+		try {
+			migrationResult = this.migrateShopkeeperData(id, shopkeeperSection, dataVersion);
+		} catch (Exception e) {
+			Log.warning("Failed to migrate shopkeeper '" + id + "'", e);
+			migrationResult = MigrationResult.FAILED;
+		}
+		if (migrationResult == MigrationResult.FAILED) {
+			// Migration failed, skip this shopkeeper
+			return new PreparedShopkeeperData(id, shopkeeperSection, migrationResult, null);
+		}
+
+		String shopTypeString = shopkeeperSection.getString("type");
+		AbstractShopType<?> shopType = plugin.getShopTypeRegistry().get(shopTypeString);
+		if (shopType == null) {
+			Log.warning("Failed to load shopkeeper '" + id + "': Unknown shop type: " + shopTypeString);
+		}
+		return new PreparedShopkeeperData(id, shopkeeperSection, migrationResult, shopType);
+	}
+
+	// Applies the entries of the save journal to the given stored data.
+	// Returns false if the journal could not be read.
+	private boolean replayJournal(StoredData storedData, Set<Integer> replayedShopkeeperIds) {
+		List<SaveJournal.JournalEntry> journalEntries;
+		try {
+			journalEntries = journal.read();
+		} catch (IOException e) {
+			Log.severe("Failed to read the save journal! (" + journal.getFile().getName() + ")", e);
+			return false;
+		}
+		if (journalEntries.isEmpty()) return true;
+
+		Log.info("Restoring " + journalEntries.size() + " unsaved changes from the save journal..");
+		for (SaveJournal.JournalEntry journalEntry : journalEntries) {
+			int id = journalEntry.shopkeeperId;
+			if (journalEntry.operation == SaveJournal.OP_DELETE) {
+				storedData.shopkeepers.remove(id);
+				replayedShopkeeperIds.remove(id);
+				// Remove the data from the backend with the next save:
+				deletedShopkeeperIds.add(id);
+			} else {
+				ConfigurationSection shopkeeperSection;
+				try {
+					shopkeeperSection = StorageBackend.loadYaml(journalEntry.data);
+				} catch (Exception e) {
+					Log.warning("Failed to restore the data of shopkeeper '" + id + "' from the save journal!", e);
+					continue; // Keep the previous data
+				}
+				storedData.shopkeepers.put(id, shopkeeperSection);
+				replayedShopkeeperIds.add(id);
+			}
+		}
+		// Gets compacted by the next save:
+		this.markDirty();
 		return true;
 	}
 
@@ -484,21 +697,30 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	@Override
 	public void save() {
 		if (Settings.saveInstantly) {
-			this.saveNow();
+			this.saveChanges();
 		} else {
 			this.markDirty();
 		}
 	}
 
+	// Writes the current changes either to the save journal (if enabled), or triggers a save.
+	private void saveChanges() {
+		if (Settings.saveJournal && journal != null) {
+			this.saveToJournal();
+		} else {
+			this.saveNow();
+		}
+	}
+
 	@Override
 	public void saveDelayed() {
 		this.markDirty();
 		if (Settings.saveInstantly && delayedSaveTaskId == -1) {
 			delayedSaveTaskId = Bukkit.getScheduler().runTaskLater(plugin, () -> {
+				delayedSaveTaskId = -1;
 				if (this.isDirty()) {
-					this.saveNow();
+					this.saveChanges();
 				}
-				delayedSaveTaskId = -1;
 			}, 600).getTaskId(); // 30 seconds delay
 		}
 	}
@@ -524,7 +746,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	}
 
 	private boolean isCurrentlySavingAsync() {
-		return (saveIOTask != -1);
+		return (saveIOTask != null);
 	}
 
 	// Gets run from the main thread.
@@ -535,10 +757,14 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	private void waitOrAbortAsyncSave() {
 		assert Bukkit.isPrimaryThread();
 
-		// If the async task has not yet been passed to the executor (its still pending), we cannot wait here for it to
-		// finish (because the scheduler operates on the main thread as well), instead we cancel it:
+		// If the async task has not yet been started by the writer thread (its still pending), we cancel it:
+		boolean asyncTaskStarted = false;
 		if (this.isCurrentlySavingAsync()) {
-			Bukkit.getScheduler().cancelTask(saveIOTask);
+			if (saveIOTaskClaimed.compareAndSet(false, true)) {
+				saveIOTask.cancel(false);
+			} else {
+				asyncTaskStarted = true;
+			}
 		}
 
 		// If the saving is currently in progress, acquiring the lock will wait for it to finish:
@@ -549,7 +775,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			// syncSavingCallback is still remaining to get run, this flag signalizes that we don't want any new saving
 			// requests (needs to be synchronized here to get correctly propagated):
 			abortSave = true;
-			while (saveResult.state == SaveResult.State.NOT_YET_STARTED && Bukkit.getScheduler().isCurrentlyRunning(saveIOTask)) {
+			while (saveResult.state == SaveResult.State.NOT_YET_STARTED && asyncTaskStarted) {
 				try {
 					// Release the lock, for the async task to be able to operate.
 					// The async task has to notify us once it has finished.
@@ -601,50 +827,54 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 				this.waitOrAbortAsyncSave();
 			}
 		}
+		if (!async) {
+			// The sync save clears the journal. Any pending journal writes need to complete before that:
+			this.waitForPendingWrites();
+		}
 
 		// Keep track of statistics and information about this saving attempt:
 		saveResult.reset();
 		saveResult.async = async;
 		saveResult.startTime = System.currentTimeMillis();
 
-		// Setup the file header:
-		// This replaces any previously existing and loaded header and thereby ensures that it is always up-to-date
-		// after we have saved the file.
-		saveData.options().header(HEADER);
+		SaveData saveData = new SaveData(currentDataVersion.getCombinded());
 
-		// Store data of dirty shopkeepers into memory configuration:
+		// Capture the data of dirty shopkeepers as immutable snapshots:
+		// Any encoding of this data is done later by the storage backend, possibly on the writer thread.
+		// This also includes the shopkeepers whose data has only been written to the journal so far.
 		saveResult.dirtyShopkeepersCount = 0;
 		for (AbstractShopkeeper shopkeeper : this.getShopkeeperRegistry().getAllShopkeepers()) {
-			if (!shopkeeper.isDirty()) {
+			if (!shopkeeper.isDirty() && !journaledShopkeeperIds.contains(shopkeeper.getId())) {
 				continue; // Assume storage data is still up-to-date
 			}
 			saveResult.dirtyShopkeepersCount++;
 
-			String sectionKey = String.valueOf(shopkeeper.getId());
-			Object previousData = saveData.get(sectionKey);
-			ConfigurationSection newSection = saveData.createSection(sectionKey); // Replaces the previous section
-			try {
-				shopkeeper.save(newSection);
-			} catch (Exception e) {
-				// Error while saving shopkeeper data:
-				// Restore previous shopkeeper data and then skip this shopkeeper.
-				saveData.set(sectionKey, previousData);
-				Log.warning("Couldn't save shopkeeper '" + shopkeeper.getId() + "'!", e);
+			DataSnapshot shopkeeperData = this.snapshotShopkeeper(shopkeeper);
+			if (shopkeeperData == null) {
 				// The shopkeeper stays marked as dirty, so we attempt to save it again the next time we save all shops.
 				// However, we won't automatically initiate a new save for this shopkeeper as the risk is high that
 				// saving might fail again anyways.
 				continue;
 			}
 
+			saveData.shopkeepers.put(shopkeeper.getId(), shopkeeperData);
 			savingShopkeepers.add(shopkeeper);
 			shopkeeper.onSave();
 		}
-
+		// All journaled changes are included in this save, and the journal gets cleared once it has succeeded. If the
+		// save fails, the involved shopkeepers are marked as dirty again.
+		journaledShopkeeperIds.clear();
+
+		// Remove the data of deleted shopkeepers:
+		saveData.deletedShopkeepers.addAll(journaledDeletedShopkeeperIds);
+		journaledDeletedShopkeeperIds.clear();
+		saveData.deletedShopkeepers.addAll(deletedShopkeeperIds);
+		deletedShopkeeperIds.clear();
 		// Store number of deleted shopkeepers (for debugging purposes):
-		saveResult.deletedShopkeepersCount = deletedShopkeepersCount;
-		deletedShopkeepersCount = 0;
+		saveResult.deletedShopkeepersCount = saveData.deletedShopkeepers.size();
+		currentSaveData = saveData;
 
-		// Time to store shopkeeper data in memory configuration:
+		// Time to capture the shopkeeper data on the main thread:
 		saveResult.packingDuration = System.currentTimeMillis() - saveResult.startTime;
 
 		// Note: The dirty flag might get reverted again after saving, if saving failed.
@@ -669,7 +899,8 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 				// Reset save task id:
 				// It is important that this gets reset inside this sync task. Otherwise another save request might get
 				// prepared before this save has been fully handled.
-				saveIOTask = -1;
+				saveIOTask = null;
+				saveIOTaskClaimed = null;
 
 				// Note: The save result state might still be NOT_YET_STARTED, if the saving task got cancelled before
 				// it could run.
@@ -686,16 +917,17 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 						}
 					}
 
-					// Restore number of deleted shopkeepers:
-					deletedShopkeepersCount = saveResult.deletedShopkeepersCount;
+					// Restore the deleted shopkeepers, so that their data gets removed with the next save:
+					if (currentSaveData != null) {
+						// Shopkeepers deleted in the meantime get removed after those of the failed save:
+						Set<Integer> newlyDeletedShopkeeperIds = new LinkedHashSet<>(deletedShopkeeperIds);
+						deletedShopkeeperIds.clear();
+						deletedShopkeeperIds.addAll(currentSaveData.deletedShopkeepers);
+						deletedShopkeeperIds.addAll(newlyDeletedShopkeeperIds);
+					}
 				}
 				savingShopkeepers.clear();
-
-				// Remove data of shopkeepers that have been deleted during the save:
-				for (AbstractShopkeeper deletedShopkeeper : shopkeepersToDelete) {
-					clearShopkeeperData(deletedShopkeeper);
-				}
-				shopkeepersToDelete.clear();
+				currentSaveData = null;
 
 				// If not aborted / cancelled:
 				if (saveResult.state == SaveResult.State.SUCCESS || saveResult.state == SaveResult.State.FAILURE) {
@@ -740,11 +972,16 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 
 		if (!async) {
 			// Sync file IO:
-			this.saveDataToFile(saveData, savingCallback);
+			this.saveDataToBackend(saveData, savingCallback);
 		} else {
-			// Async file IO:
+			// Async data encoding and file IO on the writer thread:
 			final long asyncTaskSubmittedTime = System.currentTimeMillis();
-			saveIOTask = Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+			final AtomicBoolean taskClaimed = new AtomicBoolean(false);
+			saveIOTaskClaimed = taskClaimed;
+			saveIOTask = saveWriter.submit(() -> {
+				// Abort if the task got cancelled in the meantime:
+				if (!taskClaimed.compareAndSet(false, true)) return;
+
 				// Note: If the task gets cancelled, this never gets run (everything that always needs to happen, has to
 				// be placed or copied into the callback as well).
 				saveResult.asyncTaskDelay = System.currentTimeMillis() - asyncTaskSubmittedTime;
@@ -758,7 +995,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 						// If aborted, the syncSavingCallback needs to be run manually.
 					} else {
 						// Actual saving IO:
-						this.saveDataToFile(saveData, savingCallback);
+						this.saveDataToBackend(saveData, savingCallback);
 						assert saveResult.state == SaveResult.State.SUCCESS || saveResult.state == SaveResult.State.FAILURE;
 					}
 					// Async saving is over:
@@ -770,195 +1007,161 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 					// Notify all possibly waiting threads:
 					SAVING_IO_LOCK.notifyAll();
 				}
-			}).getTaskId();
+			});
 		}
 		currentlyProcessingSave = false;
 	}
 
+	// Returns null if the data of the shopkeeper could not be captured.
+	private DataSnapshot snapshotShopkeeper(AbstractShopkeeper shopkeeper) {
+		try {
+			ConfigurationSection shopkeeperSection = new MemoryConfiguration();
+			shopkeeper.save(shopkeeperSection);
+			return DataSnapshot.of(shopkeeperSection);
+		} catch (Exception e) {
+			// Error while saving shopkeeper data:
+			// Skip this shopkeeper. The backend keeps its previously stored data.
+			Log.warning("Couldn't save shopkeeper '" + shopkeeper.getId() + "'!", e);
+			return null;
+		}
+	}
+
+	// Gets run from the main thread.
+	// Waits for any pending tasks of the writer thread to complete.
+	private void waitForPendingWrites() {
+		if (saveWriter == null) return;
+		try {
+			saveWriter.submit(() -> {
+			}).get();
+		} catch (InterruptedException e) {
+			// We are not interruptible, but we restore the interruption status:
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// Not expected, since the task is empty.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// Appends the changes of all dirty and deleted shopkeepers to the save journal. The journal is compacted into the
+	// storage backend by subsequent saves.
+	private void saveToJournal() {
+		if (savingDisabled) {
+			Log.warning("Skipping save, because saving got disabled.");
+			return;
+		}
+		if (currentlyProcessingSave) {
+			// The changes get included in the save that is currently being processed:
+			return;
+		}
+		assert journal != null;
+
+		SaveData journalData = new SaveData(currentDataVersion.getCombinded());
+		for (AbstractShopkeeper shopkeeper : this.getShopkeeperRegistry().getAllShopkeepers()) {
+			if (!shopkeeper.isDirty()) continue;
+
+			DataSnapshot shopkeeperData = this.snapshotShopkeeper(shopkeeper);
+			if (shopkeeperData == null) continue; // Stays dirty
+
+			journalData.shopkeepers.put(shopkeeper.getId(), shopkeeperData);
+			journaledShopkeeperIds.add(shopkeeper.getId());
+			shopkeeper.onSave();
+		}
+		journalData.deletedShopkeepers.addAll(deletedShopkeeperIds);
+		journaledDeletedShopkeeperIds.addAll(deletedShopkeeperIds);
+		deletedShopkeeperIds.clear();
+
+		// The journaled changes still need to be compacted into the storage backend:
+		dirty = true;
+		if (journalData.isEmpty()) return;
+
+		// Data encoding and file IO on the writer thread:
+		// This is ordered with the tasks of async saves: Journal entries that are written before a save are cleared by
+		// that save, whereas any entries that are written after the save are kept.
+		final SaveJournal journal = this.journal;
+		final long compactionSize = Settings.saveJournalCompactionSize * 1024L;
+		saveWriter.execute(() -> {
+			boolean compact;
+			try {
+				journal.append(journalData);
+				compact = (journal.getSize() >= compactionSize);
+			} catch (IOException e) {
+				// The journaled shopkeepers are included in the next save:
+				Log.severe("Failed to write to the save journal! (" + journal.getFile().getName() + ") Triggering a save instead.", e);
+				compact = true;
+			}
+			if (compact) {
+				SchedulerUtils.runOnMainThreadOrOmit(plugin, () -> {
+					if (this.journal == journal) {
+						this.saveNow();
+					}
+				});
+			}
+		});
+	}
+
 	// Max total delay: 500ms
 	private static final int SAVING_MAX_ATTEMPTS = 20;
 	private static final long SAVING_ATTEMPTS_DELAY_MILLIS = 25;
 	private static final Object SAVING_IO_LOCK = new Object();
 
 	// Can be run async and sync.
-	// TODO saveToString on main thread and only do the actual file writing async?
-	// Because Bukkit's serialization API is not strictly thread-safe..
-	private void saveDataToFile(FileConfiguration config, Runnable callback) {
-		assert config != null;
-		// Actual IO:
+	// The backend encodes the snapshot data and writes it. This does not involve Bukkit's (not thread-safe) object
+	// serialization anymore, since the data has already been captured in its serialized form on the main thread.
+	private void saveDataToBackend(SaveData saveData, Runnable callback) {
+		assert saveData != null;
+		// Actual data encoding and IO:
 		final long ioStartTime = System.currentTimeMillis();
-
-		File saveFile = this.getSaveFile();
-		File tempSaveFile = this.getTempSaveFile();
-
-		// Saving procedure:
-		// Inside a retry-loop:
-		// * If there is a temporary save file:
-		// * * If there is no save file: Rename temporary save file to save file.
-		// * * Else: Remove temporary save file.
-		// * Create parent directories.
-		// * Create new temporary save file.
-		// * Save data to temporary save file.
-		// * Remove old save file.
-		// * Rename temporary save file to save file.
+		final StorageBackend backend = this.backend;
+		assert backend != null;
 
 		int savingAttempt = 0;
-		boolean problem = false;
-		String error = null;
-		Exception exception;
 		boolean printStacktrace = true;
 
 		while (++savingAttempt <= SAVING_MAX_ATTEMPTS) {
-			// Reset problem variables:
-			problem = false;
-			error = null;
-			exception = null;
-
+			String error = null;
+			Throwable exception = null;
 			try {
-				// Handle already existing temporary save file:
-				if (!problem) {
-					if (tempSaveFile.exists()) {
-						// Check write permission:
-						if (!tempSaveFile.canWrite()) {
-							error = "Cannot write to temporary save file! (" + tempSaveFile.getName() + ")";
-							problem = true;
-						}
-
-						if (!problem) {
-							if (!saveFile.exists()) {
-								// If only the temporary file exists, but the actual save file does not, this might
-								// indicate, that a previous saving attempt saved to the temporary file and removed the
-								// actual save file, but wasn't able to then rename the temporary file to the actual
-								// save file.
-								// -> The temporary file might contain the only backup of saved data, don't remove it!
-								// -> Instead we try to rename it to make it the new 'actual save file' and then
-								// continue the saving procedure
-
-								Log.warning("Found an already existing temporary save file, but no old save file! (" + tempSaveFile.getName() + ")");
-								Log.warning("This might indicate an issue during a previous saving attempt!");
-								Log.warning("Trying to rename the temporary save file to use it as 'existing old save data', and then continue the saving!");
-
-								// Rename temporary save file:
-								if (!tempSaveFile.renameTo(saveFile)) {
-									error = "Couldn't rename temporary save file! (" + tempSaveFile.getName() + " to " + saveFile.getName() + ")";
-									problem = true;
-								}
-							} else {
-								// Remove old temporary save file:
-								if (!tempSaveFile.delete()) {
-									error = "Couldn't delete existing temporary save file! (" + tempSaveFile.getName() + ")";
-									problem = true;
-								}
-							}
-						}
-					}
-				}
-
-				// Make sure that the parent directories exist:
-				if (!problem) {
-					File parentDir = tempSaveFile.getParentFile();
-					if (parentDir != null && !parentDir.exists()) {
-						if (!parentDir.mkdirs()) {
-							error = "Couldn't create parent directories for temporary save file! (" + parentDir.getAbsolutePath() + ")";
-							problem = true;
-						}
-					}
-				}
-
-				// Create new temporary save file:
-				if (!problem) {
-					try {
-						tempSaveFile.createNewFile();
-					} catch (Exception e) {
-						error = "Couldn't create temporary save file! (" + tempSaveFile.getName() + ") : " + e.getMessage();
-						exception = e;
-						problem = true;
-					}
-				}
-
-				// Write shopkeeper data to temporary save file:
-				if (!problem) {
-					PrintWriter writer = null;
-					try {
-						String fileEncoding = Settings.async().fileEncoding;
-						if (fileEncoding != null && !fileEncoding.isEmpty()) {
-							writer = new PrintWriter(tempSaveFile, fileEncoding);
-							writer.write(config.saveToString());
-						} else {
-							config.save(tempSaveFile);
-						}
-					} catch (Exception e) {
-						error = "Couldn't save data to temporary save file! (" + tempSaveFile.getName() + ") : " + e.getMessage();
-						exception = e;
-						problem = true;
-					} finally {
-						if (writer != null) {
-							writer.close();
-						}
-					}
-				}
-
-				// Delete old save file:
-				if (!problem) {
-					if (saveFile.exists()) {
-						// Check write permission:
-						if (!saveFile.canWrite()) {
-							error = "Cannot write to save file! (" + saveFile.getName() + ")";
-							problem = true;
-						} else {
-							// Delete old save file:
-							if (!saveFile.delete()) {
-								error = "Couldn't delete existing old save file! (" + saveFile.getName() + ")";
-								problem = true;
-							}
-						}
-					}
-				}
-
-				// Rename temporary save file:
-				if (!problem) {
-					if (!tempSaveFile.renameTo(saveFile)) {
-						error = "Couldn't rename temporary save file! (" + tempSaveFile.getName() + " to " + saveFile.getName() + ")";
-						problem = true;
-					}
-				}
+				backend.save(saveData);
+			} catch (StorageException e) {
+				error = e.getMessage();
+				exception = e.getCause();
 			} catch (Exception e) {
 				// Catching any exceptions not explicitly caught above already:
 				error = e.getMessage();
 				exception = e;
-				problem = true;
+			}
+
+			if (error == null && exception == null) {
+				// Saving was successful:
+				saveResult.state = SaveResult.State.SUCCESS;
+				this.clearJournal();
+				break;
 			}
 
 			// Handle problem situation:
-			if (problem) {
-				// Don't spam with errors and stacktraces, only print them once for the first saving attempt:
-				if (exception != null && printStacktrace) {
-					printStacktrace = false;
-					exception.printStackTrace();
-				}
-				Log.severe("Saving attempt " + savingAttempt + " failed: " + (error != null ? error : "Unknown error"));
+			// Don't spam with errors and stacktraces, only print them once for the first saving attempt:
+			if (exception != null && printStacktrace) {
+				printStacktrace = false;
+				exception.printStackTrace();
+			}
+			Log.severe("Saving attempt " + savingAttempt + " failed: " + (error != null ? error : "Unknown error"));
 
-				if (savingAttempt < SAVING_MAX_ATTEMPTS) {
-					// Try again after a small delay:
-					try {
-						Thread.sleep(SAVING_ATTEMPTS_DELAY_MILLIS);
-					} catch (InterruptedException e) {
-					}
-				} else {
-					// Saving failed even after a bunch of retries:
-					saveResult.state = SaveResult.State.FAILURE;
-					Log.severe("Saving failed! Save data might be lost! :(");
-					break;
+			if (savingAttempt < SAVING_MAX_ATTEMPTS) {
+				// Try again after a small delay:
+				try {
+					Thread.sleep(SAVING_ATTEMPTS_DELAY_MILLIS);
+				} catch (InterruptedException e) {
 				}
 			} else {
-				// Saving was successful:
-				saveResult.state = SaveResult.State.SUCCESS;
+				// Saving failed even after a bunch of retries:
+				saveResult.state = SaveResult.State.FAILURE;
+				Log.severe("Saving failed! Save data might be lost! :(");
 				break;
 			}
 		}
 
 		final long now = System.currentTimeMillis();
-		saveResult.ioDuration = now - ioStartTime; // Time for pure io
+		saveResult.ioDuration = now - ioStartTime; // Time for data encoding and io
 		saveResult.totalDuration = now - saveResult.startTime; // Time from saveReal() call to finished save
 
 		// File IO is over.
@@ -969,11 +1172,23 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		}
 	}
 
+	// Can be run async and sync.
+	// Clears the journal after a successful save, since all journaled changes have been persisted by the backend.
+	private void clearJournal() {
+		final SaveJournal journal = this.journal;
+		if (journal == null || (journal.getSize() == 0L && !journal.getFile().exists())) return;
+		try {
+			journal.clear();
+		} catch (IOException e) {
+			Log.severe("Failed to clear the save journal! (" + journal.getFile().getName() + ")", e);
+		}
+	}
+
 	private static class SaveResult {
 
 		// Note: Synchronization for those values is not needed, because they get synchronized externally before getting
-		// used, either by the bukkit scheduler (when starting the async task and when going back to the main thread by
-		// starting a sync task), or via synchronization of the SAVING_IO_LOCK.
+		// used, either by the writer executor (when starting the async task), the bukkit scheduler (when going back to
+		// the main thread by starting a sync task), or via synchronization of the SAVING_IO_LOCK.
 
 		public enum State {
 			NOT_YET_STARTED,
@@ -1001,9 +1216,9 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		public void printDebugInfo() {
 			Log.debug(() -> "Saved shopkeeper data (" + totalDuration + "ms (Data packing ("
 					+ dirtyShopkeepersCount + " dirty, " + deletedShopkeepersCount + " deleted): " + packingDuration + "ms, "
-					+ (async ? "AsyncTask delay: " + asyncTaskDelay + "ms, " : "")
+					+ (async ? "Writer delay: " + asyncTaskDelay + "ms, " : "")
 					+ ((ioLockAcquireDuration > 1) ? "IO lock delay: " + ioLockAcquireDuration + "ms, " : "")
-					+ (async ? "Async " : "Sync ") + "IO: " + ioDuration + "ms))"
+					+ (async ? "Async " : "Sync ") + "encoding and IO: " + ioDuration + "ms))"
 					+ ((state == State.FAILURE) ? ": Saving failed!" : ""));
 		}
 	}
@@ -0,0 +1,55 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * The changes that a save passes to a {@link StorageBackend}.
+ * <p>
+ * Storage backends are expected to first remove the data of all deleted shopkeepers, and then store the data of all
+ * contained shopkeepers. This order matters if the id of a deleted shopkeeper got reused in the meantime.
+ * <p>
+ * The shopkeeper data is captured as immutable {@link DataSnapshot}s on the server's main thread, so that it can be
+ * safely encoded and persisted on another thread.
+ */
+class SaveData {
+
+	final String dataVersion;
+	// Shopkeeper id -> shopkeeper data
+	final Map<Integer, DataSnapshot> shopkeepers = new LinkedHashMap<>();
+	// Ids of shopkeepers whose data shall be removed:
+	final Set<Integer> deletedShopkeepers = new LinkedHashSet<>();
+
+	SaveData(String dataVersion) {
+		assert dataVersion != null;
+		this.dataVersion = dataVersion;
+	}
+
+	/**
+	 * Creates a {@link SaveData} that contains all of the given {@link StoredData}.
+	 * <p>
+	 * This is used when converting the data of one storage backend to another one, and has to be invoked on the server's
+	 * main thread.
+	 * 
+	 * @param storedData
+	 *            the stored data
+	 * @return the save data
+	 */
+	static SaveData of(StoredData storedData) {
+		SaveData saveData = new SaveData(storedData.dataVersion);
+		for (Entry<Integer, ConfigurationSection> entry : storedData.shopkeepers.entrySet()) {
+			if (entry.getValue() == null) continue; // Skip invalid data
+			saveData.shopkeepers.put(entry.getKey(), DataSnapshot.of(entry.getValue()));
+		}
+		return saveData;
+	}
+
+	boolean isEmpty() {
+		return shopkeepers.isEmpty() && deletedShopkeepers.isEmpty();
+	}
+}
@@ -0,0 +1,226 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+import com.nisovin.shopkeepers.util.Log;
+
+/**
+ * An append-only journal of the changes to the shopkeepers data since the last save.
+ * <p>
+ * Instead of saving all dirty shopkeepers to the storage backend, the changed shopkeepers can be appended to this
+ * journal, which is considerably cheaper than a full save. A subsequent save to the storage backend then compacts the
+ * journal, i.e. the journal gets cleared once the storage backend has persisted all changes. Any changes that remain
+ * inside the journal (eg. after a server crash) are replayed during the next loading.
+ * <p>
+ * Each journal entry consists of the operation, the shopkeeper id, the length of the data, the data itself (the
+ * shopkeeper data in YAML format, for store operations), and a CRC32 checksum. Entries that are incomplete or corrupted
+ * (eg. due to a crash while writing) mark the end of the journal.
+ * <p>
+ * Appending and clearing happens on the storage's writer thread (or on the main thread during sync saves), whereas
+ * reading only happens on the main thread while the shopkeepers data gets loaded.
+ */
+class SaveJournal {
+
+	static final byte OP_STORE = 1;
+	static final byte OP_DELETE = 2;
+
+	static class JournalEntry {
+
+		final byte operation;
+		final int shopkeeperId;
+		// The shopkeeper data in YAML format. Empty for delete operations.
+		final String data;
+
+		JournalEntry(byte operation, int shopkeeperId, String data) {
+			this.operation = operation;
+			this.shopkeeperId = shopkeeperId;
+			this.data = data;
+		}
+	}
+
+	private final File file;
+	// Null if not opened yet:
+	private FileChannel channel = null;
+	// The size of the journal's valid contents:
+	private long size = 0L;
+
+	SaveJournal(File file) {
+		this.file = file;
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * Gets the size of the journal's valid contents in bytes.
+	 * 
+	 * @return the size of the journal
+	 */
+	synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Reads all valid entries from the journal.
+	 * <p>
+	 * Any trailing incomplete or corrupted entries are ignored, and get overwritten by subsequent appends.
+	 * 
+	 * @return the journal entries, in the order in which they were written
+	 * @throws IOException
+	 *             if the journal cannot be read
+	 */
+	synchronized List<JournalEntry> read() throws IOException {
+		this.close();
+		size = 0L;
+		List<JournalEntry> entries = new ArrayList<>();
+		if (!file.exists()) return entries;
+
+		long validSize = 0L;
+		try (InputStream fileStream = new BufferedInputStream(Files.newInputStream(file.toPath()));
+				DataInputStream in = new DataInputStream(fileStream)) {
+			while (true) {
+				byte operation;
+				try {
+					operation = in.readByte();
+				} catch (EOFException e) {
+					break; // End of the journal
+				}
+				int shopkeeperId;
+				byte[] data;
+				int checksum;
+				try {
+					shopkeeperId = in.readInt();
+					int length = in.readInt();
+					if (length < 0 || validSize + length > file.length()) {
+						Log.warning("Ignoring corrupted entry at the end of the save journal!");
+						break;
+					}
+					data = new byte[length];
+					in.readFully(data);
+					checksum = in.readInt();
+				} catch (EOFException e) {
+					Log.warning("Ignoring incomplete entry at the end of the save journal!");
+					break;
+				}
+
+				if (checksum != checksum(operation, shopkeeperId, data)
+						|| (operation != OP_STORE && operation != OP_DELETE)) {
+					Log.warning("Ignoring corrupted entry at the end of the save journal!");
+					break;
+				}
+				entries.add(new JournalEntry(operation, shopkeeperId, new String(data, StandardCharsets.UTF_8)));
+				validSize += entryLength(data.length);
+			}
+		}
+		size = validSize;
+		return entries;
+	}
+
+	/**
+	 * Appends the given changes to the journal.
+	 * <p>
+	 * This encodes the shopkeeper data and can therefore also be invoked on the storage's writer thread. The written
+	 * changes are forced to the storage device before this method returns.
+	 * 
+	 * @param saveData
+	 *            the changes
+	 * @throws IOException
+	 *             if the changes cannot be written
+	 */
+	synchronized void append(SaveData saveData) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		for (Integer deletedId : saveData.deletedShopkeepers) {
+			writeEntry(out, OP_DELETE, deletedId, new byte[0]);
+		}
+		for (Entry<Integer, DataSnapshot> entry : saveData.shopkeepers.entrySet()) {
+			String yaml = StorageBackend.toYamlString(entry.getValue().getValues());
+			writeEntry(out, OP_STORE, entry.getKey(), yaml.getBytes(StandardCharsets.UTF_8));
+		}
+		out.flush();
+
+		if (channel == null) {
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		}
+		try {
+			// Overwrites any trailing invalid data:
+			channel.position(size);
+			ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			channel.truncate(channel.position());
+			// Ensures that the changes are persisted before they are considered saved:
+			channel.force(false);
+			size = channel.position();
+		} catch (IOException e) {
+			// Try to remove any partially written data:
+			try {
+				channel.truncate(size);
+			} catch (IOException e2) {
+				e.addSuppressed(e2);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Removes all entries from the journal, after their changes have been persisted by the storage backend.
+	 * 
+	 * @throws IOException
+	 *             if the journal cannot be removed
+	 */
+	synchronized void clear() throws IOException {
+		this.close();
+		size = 0L;
+		Files.deleteIfExists(file.toPath());
+	}
+
+	synchronized void close() {
+		if (channel == null) return;
+		try {
+			channel.close();
+		} catch (IOException e) {
+			Log.warning("Failed to close the save journal!", e);
+		}
+		channel = null;
+	}
+
+	private static void writeEntry(DataOutputStream out, byte operation, int shopkeeperId, byte[] data) throws IOException {
+		out.writeByte(operation);
+		out.writeInt(shopkeeperId);
+		out.writeInt(data.length);
+		out.write(data);
+		out.writeInt(checksum(operation, shopkeeperId, data));
+	}
+
+	private static long entryLength(int dataLength) {
+		// Operation, id, length, data, checksum:
+		return 1 + 4 + 4 + dataLength + 4;
+	}
+
+	private static int checksum(byte operation, int shopkeeperId, byte[] data) {
+		CRC32 crc = new CRC32();
+		crc.update(operation);
+		crc.update(ByteBuffer.allocate(4).putInt(shopkeeperId).array());
+		crc.update(data);
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,333 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.util.Log;
+import com.nisovin.shopkeepers.util.StringUtils;
+
+/**
+ * Stores the shopkeepers inside an embedded SQLite database.
+ * <p>
+ * Every shopkeeper is stored inside its own row, which contains the shopkeeper data in YAML format. Additionally, the
+ * shopkeeper's unique id, type, owner, world and chunk coordinates are stored inside separate indexed columns, so that
+ * external tools can query the shopkeepers without having to parse the data of all shopkeepers.
+ * <p>
+ * Saves only upsert the rows of saved shopkeepers whose data has actually changed, and delete the rows of deleted
+ * shopkeepers. All changes of a save are batched and applied within a single transaction.
+ * <p>
+ * This uses the SQLite JDBC driver that is bundled with the server.
+ */
+class SqliteStorageBackend extends StorageBackend {
+
+	private static final String DRIVER_CLASS = "org.sqlite.JDBC";
+
+	private static final String CREATE_METADATA_TABLE = "CREATE TABLE IF NOT EXISTS metadata ("
+			+ "key TEXT PRIMARY KEY, "
+			+ "value TEXT NOT NULL)";
+	private static final String CREATE_SHOPKEEPERS_TABLE = "CREATE TABLE IF NOT EXISTS shopkeepers ("
+			+ "id INTEGER PRIMARY KEY, "
+			+ "uuid TEXT, "
+			+ "type TEXT, "
+			+ "owner_uuid TEXT, "
+			+ "world TEXT, "
+			+ "chunk_x INTEGER, "
+			+ "chunk_z INTEGER, "
+			+ "data TEXT NOT NULL)";
+	private static final String[] CREATE_INDICES = {
+			"CREATE INDEX IF NOT EXISTS shopkeepers_uuid ON shopkeepers (uuid)",
+			"CREATE INDEX IF NOT EXISTS shopkeepers_owner ON shopkeepers (owner_uuid)",
+			"CREATE INDEX IF NOT EXISTS shopkeepers_chunk ON shopkeepers (world, chunk_x, chunk_z)"
+	};
+
+	private static final String SELECT_DATA_VERSION = "SELECT value FROM metadata WHERE key = '" + DATA_VERSION_KEY + "'";
+	private static final String UPDATE_DATA_VERSION = "INSERT OR REPLACE INTO metadata (key, value) VALUES ('" + DATA_VERSION_KEY + "', ?)";
+	private static final String SELECT_SHOPKEEPERS = "SELECT id, data FROM shopkeepers ORDER BY id";
+	private static final String UPSERT_SHOPKEEPER = "INSERT OR REPLACE INTO shopkeepers "
+			+ "(id, uuid, type, owner_uuid, world, chunk_x, chunk_z, data) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String DELETE_SHOPKEEPER = "DELETE FROM shopkeepers WHERE id = ?";
+
+	private final File databaseFile;
+	// Null if not connected:
+	private Connection connection = null;
+
+	// The data version that is currently stored, or null if it is not known yet:
+	private String storedDataVersion = null;
+	// Shopkeeper id -> hash of the currently stored data
+	private final Map<Integer, byte[]> storedHashes = new HashMap<>();
+
+	SqliteStorageBackend(File databaseFile) {
+		this.databaseFile = databaseFile;
+	}
+
+	@Override
+	String getName() {
+		return databaseFile.getName();
+	}
+
+	@Override
+	boolean hasData() {
+		return databaseFile.exists();
+	}
+
+	private Connection getConnection() throws SQLException {
+		if (connection != null) return connection;
+
+		try {
+			Class.forName(DRIVER_CLASS);
+		} catch (ClassNotFoundException e) {
+			throw new SQLException("Could not find the SQLite driver!", e);
+		}
+		File parentDir = databaseFile.getParentFile();
+		if (parentDir != null && !parentDir.exists()) {
+			parentDir.mkdirs();
+		}
+
+		Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+		try {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("PRAGMA journal_mode=WAL");
+				statement.execute("PRAGMA synchronous=NORMAL");
+				statement.execute(CREATE_METADATA_TABLE);
+				statement.execute(CREATE_SHOPKEEPERS_TABLE);
+				for (String createIndex : CREATE_INDICES) {
+					statement.execute(createIndex);
+				}
+			}
+			connection.setAutoCommit(false);
+			connection.commit();
+		} catch (SQLException e) {
+			closeConnection(connection);
+			throw e;
+		}
+		this.connection = connection;
+		return connection;
+	}
+
+	@Override
+	void close() {
+		if (connection == null) return;
+		closeConnection(connection);
+		connection = null;
+	}
+
+	private static void closeConnection(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			Log.warning("Failed to close the database connection!", e);
+		}
+	}
+
+	// LOADING
+
+	@Override
+	StoredData load(ForkJoinPool loadingPool) throws StorageException {
+		storedDataVersion = null;
+		storedHashes.clear();
+		if (!this.hasData()) {
+			// No shopkeeper data available yet:
+			return new StoredData(SKShopkeeperStorage.MISSING_DATA_VERSION);
+		}
+
+		String dataVersion = SKShopkeeperStorage.MISSING_DATA_VERSION;
+		List<Integer> ids = new ArrayList<>();
+		List<String> yamlData = new ArrayList<>();
+		try {
+			Connection connection = this.getConnection();
+			try (Statement statement = connection.createStatement()) {
+				try (ResultSet result = statement.executeQuery(SELECT_DATA_VERSION)) {
+					if (result.next()) {
+						dataVersion = result.getString(1);
+					}
+				}
+				try (ResultSet result = statement.executeQuery(SELECT_SHOPKEEPERS)) {
+					while (result.next()) {
+						ids.add(result.getInt(1));
+						yamlData.add(result.getString(2));
+					}
+				}
+			}
+			connection.commit();
+		} catch (SQLException e) {
+			this.close();
+			throw new StorageException("Failed to load database! (" + databaseFile.getName() + ") : " + e.getMessage(), e);
+		}
+		storedDataVersion = dataVersion;
+
+		// Parse the shopkeeper data (possibly in parallel):
+		ConfigurationSection[] sections = new ConfigurationSection[ids.size()];
+		if (loadingPool != null) {
+			loadingPool.submit(() -> Arrays.parallelSetAll(sections, index -> parseData(ids.get(index), yamlData.get(index)))).join();
+		} else {
+			for (int index = 0; index < sections.length; index++) {
+				sections[index] = parseData(ids.get(index), yamlData.get(index));
+			}
+		}
+
+		StoredData storedData = new StoredData(dataVersion);
+		for (int index = 0; index < sections.length; index++) {
+			int id = ids.get(index);
+			if (id <= 0) {
+				// Note: The data remains inside the database.
+				Log.warning("Failed to load shopkeeper '" + id + "': Invalid id: " + id);
+				continue;
+			}
+			// Null if the data is invalid:
+			ConfigurationSection section = sections[index];
+			storedData.shopkeepers.put(id, section);
+			if (section != null) {
+				storedHashes.put(id, hash(yamlData.get(index)));
+			}
+		}
+		return storedData;
+	}
+
+	// Can be run in parallel.
+	private static ConfigurationSection parseData(int id, String yaml) {
+		try {
+			return loadYaml(yaml);
+		} catch (Exception e) {
+			Log.warning("Failed to load shopkeeper '" + id + "': Invalid data!", e);
+			return null;
+		}
+	}
+
+	// SAVING
+
+	@Override
+	void save(SaveData saveData) throws StorageException {
+		// Determine the shopkeepers whose stored data is outdated:
+		Map<Integer, String> changedData = new HashMap<>();
+		Map<Integer, byte[]> changedHashes = new HashMap<>();
+		for (Entry<Integer, DataSnapshot> entry : saveData.shopkeepers.entrySet()) {
+			Integer id = entry.getKey();
+			String yaml = toYamlString(entry.getValue().getValues());
+			byte[] dataHash = hash(yaml);
+			if (Arrays.equals(dataHash, storedHashes.get(id))) {
+				continue; // The stored data is still up-to-date
+			}
+			changedData.put(id, yaml);
+			changedHashes.put(id, dataHash);
+		}
+		boolean dataVersionChanged = !saveData.dataVersion.equals(storedDataVersion);
+		if (!dataVersionChanged && changedData.isEmpty() && saveData.deletedShopkeepers.isEmpty()) {
+			return; // Nothing to save
+		}
+
+		try {
+			Connection connection = this.getConnection();
+			try {
+				if (dataVersionChanged) {
+					try (PreparedStatement statement = connection.prepareStatement(UPDATE_DATA_VERSION)) {
+						statement.setString(1, saveData.dataVersion);
+						statement.executeUpdate();
+					}
+				}
+
+				if (!saveData.deletedShopkeepers.isEmpty()) {
+					try (PreparedStatement statement = connection.prepareStatement(DELETE_SHOPKEEPER)) {
+						for (Integer deletedId : saveData.deletedShopkeepers) {
+							statement.setInt(1, deletedId);
+							statement.addBatch();
+						}
+						statement.executeBatch();
+					}
+				}
+
+				if (!changedData.isEmpty()) {
+					try (PreparedStatement statement = connection.prepareStatement(UPSERT_SHOPKEEPER)) {
+						for (Entry<Integer, String> entry : changedData.entrySet()) {
+							Integer id = entry.getKey();
+							setShopkeeperColumns(statement, id, saveData.shopkeepers.get(id).getValues());
+							statement.setString(8, entry.getValue());
+							statement.addBatch();
+						}
+						statement.executeBatch();
+					}
+				}
+				connection.commit();
+			} catch (SQLException e) {
+				try {
+					connection.rollback();
+				} catch (SQLException e2) {
+					e.addSuppressed(e2);
+				}
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw new StorageException("Couldn't write to database! (" + databaseFile.getName() + ") : " + e.getMessage(), e);
+		}
+
+		// The changes have been committed:
+		storedDataVersion = saveData.dataVersion;
+		for (Integer deletedId : saveData.deletedShopkeepers) {
+			storedHashes.remove(deletedId);
+		}
+		storedHashes.putAll(changedHashes);
+	}
+
+	// Sets the values of the indexed columns, based on the shopkeeper data.
+	private static void setShopkeeperColumns(PreparedStatement statement, int id, Map<String, Object> values) throws SQLException {
+		statement.setInt(1, id);
+		setString(statement, 2, values.get("uniqueId"));
+		setString(statement, 3, values.get("type"));
+		setString(statement, 4, values.get("owner uuid"));
+		Object world = values.get("world");
+		Object x = values.get("x");
+		Object z = values.get("z");
+		if (world instanceof String && !StringUtils.isEmpty((String) world) && x instanceof Number && z instanceof Number) {
+			statement.setString(5, (String) world);
+			statement.setInt(6, ChunkCoords.convertBlockCoord(((Number) x).intValue()));
+			statement.setInt(7, ChunkCoords.convertBlockCoord(((Number) z).intValue()));
+		} else {
+			// Virtual shopkeeper:
+			statement.setNull(5, Types.VARCHAR);
+			statement.setNull(6, Types.INTEGER);
+			statement.setNull(7, Types.INTEGER);
+		}
+	}
+
+	private static void setString(PreparedStatement statement, int index, Object value) throws SQLException {
+		if (value == null) {
+			statement.setNull(index, Types.VARCHAR);
+		} else {
+			statement.setString(index, value.toString());
+		}
+	}
+
+	@Override
+	String backup() throws IOException {
+		this.close();
+		File backupFile = getBackupFile(databaseFile);
+		Files.move(databaseFile.toPath(), backupFile.toPath());
+		// Move any leftover files of SQLite's write-ahead log along with the database:
+		for (String suffix : new String[] { "-wal", "-shm" }) {
+			File file = new File(databaseFile.getParentFile(), databaseFile.getName() + suffix);
+			if (file.exists()) {
+				Files.move(file.toPath(), new File(backupFile.getParentFile(), backupFile.getName() + suffix).toPath());
+			}
+		}
+		storedDataVersion = null;
+		storedHashes.clear();
+		return backupFile.getName();
+	}
+}
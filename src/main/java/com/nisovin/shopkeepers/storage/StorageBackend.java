@@ -0,0 +1,200 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.nisovin.shopkeepers.Settings;
+import com.nisovin.shopkeepers.util.StringUtils;
+
+/**
+ * Persists and loads the shopkeepers data in a specific format.
+ * <p>
+ * Storage backends are only accessed while holding the storage's IO lock: Loading always happens on the server's main
+ * thread, whereas saving may also happen on the storage's writer thread. Saving only deals with immutable
+ * {@link DataSnapshot}s and must not access any Bukkit API that is not thread-safe.
+ */
+abstract class StorageBackend {
+
+	protected static final String DATA_VERSION_KEY = "data-version";
+
+	/**
+	 * Gets a short description of where this backend stores its data, for use inside log messages.
+	 * 
+	 * @return the name
+	 */
+	abstract String getName();
+
+	/**
+	 * Checks whether this backend has any stored data that can be loaded.
+	 * 
+	 * @return <code>true</code> if there is stored data
+	 */
+	abstract boolean hasData();
+
+	/**
+	 * Loads all stored shopkeepers data.
+	 * <p>
+	 * This is also expected to prepare the backend for subsequent saves.
+	 * <p>
+	 * If a loading pool is provided, the backend may use it to read and parse the data in parallel. Only the reading
+	 * and parsing may happen in parallel: The loaded data is returned on the calling thread.
+	 * 
+	 * @param loadingPool
+	 *            the pool to use for parallel loading, or <code>null</code> to load sequentially
+	 * @return the loaded data, not <code>null</code>
+	 * @throws StorageException
+	 *             if the data could not be loaded
+	 */
+	abstract StoredData load(ForkJoinPool loadingPool) throws StorageException;
+
+	/**
+	 * Persists the given changes.
+	 * <p>
+	 * This may get invoked several times for the same changes if a previous attempt failed.
+	 * 
+	 * @param saveData
+	 *            the changes to persist
+	 * @throws StorageException
+	 *             if the changes could not be persisted
+	 */
+	abstract void save(SaveData saveData) throws StorageException;
+
+	/**
+	 * Moves the stored data out of the way, after it has been converted to another storage backend.
+	 * 
+	 * @return the name of the backup, for use inside log messages
+	 * @throws IOException
+	 *             if the data could not be moved
+	 */
+	abstract String backup() throws IOException;
+
+	/**
+	 * Releases any resources held by this backend.
+	 */
+	void close() {
+	}
+
+	// UTILITIES
+
+	protected static Charset getFileCharset() {
+		// This is also safe to use during async saves:
+		String fileEncoding = Settings.async().fileEncoding;
+		if (StringUtils.isEmpty(fileEncoding)) {
+			// Bukkit's file configurations use UTF-8 by default:
+			return StandardCharsets.UTF_8;
+		} else {
+			return Charset.forName(fileEncoding);
+		}
+	}
+
+	protected static String readFile(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), getFileCharset());
+	}
+
+	protected static YamlConfiguration loadYaml(String yamlString) throws InvalidConfigurationException {
+		YamlConfiguration yaml = new YamlConfiguration();
+		yaml.loadFromString(yamlString);
+		return yaml;
+	}
+
+	// The values are expected to only consist of snapshot data, which can be safely encoded on any thread.
+	protected static String toYamlString(Map<String, Object> values) {
+		YamlConfiguration yaml = new YamlConfiguration();
+		for (Entry<String, Object> entry : values.entrySet()) {
+			yaml.set(entry.getKey(), entry.getValue());
+		}
+		return yaml.saveToString();
+	}
+
+	/**
+	 * Calculates a hash of the given encoded data.
+	 * <p>
+	 * This is used to detect data that has not changed since it has last been written, so that it does not need to be
+	 * written again.
+	 * 
+	 * @param data
+	 *            the encoded data
+	 * @return the hash
+	 */
+	protected static byte[] hash(String data) {
+		try {
+			return MessageDigest.getInstance("MD5").digest(data.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support MD5:
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes the given data to a temporary file first, and then replaces the given file with it.
+	 * 
+	 * @param file
+	 *            the target file
+	 * @param data
+	 *            the data to write
+	 * @throws IOException
+	 *             if writing or replacing the file fails
+	 */
+	protected static void writeFile(File file, String data) throws IOException {
+		writeFile(file, data.getBytes(getFileCharset()));
+	}
+
+	protected static void writeFile(File file, byte[] data) throws IOException {
+		writeFile(file, out -> out.write(data));
+	}
+
+	@FunctionalInterface
+	protected interface DataWriter {
+
+		void write(OutputStream out) throws IOException;
+	}
+
+	protected static void writeFile(File file, DataWriter dataWriter) throws IOException {
+		File parentDir = file.getParentFile();
+		if (parentDir != null && !parentDir.exists()) {
+			if (!parentDir.mkdirs()) {
+				throw new IOException("Couldn't create parent directories! (" + parentDir.getAbsolutePath() + ")");
+			}
+		}
+
+		File tempFile = getTempFile(file);
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile.toPath()))) {
+			dataWriter.write(out);
+		}
+		try {
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	protected static File getTempFile(File file) {
+		return new File(file.getParentFile(), file.getName() + ".temp");
+	}
+
+	// Returns a not yet existing file to which the given file or directory can be moved when it is no longer used.
+	protected static File getBackupFile(File file) {
+		File backupFile = new File(file.getParentFile(), file.getName() + ".converted");
+		int index = 1;
+		while (backupFile.exists()) {
+			index++;
+			backupFile = new File(file.getParentFile(), file.getName() + ".converted-" + index);
+		}
+		return backupFile;
+	}
+}
@@ -0,0 +1,17 @@
+package com.nisovin.shopkeepers.storage;
+
+/**
+ * This exception gets used if a storage backend is not able to load or persist the shopkeepers data.
+ */
+public class StorageException extends Exception {
+
+	private static final long serialVersionUID = -2710853626396207546L;
+
+	public StorageException(String message) {
+		super(message);
+	}
+
+	public StorageException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,68 @@
+package com.nisovin.shopkeepers.storage;
+
+import com.nisovin.shopkeepers.util.StringUtils;
+
+/**
+ * The available formats in which the shopkeepers data can be stored.
+ */
+public enum StorageType {
+
+	/**
+	 * All shopkeepers are stored inside a single YAML file.
+	 * <p>
+	 * Every save rewrites the complete file.
+	 */
+	YAML("yaml"),
+	/**
+	 * Every shopkeeper is stored inside its own YAML file.
+	 * <p>
+	 * Saves only write the files of dirty shopkeepers and remove the files of deleted shopkeepers.
+	 */
+	YAML_SPLIT("yaml-split"),
+	/**
+	 * All shopkeepers are stored inside a single file in a compact binary format.
+	 * <p>
+	 * Every save rewrites the complete file, but only the data of dirty shopkeepers needs to be encoded again.
+	 */
+	BINARY("binary"),
+	/**
+	 * Every shopkeeper is stored inside its own row of an embedded SQLite database.
+	 * <p>
+	 * Saves only upsert the rows of dirty shopkeepers and remove the rows of deleted shopkeepers. The shopkeepers' ids,
+	 * unique ids, owners, worlds and chunks are stored inside indexed columns.
+	 */
+	SQLITE("sqlite");
+
+	private final String identifier;
+
+	private StorageType(String identifier) {
+		this.identifier = identifier;
+	}
+
+	/**
+	 * Gets the identifier that is used to select this storage type inside the config.
+	 * 
+	 * @return the identifier
+	 */
+	public String getIdentifier() {
+		return identifier;
+	}
+
+	/**
+	 * Gets the storage type for the given identifier.
+	 * 
+	 * @param identifier
+	 *            the identifier
+	 * @return the storage type, or <code>null</code> if there is no storage type with the given identifier
+	 */
+	public static StorageType fromIdentifier(String identifier) {
+		String normalizedIdentifier = StringUtils.normalize(identifier);
+		if (normalizedIdentifier == null) return null;
+		for (StorageType storageType : values()) {
+			if (storageType.identifier.equals(normalizedIdentifier)) {
+				return storageType;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,23 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * The shopkeepers data as it has been loaded by a {@link StorageBackend}.
+ */
+class StoredData {
+
+	// The stored data version, or the 'missing data version' if there is no data version stored:
+	final String dataVersion;
+	// Shopkeeper id -> shopkeeper data
+	// The data is null if the stored shopkeeper data is invalid.
+	final Map<Integer, ConfigurationSection> shopkeepers = new LinkedHashMap<>();
+
+	StoredData(String dataVersion) {
+		assert dataVersion != null;
+		this.dataVersion = dataVersion;
+	}
+}
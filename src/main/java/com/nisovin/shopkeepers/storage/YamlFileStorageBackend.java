@@ -0,0 +1,463 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.nisovin.shopkeepers.util.ConversionUtils;
+import com.nisovin.shopkeepers.util.Log;
+
+/**
+ * Stores all shopkeepers inside a single YAML file.
+ * <p>
+ * Every save rewrites the complete file. However, the YAML encoding of each shopkeeper is cached, so that only the data
+ * of the saved shopkeepers needs to be encoded again. If the resulting file content has not changed since the file has
+ * last been written or loaded, the file is not written again.
+ * <p>
+ * When loading in parallel, the save file is split at its top-level entries into chunks which are parsed independently.
+ * If the file cannot be split safely, it is parsed as a whole.
+ * <p>
+ * The loaded text of each top-level entry is kept as its cached YAML encoding, so that the loaded data does not need to
+ * be encoded again when the file gets saved.
+ */
+class YamlFileStorageBackend extends StorageBackend {
+
+	private static final String HEADER = "This file is not intended to be manually modified! If you want to manually edit this"
+			+ " file anyways, ensure that the server is not running currently and that you have prepared a backup of this file.";
+
+	private final File saveFile;
+	private final File tempSaveFile;
+
+	/*
+	 * Holds the data of all stored shopkeepers, by their keys inside the save file.
+	 * This also contains any data of shopkeepers that could not be loaded correctly.
+	 */
+	private final Map<String, CachedEntry> entries = new LinkedHashMap<>();
+	// Hash of the current file content, or null if it is not known:
+	private byte[] storedHash = null;
+
+	YamlFileStorageBackend(File saveFile) {
+		this.saveFile = saveFile;
+		this.tempSaveFile = getTempFile(saveFile);
+	}
+
+	@Override
+	String getName() {
+		return saveFile.getName();
+	}
+
+	@Override
+	boolean hasData() {
+		return saveFile.exists() || tempSaveFile.exists();
+	}
+
+	/**
+	 * The data of a single top-level entry of the save file, and its lazily encoded YAML representation.
+	 */
+	private static class CachedEntry {
+
+		// Creates an entry for the given loaded YAML text of a top-level entry.
+		static CachedEntry ofYaml(String key, String yaml) {
+			return new CachedEntry(key, null, yaml);
+		}
+
+		private final String key;
+		private final Object data; // Snapshot data, null if the YAML representation is already known
+		private String yaml;
+
+		CachedEntry(String key, Object data) {
+			this(key, data, null);
+		}
+
+		private CachedEntry(String key, Object data, String yaml) {
+			this.key = key;
+			this.data = data;
+			this.yaml = yaml;
+		}
+
+		String getYaml() {
+			if (yaml == null) {
+				yaml = toYamlString(Collections.singletonMap(key, data));
+			}
+			return yaml;
+		}
+	}
+
+	private void clearSaveData() {
+		entries.clear();
+		storedHash = null;
+	}
+
+	// LOADING
+
+	@Override
+	StoredData load(ForkJoinPool loadingPool) throws StorageException {
+		this.clearSaveData();
+
+		File loadFile = saveFile;
+		if (!loadFile.exists()) {
+			if (tempSaveFile.exists()) {
+				// Load from temporary save file instead:
+				Log.warning("Found no save file, but an existing temporary save file! (" + tempSaveFile.getName() + ")");
+				Log.warning("This might indicate an issue during a previous saving attempt!");
+				Log.warning("We try to load the Shopkeepers data from this temporary save file instead!");
+
+				loadFile = tempSaveFile;
+			} else {
+				// No save file exists yet -> No shopkeeper data available.
+				return new StoredData(SKShopkeeperStorage.MISSING_DATA_VERSION);
+			}
+		}
+
+		String fileContent;
+		try {
+			fileContent = readFile(loadFile);
+		} catch (Exception e) {
+			throw new StorageException("Failed to load save file!", e);
+		}
+		if (loadFile == saveFile) {
+			storedHash = hash(fileContent);
+		}
+
+		List<ParsedChunk> chunks = null;
+		if (loadingPool != null) {
+			chunks = parseInParallel(fileContent, loadingPool); // Can be null
+		}
+		if (chunks == null) {
+			try {
+				chunks = Collections.singletonList(parseChunk(fileContent));
+			} catch (Exception e) {
+				throw new StorageException("Failed to load save file!", e);
+			}
+		}
+
+		String dataVersion = SKShopkeeperStorage.MISSING_DATA_VERSION;
+		for (ParsedChunk chunk : chunks) {
+			if (chunk.yaml.contains(DATA_VERSION_KEY)) {
+				dataVersion = chunk.yaml.getString(DATA_VERSION_KEY, SKShopkeeperStorage.MISSING_DATA_VERSION);
+			}
+		}
+
+		StoredData storedData = new StoredData(dataVersion);
+		for (ParsedChunk chunk : chunks) {
+			for (String key : chunk.yaml.getKeys(false)) {
+				if (key.equals(DATA_VERSION_KEY)) continue;
+				// Keep the data of all entries, so that it gets written back to the save file:
+				String entryYaml = (chunk.entriesYaml != null) ? chunk.entriesYaml.get(key) : null;
+				if (entryYaml != null) {
+					entries.put(key, CachedEntry.ofYaml(key, entryYaml));
+				} else {
+					// The loaded text of the entry is not known: Snapshot its data (on the main thread).
+					entries.put(key, new CachedEntry(key, DataSnapshot.snapshotValue(chunk.yaml.get(key))));
+				}
+
+				Integer idInt = ConversionUtils.parseInt(key);
+				if (idInt == null || idInt <= 0) {
+					// Note: The data remains inside the save file.
+					Log.warning("Failed to load shopkeeper '" + key + "': Invalid id: " + key);
+					continue;
+				}
+				// Null if the section is invalid:
+				storedData.shopkeepers.put(idInt, chunk.yaml.getConfigurationSection(key));
+			}
+		}
+		return storedData;
+	}
+
+	private static class ParsedChunk {
+
+		private final YamlConfiguration yaml;
+		// Key -> loaded text of the top-level entry, or null if the content could not be split at its top-level entries:
+		private final Map<String, String> entriesYaml;
+
+		ParsedChunk(YamlConfiguration yaml, Map<String, String> entriesYaml) {
+			this.yaml = yaml;
+			this.entriesYaml = entriesYaml;
+		}
+	}
+
+	// Can be run in parallel.
+	private static ParsedChunk parseChunk(String content) throws InvalidConfigurationException {
+		YamlConfiguration yaml = loadYaml(content);
+		return new ParsedChunk(yaml, splitEntriesYaml(content, yaml));
+	}
+
+	// Splits the content at its top-level entries and maps the text of each entry to the key of the corresponding
+	// loaded entry. Returns null if the content cannot be split safely, or if the split entries do not match the loaded
+	// entries.
+	private static Map<String, String> splitEntriesYaml(String content, YamlConfiguration yaml) {
+		List<Integer> entryStarts = findTopLevelEntries(content);
+		if (entryStarts == null) return null;
+		List<String> keys = new ArrayList<>(yaml.getKeys(false));
+		int entryCount = entryStarts.size();
+		if (keys.size() != entryCount) return null;
+
+		Map<String, String> entriesYaml = new LinkedHashMap<>();
+		for (int i = 0; i < entryCount; i++) {
+			int start = entryStarts.get(i);
+			int end = (i + 1 < entryCount) ? entryStarts.get(i + 1) : content.length();
+			String entryYaml = content.substring(start, end);
+			// Loaded keys are in the order of their entries: Verify that the entry starts with its key.
+			String key = keys.get(i);
+			if (!entryYaml.startsWith(key) && !entryYaml.startsWith("'" + key) && !entryYaml.startsWith("\"" + key)) {
+				return null;
+			}
+			if (key.equals(DATA_VERSION_KEY)) continue;
+			if (!entryYaml.endsWith("\n")) {
+				entryYaml += "\n";
+			}
+			entriesYaml.put(key, entryYaml);
+		}
+		return entriesYaml;
+	}
+
+	// PARALLEL PARSING
+
+	// Parallel parsing is only used if every chunk contains at least this many top-level entries:
+	private static final int MIN_ENTRIES_PER_CHUNK = 64;
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private static class ContentChunk {
+
+		private final String content;
+		private final int entryCount;
+
+		ContentChunk(String content, int entryCount) {
+			this.content = content;
+			this.entryCount = entryCount;
+		}
+	}
+
+	// Splits the save file at its top-level entries into chunks which are then parsed in parallel.
+	// Returns null if the content cannot be split or parsed this way, in which case it needs to be parsed as a whole.
+	private static List<ParsedChunk> parseInParallel(String content, ForkJoinPool loadingPool) {
+		List<ContentChunk> contentChunks = splitTopLevelEntries(content, loadingPool.getParallelism() * CHUNKS_PER_THREAD);
+		if (contentChunks == null) return null;
+
+		List<ParsedChunk> chunks = loadingPool.submit(() -> contentChunks.parallelStream().map(contentChunk -> {
+			try {
+				ParsedChunk chunk = parseChunk(contentChunk.content);
+				// Verify that the chunk was split at the actual top-level entries:
+				if (chunk.yaml.getKeys(false).size() != contentChunk.entryCount) return null;
+				return chunk;
+			} catch (Exception e) {
+				return null;
+			}
+		}).collect(Collectors.toList())).join();
+
+		if (chunks.contains(null)) {
+			Log.debug("Could not parse the save file in parallel. Parsing it as a whole instead.");
+			return null;
+		}
+		return chunks;
+	}
+
+	// Returns null if the content uses YAML features that prevent it from being split safely.
+	private static List<ContentChunk> splitTopLevelEntries(String content, int maxChunks) {
+		List<Integer> entryStarts = findTopLevelEntries(content);
+		if (entryStarts == null) return null;
+
+		int length = content.length();
+		int entryCount = entryStarts.size();
+		int chunkCount = Math.min(maxChunks, entryCount / MIN_ENTRIES_PER_CHUNK);
+		if (chunkCount <= 1) return null;
+
+		List<ContentChunk> chunks = new ArrayList<>(chunkCount);
+		for (int i = 0; i < chunkCount; i++) {
+			int firstEntry = (int) ((long) entryCount * i / chunkCount);
+			int endEntry = (int) ((long) entryCount * (i + 1) / chunkCount);
+			// The first chunk also contains the file header:
+			int start = (i == 0) ? 0 : entryStarts.get(firstEntry);
+			int end = (endEntry == entryCount) ? length : entryStarts.get(endEntry);
+			chunks.add(new ContentChunk(content.substring(start, end), endEntry - firstEntry));
+		}
+		return chunks;
+	}
+
+	// Gets the start indices of the lines that start a top-level entry. This only checks the first character of each
+	// line. Returns null if the content uses YAML features that prevent it from being split safely.
+	private static List<Integer> findTopLevelEntries(String content) {
+		List<Integer> entryStarts = new ArrayList<>();
+		int length = content.length();
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = content.indexOf('\n', lineStart);
+			if (lineEnd == -1) lineEnd = length;
+			if (lineEnd > lineStart) {
+				char firstChar = content.charAt(lineStart);
+				switch (firstChar) {
+				case ' ':
+				case '\t':
+				case '\r':
+				case '#':
+					// Nested content, empty line, or comment.
+					break;
+				case '-': // Top-level sequences and document markers
+				case '.':
+				case '%': // Directives
+				case '{': // Flow collections
+				case '[':
+				case '&': // Anchors, aliases and tags
+				case '*':
+				case '!':
+				case '?': // Complex keys
+				case '|': // Block scalars
+				case '>':
+					return null;
+				default:
+					entryStarts.add(lineStart);
+					break;
+				}
+			}
+			lineStart = lineEnd + 1;
+		}
+		return entryStarts;
+	}
+
+	// SAVING
+
+	@Override
+	void save(SaveData saveData) throws StorageException {
+		for (Integer deletedId : saveData.deletedShopkeepers) {
+			entries.remove(String.valueOf(deletedId));
+		}
+		for (Entry<Integer, DataSnapshot> entry : saveData.shopkeepers.entrySet()) {
+			String key = String.valueOf(entry.getKey());
+			// Replaces the previous entry, but keeps its position inside the save file:
+			entries.put(key, new CachedEntry(key, entry.getValue().getValues()));
+		}
+
+		// Setup the file header:
+		// This replaces any previously existing and loaded header and thereby ensures that it is always up-to-date
+		// after we have saved the file.
+		// The data version is the first / top entry.
+		YamlConfiguration headerData = new YamlConfiguration();
+		headerData.options().header(HEADER);
+		headerData.set(DATA_VERSION_KEY, saveData.dataVersion);
+		StringBuilder fileContent = new StringBuilder(headerData.saveToString());
+		// Every entry is encoded as a separate single-entry mapping. Their concatenation results in the mapping of all
+		// entries.
+		for (CachedEntry entry : entries.values()) {
+			fileContent.append(entry.getYaml());
+		}
+
+		String fileContentString = fileContent.toString();
+		byte[] fileContentHash = hash(fileContentString);
+		if (Arrays.equals(fileContentHash, storedHash) && saveFile.exists() && !tempSaveFile.exists()) {
+			return; // The save file is still up-to-date
+		}
+
+		// Forget the previous hash in case writing fails:
+		storedHash = null;
+		this.saveToFile(fileContentString);
+		storedHash = fileContentHash;
+	}
+
+	// Saving procedure:
+	// * If there is a temporary save file:
+	// * * If there is no save file: Rename temporary save file to save file.
+	// * * Else: Remove temporary save file.
+	// * Create parent directories.
+	// * Create new temporary save file.
+	// * Save data to temporary save file.
+	// * Remove old save file.
+	// * Rename temporary save file to save file.
+	private void saveToFile(String fileContent) throws StorageException {
+		// Handle already existing temporary save file:
+		if (tempSaveFile.exists()) {
+			// Check write permission:
+			if (!tempSaveFile.canWrite()) {
+				throw new StorageException("Cannot write to temporary save file! (" + tempSaveFile.getName() + ")");
+			}
+
+			if (!saveFile.exists()) {
+				// If only the temporary file exists, but the actual save file does not, this might indicate, that a
+				// previous saving attempt saved to the temporary file and removed the actual save file, but wasn't able
+				// to then rename the temporary file to the actual save file.
+				// -> The temporary file might contain the only backup of saved data, don't remove it!
+				// -> Instead we try to rename it to make it the new 'actual save file' and then continue the saving
+				// procedure
+
+				Log.warning("Found an already existing temporary save file, but no old save file! (" + tempSaveFile.getName() + ")");
+				Log.warning("This might indicate an issue during a previous saving attempt!");
+				Log.warning("Trying to rename the temporary save file to use it as 'existing old save data', and then continue the saving!");
+
+				// Rename temporary save file:
+				if (!tempSaveFile.renameTo(saveFile)) {
+					throw new StorageException("Couldn't rename temporary save file! (" + tempSaveFile.getName() + " to " + saveFile.getName() + ")");
+				}
+			} else {
+				// Remove old temporary save file:
+				if (!tempSaveFile.delete()) {
+					throw new StorageException("Couldn't delete existing temporary save file! (" + tempSaveFile.getName() + ")");
+				}
+			}
+		}
+
+		// Make sure that the parent directories exist:
+		File parentDir = tempSaveFile.getParentFile();
+		if (parentDir != null && !parentDir.exists()) {
+			if (!parentDir.mkdirs()) {
+				throw new StorageException("Couldn't create parent directories for temporary save file! (" + parentDir.getAbsolutePath() + ")");
+			}
+		}
+
+		// Create new temporary save file:
+		try {
+			tempSaveFile.createNewFile();
+		} catch (Exception e) {
+			throw new StorageException("Couldn't create temporary save file! (" + tempSaveFile.getName() + ") : " + e.getMessage(), e);
+		}
+
+		// Write shopkeeper data to temporary save file:
+		try {
+			Files.write(tempSaveFile.toPath(), fileContent.getBytes(getFileCharset()));
+		} catch (Exception e) {
+			throw new StorageException("Couldn't save data to temporary save file! (" + tempSaveFile.getName() + ") : " + e.getMessage(), e);
+		}
+
+		// Delete old save file:
+		if (saveFile.exists()) {
+			// Check write permission:
+			if (!saveFile.canWrite()) {
+				throw new StorageException("Cannot write to save file! (" + saveFile.getName() + ")");
+			} else {
+				// Delete old save file:
+				if (!saveFile.delete()) {
+					throw new StorageException("Couldn't delete existing old save file! (" + saveFile.getName() + ")");
+				}
+			}
+		}
+
+		// Rename temporary save file:
+		if (!tempSaveFile.renameTo(saveFile)) {
+			throw new StorageException("Couldn't rename temporary save file! (" + tempSaveFile.getName() + " to " + saveFile.getName() + ")");
+		}
+	}
+
+	@Override
+	String backup() throws IOException {
+		File backupFile = getBackupFile(saveFile);
+		if (!saveFile.exists() && tempSaveFile.exists()) {
+			// We loaded the data from the temporary save file:
+			Files.move(tempSaveFile.toPath(), backupFile.toPath());
+		} else {
+			Files.move(saveFile.toPath(), backupFile.toPath());
+			Files.deleteIfExists(tempSaveFile.toPath());
+		}
+		this.clearSaveData();
+		return backupFile.getName();
+	}
+}
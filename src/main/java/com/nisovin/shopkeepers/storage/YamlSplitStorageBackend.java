@@ -0,0 +1,240 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.nisovin.shopkeepers.util.ConversionUtils;
+import com.nisovin.shopkeepers.util.Log;
+
+/**
+ * Stores every shopkeeper inside its own YAML file.
+ * <p>
+ * The shopkeeper files are grouped into sub-directories by ranges of shopkeeper ids, so that the individual directories
+ * do not grow too large. A separate storage file keeps track of the data version.
+ * <p>
+ * Saves only write the files of the saved shopkeepers, and remove the files of deleted shopkeepers. The cost of a save
+ * therefore only depends on the number of dirty shopkeepers, but not on the total number of shopkeepers. Files whose
+ * encoded content has not changed since they have last been written or loaded are not written again.
+ * <p>
+ * When loading in parallel, the shopkeeper files are read and parsed in parallel.
+ */
+class YamlSplitStorageBackend extends StorageBackend {
+
+	private static final String STORAGE_FILE_NAME = "storage.yml";
+	private static final String FILE_EXTENSION = ".yml";
+	private static final String TEMP_FILE_EXTENSION = FILE_EXTENSION + ".temp";
+	// The number of shopkeeper ids that are grouped into the same sub-directory:
+	private static final int BUCKET_SIZE = 1000;
+
+	private final File directory;
+	private final File storageFile;
+
+	// The data version that is currently stored, or null if it is not known yet:
+	private String storedDataVersion = null;
+	// Shopkeeper id -> hash of the currently stored file content
+	private final Map<Integer, byte[]> storedHashes = new HashMap<>();
+
+	YamlSplitStorageBackend(File directory) {
+		this.directory = directory;
+		this.storageFile = new File(directory, STORAGE_FILE_NAME);
+	}
+
+	@Override
+	String getName() {
+		return directory.getName() + "/";
+	}
+
+	@Override
+	boolean hasData() {
+		return storageFile.exists() || getTempFile(storageFile).exists();
+	}
+
+	private File getShopkeeperFile(int id) {
+		File bucketDirectory = new File(directory, String.valueOf(id / BUCKET_SIZE));
+		return new File(bucketDirectory, id + FILE_EXTENSION);
+	}
+
+	// LOADING
+
+	@Override
+	StoredData load(ForkJoinPool loadingPool) throws StorageException {
+		storedDataVersion = null;
+		storedHashes.clear();
+		if (!this.hasData()) {
+			// No shopkeeper data available yet:
+			return new StoredData(SKShopkeeperStorage.MISSING_DATA_VERSION);
+		}
+
+		String dataVersion;
+		try {
+			File loadFile = storageFile;
+			if (!loadFile.exists()) {
+				loadFile = getTempFile(storageFile);
+			}
+			YamlConfiguration storageData = loadYaml(readFile(loadFile));
+			dataVersion = storageData.getString(DATA_VERSION_KEY, SKShopkeeperStorage.MISSING_DATA_VERSION);
+		} catch (Exception e) {
+			throw new StorageException("Failed to load storage file! (" + storageFile.getName() + ")", e);
+		}
+		storedDataVersion = dataVersion;
+
+		// Collect the shopkeeper files:
+		List<ShopkeeperFile> shopkeeperFiles = new ArrayList<>();
+		File[] bucketDirectories = directory.listFiles(File::isDirectory);
+		if (bucketDirectories == null) {
+			throw new StorageException("Failed to list the contents of directory '" + directory.getName() + "'!");
+		}
+		for (File bucketDirectory : bucketDirectories) {
+			File[] files = bucketDirectory.listFiles(File::isFile);
+			if (files == null) {
+				throw new StorageException("Failed to list the contents of directory '" + bucketDirectory.getName() + "'!");
+			}
+			for (File file : files) {
+				String fileName = file.getName();
+				String idString;
+				boolean tempFile = false;
+				if (fileName.endsWith(FILE_EXTENSION)) {
+					idString = fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+				} else if (fileName.endsWith(TEMP_FILE_EXTENSION)) {
+					idString = fileName.substring(0, fileName.length() - TEMP_FILE_EXTENSION.length());
+					if (new File(bucketDirectory, idString + FILE_EXTENSION).exists()) {
+						// Leftover from an interrupted save. Gets replaced during the next save of this shopkeeper.
+						continue;
+					}
+					Log.warning("Found no save file, but an existing temporary save file! (" + fileName + ")");
+					Log.warning("This might indicate an issue during a previous saving attempt!");
+					Log.warning("We try to load the shopkeeper data from this temporary save file instead!");
+					tempFile = true;
+				} else {
+					continue; // Ignore unrelated files
+				}
+
+				Integer idInt = ConversionUtils.parseInt(idString);
+				if (idInt == null || idInt <= 0) {
+					Log.warning("Failed to load shopkeeper '" + idString + "': Invalid id: " + idString);
+					continue;
+				}
+				shopkeeperFiles.add(new ShopkeeperFile(idInt, file, tempFile));
+			}
+		}
+
+		// Read and parse the shopkeeper files (possibly in parallel):
+		if (loadingPool != null) {
+			loadingPool.submit(() -> shopkeeperFiles.parallelStream().forEach(ShopkeeperFile::load)).join();
+		} else {
+			shopkeeperFiles.forEach(ShopkeeperFile::load);
+		}
+
+		// Sorted by id:
+		TreeMap<Integer, ConfigurationSection> shopkeepers = new TreeMap<>();
+		for (ShopkeeperFile shopkeeperFile : shopkeeperFiles) {
+			// The data is null if it could not be loaded:
+			shopkeepers.put(shopkeeperFile.id, shopkeeperFile.data);
+			if (shopkeeperFile.contentHash != null) {
+				storedHashes.put(shopkeeperFile.id, shopkeeperFile.contentHash);
+			}
+		}
+
+		StoredData storedData = new StoredData(dataVersion);
+		storedData.shopkeepers.putAll(shopkeepers);
+		return storedData;
+	}
+
+	private static class ShopkeeperFile {
+
+		private final int id;
+		private final File file;
+		private final boolean tempFile;
+		// Set during loading:
+		private ConfigurationSection data = null;
+		private byte[] contentHash = null;
+
+		ShopkeeperFile(int id, File file, boolean tempFile) {
+			this.id = id;
+			this.file = file;
+			this.tempFile = tempFile;
+		}
+
+		// Can be run in parallel.
+		void load() {
+			try {
+				String fileContent = readFile(file);
+				data = loadYaml(fileContent);
+				if (!tempFile) {
+					contentHash = hash(fileContent);
+				}
+			} catch (Exception e) {
+				Log.warning("Failed to load shopkeeper '" + id + "': Could not read file '" + file.getName() + "'!", e);
+				data = null; // Invalid data
+			}
+		}
+	}
+
+	// SAVING
+
+	@Override
+	void save(SaveData saveData) throws StorageException {
+		// Update the data version first, so that the shopkeeper files are never without storage file:
+		if (!saveData.dataVersion.equals(storedDataVersion)) {
+			YamlConfiguration storageData = new YamlConfiguration();
+			storageData.set(DATA_VERSION_KEY, saveData.dataVersion);
+			try {
+				writeFile(storageFile, storageData.saveToString());
+			} catch (IOException e) {
+				throw new StorageException("Couldn't write storage file! (" + storageFile.getName() + ") : " + e.getMessage(), e);
+			}
+			storedDataVersion = saveData.dataVersion;
+		}
+
+		for (Integer deletedId : saveData.deletedShopkeepers) {
+			File shopkeeperFile = this.getShopkeeperFile(deletedId);
+			try {
+				Files.deleteIfExists(shopkeeperFile.toPath());
+				Files.deleteIfExists(getTempFile(shopkeeperFile).toPath());
+			} catch (IOException e) {
+				throw new StorageException("Couldn't delete save file of shopkeeper '" + deletedId + "'! (" + shopkeeperFile.getName() + ") : " + e.getMessage(), e);
+			}
+			storedHashes.remove(deletedId);
+		}
+
+		for (Entry<Integer, DataSnapshot> entry : saveData.shopkeepers.entrySet()) {
+			Integer id = entry.getKey();
+			File shopkeeperFile = this.getShopkeeperFile(id);
+			String fileContent = toYamlString(entry.getValue().getValues());
+			byte[] contentHash = hash(fileContent);
+			if (Arrays.equals(contentHash, storedHashes.get(id)) && shopkeeperFile.exists()) {
+				continue; // The stored data is still up-to-date
+			}
+
+			// Forget the previous hash in case writing fails:
+			storedHashes.remove(id);
+			try {
+				writeFile(shopkeeperFile, fileContent);
+			} catch (IOException e) {
+				throw new StorageException("Couldn't write save file of shopkeeper '" + id + "'! (" + shopkeeperFile.getName() + ") : " + e.getMessage(), e);
+			}
+			storedHashes.put(id, contentHash);
+		}
+	}
+
+	@Override
+	String backup() throws IOException {
+		File backupDirectory = getBackupFile(directory);
+		Files.move(directory.toPath(), backupDirectory.toPath());
+		storedDataVersion = null;
+		storedHashes.clear();
+		return backupDirectory.getName();
+	}
+}
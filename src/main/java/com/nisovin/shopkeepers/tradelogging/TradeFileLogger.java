@@ -1,12 +1,26 @@
 package com.nisovin.shopkeepers.tradelogging;
 
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -15,28 +29,170 @@ import org.bukkit.event.Listener;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.compat.NMSManager;
 import com.nisovin.shopkeepers.util.ItemUtils;
 import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.TextUtils;
 
 /**
  * Logs purchases to files.
+ * <p>
+ * The trades are captured on the main thread and then added to a bounded buffer. A dedicated writer thread takes the
+ * trades from this buffer in batches, formats them and appends them to the log file of the current day. If the buffer
+ * is full (i.e. the writer thread cannot keep up), further trades are dropped and a warning is logged.
+ * <p>
+ * If a maximum file size is configured, log files that exceed this size are rotated, i.e. renamed by appending a
+ * consecutive number. Log files of previous days and rotated log files can optionally be compressed. Any uncompressed
+ * log files of previous days that remain from previous server sessions are compressed when the writer thread starts.
  */
 public class TradeFileLogger implements Listener {
 
 	private static final String FILE_NAME_PREFIX = "purchases-";
-	private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
-	private static final DateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm:ss");
+	private static final String FILE_EXTENSION = ".csv";
+	private static final String COMPRESSED_FILE_EXTENSION = ".gz";
+	// Matches the names of uncompressed daily and rotated log files. Group 1: date, group 2: rotation index (optional).
+	private static final Pattern LOG_FILE_NAME_PATTERN = Pattern.compile(
+			Pattern.quote(FILE_NAME_PREFIX) + "(\\d{4}-\\d{2}-\\d{2})(-\\d+)?" + Pattern.quote(FILE_EXTENSION));
+	private static final String HEADER = "TIME,PLAYER,SHOP ID,SHOP TYPE,SHOP POS,OWNER,ITEM TYPE,DATA,QUANTITY,CURRENCY 1,CURRENCY 1 AMOUNT,CURRENCY 2,CURRENCY 2 AMOUNT";
+	private static final String ITEM_DATA_HEADER = ",ITEM DATA,CURRENCY 1 DATA,CURRENCY 2 DATA";
 
-	private final File dataFolder;
+	private static final int BUFFER_CAPACITY = 4096;
+	private static final int MAX_BATCH_SIZE = 256;
+	private static final long POLL_TIMEOUT_MILLIS = 500L;
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000L;
 
-	public TradeFileLogger(File dataFolder) {
-		this.dataFolder = dataFolder;
+	// Captured on the main thread. The captured item stacks are copies, which are not shared with the main thread.
+	private static class TradeRecord {
+
+		final long timestamp = System.currentTimeMillis();
+		final String playerName;
+		final UUID playerUUID;
+		final UUID shopUUID;
+		final String shopType;
+		final String shopPosition;
+		final String ownerName; // Null for admin shops
+		final UUID ownerUUID; // Null for admin shops
+		final ItemStack resultItem;
+		final int resultAmount; // Of all trades represented by the event
+		final String usedItem1; // Type and durability, empty if there is no item
+		final int requiredAmount1;
+		final String usedItem2; // Type and durability, empty if there is no item
+		final int requiredAmount2; // 0 if there is no second required item
+		// Only captured if the item data is logged:
+		final ItemStack usedItemData1; // Can be null
+		final ItemStack usedItemData2; // Can be null
+
+		TradeRecord(ShopkeeperTradeEvent event, boolean captureItemData) {
+			Player player = event.getPlayer();
+			this.playerName = player.getName();
+			this.playerUUID = player.getUniqueId();
+
+			Shopkeeper shopkeeper = event.getShopkeeper();
+			this.shopUUID = shopkeeper.getUniqueId();
+			this.shopType = shopkeeper.getType().getIdentifier();
+			this.shopPosition = shopkeeper.getPositionString();
+			if (shopkeeper instanceof PlayerShopkeeper) {
+				PlayerShopkeeper playerShopkeeper = (PlayerShopkeeper) shopkeeper;
+				this.ownerName = playerShopkeeper.getOwnerName();
+				this.ownerUUID = playerShopkeeper.getOwnerUUID();
+			} else {
+				this.ownerName = null;
+				this.ownerUUID = null;
+			}
+
+			// Note: The recipe returns copies of its items.
+			// Bulk trades are logged as a single entry with accumulated amounts:
+			int tradeCount = event.getTradeCount();
+			TradingRecipe tradingRecipe = event.getTradingRecipe();
+			this.resultItem = tradingRecipe.getResultItem();
+			this.resultAmount = resultItem.getAmount() * tradeCount;
+			this.requiredAmount1 = tradingRecipe.getItem1().getAmount() * tradeCount;
+			ItemStack requiredItem2 = tradingRecipe.getItem2();
+			this.requiredAmount2 = (requiredItem2 != null) ? requiredItem2.getAmount() * tradeCount : 0;
+
+			// The inventory items might get modified after the trade:
+			Inventory inventory = event.getClickEvent().getInventory();
+			ItemStack usedItem1 = ItemUtils.getNullIfEmpty(inventory.getItem(0));
+			ItemStack usedItem2 = ItemUtils.getNullIfEmpty(inventory.getItem(1));
+			if (usedItem1 == null) {
+				usedItem1 = usedItem2;
+				usedItem2 = null;
+			}
+			this.usedItem1 = getItemString(usedItem1);
+			this.usedItem2 = getItemString(usedItem2);
+			this.usedItemData1 = (captureItemData && usedItem1 != null) ? usedItem1.clone() : null;
+			this.usedItemData2 = (captureItemData && usedItem2 != null) ? usedItem2.clone() : null;
+		}
+
+		private static String getItemString(ItemStack itemStack) {
+			if (itemStack == null) return "";
+			return itemStack.getType().name() + ":" + ItemUtils.getDurability(itemStack);
+		}
+	}
+
+	private final SKShopkeepersPlugin plugin;
+
+	private final BlockingQueue<TradeRecord> buffer = new ArrayBlockingQueue<>(BUFFER_CAPACITY);
+	private final AtomicInteger droppedRecords = new AtomicInteger();
+	// Null if not running:
+	private Thread writerThread = null;
+	private volatile boolean stopping = false;
+
+	// The settings are captured when the writer thread is started.
+	private long maxFileSize; // In bytes, 0 to disable size based rotation
+	private boolean compressRotatedFiles;
+	private boolean logItemData;
+
+	// Only accessed by the writer thread:
+	private File dataFolder;
+	private DateFormat dateFormat;
+	private DateFormat timeFormat;
+	private String currentDate = null;
+	private File currentFile = null;
+	private OutputStream currentOut = null; // Null if no file is open
+	private long currentFileSize = 0L;
+
+	public TradeFileLogger(SKShopkeepersPlugin plugin) {
+		this.plugin = plugin;
+	}
+
+	public void onEnable() {
+		if (writerThread != null) return; // Already running
+		if (!Settings.enablePurchaseLogging) return;
+		maxFileSize = Settings.purchaseLogMaxFileSize * 1024L;
+		compressRotatedFiles = Settings.purchaseLogCompressRotatedFiles;
+		logItemData = Settings.purchaseLogItemData;
+		dataFolder = plugin.getSKDataFolder();
+		dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+		timeFormat = new SimpleDateFormat("HH:mm:ss");
+
+		stopping = false;
+		writerThread = new Thread(this::runWriter, plugin.getName() + " Trade Log Writer");
+		writerThread.setDaemon(false); // Let pending trades be written during server shutdown
+		writerThread.start();
+	}
+
+	public void onDisable() {
+		if (writerThread == null) return; // Not running
+		// Lets the writer thread write all remaining trades and then stop:
+		stopping = true;
+		try {
+			writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+		} catch (InterruptedException e) {
+			// We are not interruptible, but we restore the interruption status:
+			Thread.currentThread().interrupt();
+		}
+		if (writerThread.isAlive()) {
+			Log.warning("The trade log writer did not finish in time! Some trades might not have been logged.");
+		}
+		writerThread = null;
+		buffer.clear();
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -44,40 +200,208 @@ public class TradeFileLogger implements Listener {
 		if (!Settings.enablePurchaseLogging) {
 			return;
 		}
-		Player player = event.getPlayer();
-		Shopkeeper shopkeeper = event.getShopkeeper();
-		String ownerString = (shopkeeper instanceof PlayerShopkeeper) ? ((PlayerShopkeeper) shopkeeper).getOwnerString() : "[Admin]";
-
-		TradingRecipe tradingRecipe = event.getTradingRecipe();
-		ItemStack resultItem = tradingRecipe.getResultItem();
-		ItemStack requiredItem1 = tradingRecipe.getItem1();
-		ItemStack requiredItem2 = tradingRecipe.getItem2();
-
-		Inventory inventory = event.getClickEvent().getInventory();
-		ItemStack usedItem1 = inventory.getItem(0);
-		ItemStack usedItem2 = ItemUtils.getNullIfEmpty(inventory.getItem(1));
-		if (ItemUtils.isEmpty(usedItem1)) {
-			usedItem1 = usedItem2;
-			usedItem2 = null;
-		}
-
-		// TODO fully serialize the traded items? (metadata)
-		// TODO do the file writing async
-		Date now = new Date();
-		File file = new File(dataFolder, FILE_NAME_PREFIX + DATE_FORMAT.format(now) + ".csv");
-		boolean isNew = !file.exists();
-		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true))) {
-			if (isNew) writer.append("TIME,PLAYER,SHOP ID,SHOP TYPE,SHOP POS,OWNER,ITEM TYPE,DATA,QUANTITY,CURRENCY 1,CURRENCY 1 AMOUNT,CURRENCY 2,CURRENCY 2 AMOUNT\n");
-			writer.append("\"" + TIME_FORMAT.format(now) + "\",\"" + TextUtils.getPlayerString(player) + "\",\"" + shopkeeper.getUniqueId()
-					+ "\",\"" + shopkeeper.getType().getIdentifier() + "\",\"" + shopkeeper.getPositionString() + "\",\"" + ownerString
-					+ "\",\"" + resultItem.getType().name() + "\",\"" + ItemUtils.getDurability(resultItem) + "\",\"" + resultItem.getAmount()
-					+ "\",\"" + (usedItem1 != null ? usedItem1.getType().name() + ":" + ItemUtils.getDurability(usedItem1) : "")
-					+ "\",\"" + (requiredItem1.getAmount())
-					+ "\",\"" + (usedItem2 != null ? usedItem2.getType().name() + ":" + ItemUtils.getDurability(usedItem2) : "")
-					+ "\",\"" + (requiredItem2 != null ? requiredItem2.getAmount() : "")
-					+ "\"\n");
+		if (writerThread == null) return; // Not running
+
+		if (!buffer.offer(new TradeRecord(event, logItemData))) {
+			// The buffer is full: The trade is dropped, and the writer thread informs about it later.
+			droppedRecords.incrementAndGet();
+		}
+	}
+
+	// WRITER THREAD
+
+	private void runWriter() {
+		if (compressRotatedFiles) {
+			this.compressPreviousFiles(dateFormat.format(new Date()));
+		}
+
+		List<TradeRecord> batch = new ArrayList<>(MAX_BATCH_SIZE);
+		while (true) {
+			TradeRecord record;
+			try {
+				record = buffer.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				record = null;
+			}
+			if (record == null) {
+				// Close the file while idle, so that the log file can be accessed and moved freely:
+				this.closeFile();
+				if (stopping && buffer.isEmpty()) break;
+				continue;
+			}
+
+			batch.add(record);
+			buffer.drainTo(batch, MAX_BATCH_SIZE - 1);
+			this.writeRecords(batch);
+			batch.clear();
+
+			int dropped = droppedRecords.getAndSet(0);
+			if (dropped > 0) {
+				Log.warning("The trade log buffer is full! " + dropped + " trades could not be logged.");
+			}
+		}
+		this.closeFile();
+	}
+
+	private void writeRecords(List<TradeRecord> records) {
+		for (TradeRecord record : records) {
+			Date date = new Date(record.timestamp);
+			byte[] line = this.formatRecord(record, date).getBytes(StandardCharsets.UTF_8);
+			try {
+				this.prepareFile(dateFormat.format(date));
+				currentOut.write(line);
+				currentFileSize += line.length;
+			} catch (IOException e) {
+				Log.severe("IO exception while trying to log purchase", e);
+				this.closeFile();
+			}
+		}
+		if (currentOut != null) {
+			try {
+				currentOut.flush();
+			} catch (IOException e) {
+				Log.severe("IO exception while trying to log purchase", e);
+				this.closeFile();
+			}
+		}
+	}
+
+	// Opens the log file for the given date, and rotates the current log file if required.
+	private void prepareFile(String date) throws IOException {
+		boolean dateChanged = !date.equals(currentDate);
+		if (currentOut != null && !dateChanged && (maxFileSize <= 0 || currentFileSize < maxFileSize)) {
+			return; // Continue writing to the current file
+		}
+		this.closeFile();
+
+		if (dateChanged) {
+			if (currentFile != null && compressRotatedFiles) {
+				// Compress the log file of the previous day:
+				this.compressFile(currentFile);
+			}
+			currentDate = date;
+			currentFile = new File(dataFolder, FILE_NAME_PREFIX + date + FILE_EXTENSION);
+		} else if (maxFileSize > 0 && currentFile.exists() && currentFile.length() >= maxFileSize) {
+			// Rotate the current log file:
+			File rotatedFile = this.getRotatedFile(date);
+			Files.move(currentFile.toPath(), rotatedFile.toPath());
+			if (compressRotatedFiles) {
+				this.compressFile(rotatedFile);
+			}
+		}
+
+		boolean isNew = !currentFile.exists();
+		currentOut = new BufferedOutputStream(Files.newOutputStream(currentFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+		currentFileSize = currentFile.length();
+		if (isNew) {
+			byte[] header = (HEADER + (logItemData ? ITEM_DATA_HEADER : "") + "\n").getBytes(StandardCharsets.UTF_8);
+			currentOut.write(header);
+			currentFileSize += header.length;
+		}
+	}
+
+	// Compresses the uncompressed log files of days before the given date, and any uncompressed rotated log files. These
+	// can for example remain if the server was not running across midnight.
+	private void compressPreviousFiles(String date) {
+		File[] files = dataFolder.listFiles();
+		if (files == null) return; // Data folder does not exist or cannot be read
+		for (File file : files) {
+			Matcher matcher = LOG_FILE_NAME_PATTERN.matcher(file.getName());
+			if (!matcher.matches() || !file.isFile()) continue;
+			boolean rotated = (matcher.group(2) != null);
+			// Dates in this format can be compared lexicographically:
+			if (rotated || matcher.group(1).compareTo(date) < 0) {
+				// Do not overwrite an existing compressed file:
+				if (new File(dataFolder, file.getName() + COMPRESSED_FILE_EXTENSION).exists()) continue;
+				this.compressFile(file);
+			}
+		}
+	}
+
+	private File getRotatedFile(String date) {
+		int index = 1;
+		while (true) {
+			String fileName = FILE_NAME_PREFIX + date + "-" + index + FILE_EXTENSION;
+			File rotatedFile = new File(dataFolder, fileName);
+			if (!rotatedFile.exists() && !new File(dataFolder, fileName + COMPRESSED_FILE_EXTENSION).exists()) {
+				return rotatedFile;
+			}
+			index++;
+		}
+	}
+
+	private void compressFile(File file) {
+		if (!file.exists()) return;
+		File compressedFile = new File(file.getParentFile(), file.getName() + COMPRESSED_FILE_EXTENSION);
+		try {
+			try (InputStream in = Files.newInputStream(file.toPath());
+					OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressedFile.toPath()))) {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					out.write(buffer, 0, read);
+				}
+			}
+			Files.delete(file.toPath());
+		} catch (IOException e) {
+			Log.warning("Failed to compress trade log file '" + file.getName() + "'!", e);
+			try {
+				Files.deleteIfExists(compressedFile.toPath());
+			} catch (IOException e2) {
+				// Ignored
+			}
+		}
+	}
+
+	private void closeFile() {
+		if (currentOut == null) return;
+		try {
+			currentOut.close();
 		} catch (IOException e) {
 			Log.severe("IO exception while trying to log purchase", e);
 		}
+		currentOut = null;
+	}
+
+	private String formatRecord(TradeRecord record, Date date) {
+		StringBuilder line = new StringBuilder(256);
+		appendValue(line, timeFormat.format(date));
+		appendValue(line, TextUtils.getPlayerString(record.playerName, record.playerUUID));
+		appendValue(line, record.shopUUID.toString());
+		appendValue(line, record.shopType);
+		appendValue(line, record.shopPosition);
+		appendValue(line, (record.ownerUUID != null) ? TextUtils.getPlayerString(record.ownerName, record.ownerUUID) : "[Admin]");
+		appendValue(line, record.resultItem.getType().name());
+		appendValue(line, String.valueOf(ItemUtils.getDurability(record.resultItem)));
+		appendValue(line, String.valueOf(record.resultAmount));
+		appendValue(line, record.usedItem1);
+		appendValue(line, String.valueOf(record.requiredAmount1));
+		appendValue(line, record.usedItem2);
+		appendValue(line, (record.requiredAmount2 > 0) ? String.valueOf(record.requiredAmount2) : "");
+		if (logItemData) {
+			appendValue(line, getItemData(record.resultItem));
+			appendValue(line, getItemData(record.usedItemData1));
+			appendValue(line, getItemData(record.usedItemData2));
+		}
+		line.setCharAt(line.length() - 1, '\n'); // Replace the trailing separator
+		return line.toString();
+	}
+
+	// The item stack is not shared with the main thread.
+	private static String getItemData(ItemStack itemStack) {
+		if (itemStack == null) return "";
+		String itemSNBT = NMSManager.getProvider().getItemSNBT(itemStack); // Null if not supported
+		return (itemSNBT != null) ? itemSNBT : "";
+	}
+
+	private static void appendValue(StringBuilder line, String value) {
+		line.append('"');
+		// Escape quotes:
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') line.append('"');
+			line.append(c);
+		}
+		line.append('"').append(',');
 	}
 }
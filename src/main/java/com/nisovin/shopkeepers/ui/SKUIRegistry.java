@@ -174,6 +174,18 @@ public class SKUIRegistry extends AbstractTypeRegistry<AbstractUIType> implement
 		return sessions;
 	}
 
+	/**
+	 * Checks if there are any UI sessions currently.
+	 * <p>
+	 * This is cheaper than looking up the UI session of a specific player, and allows event handlers to quickly skip
+	 * events while no player is using any UI.
+	 * 
+	 * @return <code>true</code> if there is at least one UI session
+	 */
+	public boolean hasUISessions() {
+		return !uiSessions.isEmpty();
+	}
+
 	@Override
 	public SKUISession getUISession(Player player) {
 		Validate.notNull(player, "player is null");
@@ -1,6 +1,7 @@
 package com.nisovin.shopkeepers.ui;
 
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.InventoryView;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
@@ -17,6 +18,8 @@ public final class SKUISession implements UISession {
 	private final AbstractShopkeeper shopkeeper;
 	private boolean uiActive = true;
 	private boolean valid = true;
+	// The last inventory view that has been verified to be the window of this session, or null:
+	private InventoryView window = null;
 
 	public SKUISession(UIHandler uiHandler, Player player, AbstractShopkeeper shopkeeper) {
 		Validate.notNull(uiHandler, "uiHandler is null");
@@ -35,6 +38,24 @@ public final class SKUISession implements UISession {
 		return uiHandler;
 	}
 
+	/**
+	 * Checks if the given {@link InventoryView} is the window of this session's {@link UIHandler}.
+	 * <p>
+	 * The server keeps using the same inventory view for as long as the player has the same inventory open. The last
+	 * view that has been verified by the {@link UIHandler#isWindow(InventoryView) UI handler} is therefore remembered,
+	 * so that inventory interactions within the same window only require an identity check.
+	 * 
+	 * @param view
+	 *            the inventory view
+	 * @return <code>true</code> if the view is the window of this session
+	 */
+	final boolean isWindow(InventoryView view) {
+		if (view == window) return true;
+		if (!uiHandler.isWindow(view)) return false;
+		window = view;
+		return true;
+	}
+
 	@Override
 	public final Player getPlayer() {
 		return player;
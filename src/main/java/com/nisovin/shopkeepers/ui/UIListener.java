@@ -16,6 +16,7 @@ import org.bukkit.event.inventory.InventoryInteractEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.InventoryView;
 
+import com.nisovin.shopkeepers.Settings;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.util.Log;
 import com.nisovin.shopkeepers.util.TestPlayerInteractEvent;
@@ -25,27 +26,12 @@ class UIListener implements Listener {
 	private final SKUIRegistry uiRegistry;
 
 	// The relation between early and late event handling are maintained via stacks, in case something (a plugin) is
-	// calling these inventory interaction events recursively from within an event handler. The DUMMY_UI_HANDLER on the
-	// stack indicates that the event is not being processed by any UI handler.
-	private static final AbstractUIType DUMMY_UI_TYPE = new AbstractUIType("dummy", null) {
-	};
-	private static final UIHandler DUMMY_UI_HANDLER = new UIHandler(DUMMY_UI_TYPE) {
-		@Override
-		protected boolean openWindow(Player player) {
-			return false;
-		}
-
-		@Override
-		public boolean isWindow(InventoryView view) {
-			return false;
-		}
-
-		@Override
-		public boolean canOpen(Player player, boolean silent) {
-			return false;
-		}
-	};
+	// calling these inventory interaction events recursively from within an event handler. Only events that are
+	// processed by an UI handler are pushed onto the stacks, together with the processing UI handler. Events that are
+	// not related to any UI session therefore only require an identity check when they are handled late.
+	private final Deque<InventoryClickEvent> clickEventStack = new ArrayDeque<>();
 	private final Deque<UIHandler> clickHandlerStack = new ArrayDeque<>();
+	private final Deque<InventoryDragEvent> dragEventStack = new ArrayDeque<>();
 	private final Deque<UIHandler> dragHandlerStack = new ArrayDeque<>();
 
 	UIListener(SKUIRegistry uiRegistry) {
@@ -53,6 +39,8 @@ class UIListener implements Listener {
 	}
 
 	private SKUISession getUISession(HumanEntity human) {
+		// Fast path: Most of the inventory interactions on a server are not related to any UI session.
+		if (!uiRegistry.hasUISessions()) return null;
 		if (human.getType() != EntityType.PLAYER) return null;
 		Player player = (Player) human;
 		return uiRegistry.getUISession(player);
@@ -80,7 +68,7 @@ class UIListener implements Listener {
 		}
 
 		// Check if the inventory view matches the expected view:
-		if (!uiHandler.isWindow(view)) {
+		if (!session.isWindow(view)) {
 			// The player probably has some other inventory open, but an active session.. let's close it:
 			Log.debug(() -> "Closing inventory of type " + view.getType() + " with title '" + view.getTitle()
 					+ "' for " + player.getName() + ", because a different open inventory was expected for '"
@@ -106,45 +94,41 @@ class UIListener implements Listener {
 
 	@EventHandler(priority = EventPriority.LOW, ignoreCancelled = false)
 	void onInventoryEarly(InventoryClickEvent event) {
-		// The UI handler processing this click, or DUMMY_UI_HANDLER if none is processing the event:
-		UIHandler uiHandler = DUMMY_UI_HANDLER;
-		Player player = null; // The player, or null if there is no session
 		SKUISession session = this.getUISession(event.getWhoClicked());
-		if (session != null) {
-			player = (Player) event.getWhoClicked();
-			Player finalPlayer = player;
-			assert player.equals(session.getPlayer());
-			// Validate session:
-			if (this.validateSession(event, player, session)) {
-				uiHandler = session.getUIHandler();
-
-				// Debug information:
-				InventoryView view = event.getView();
-				Log.debug(() -> "Inventory click: player=" + finalPlayer.getName()
-						+ ", view-type=" + view.getType() + ", view-title=" + view.getTitle()
-						+ ", raw-slot-id=" + event.getRawSlot() + ", slot-id=" + event.getSlot() + ", slot-type=" + event.getSlotType()
-						+ ", shift=" + event.isShiftClick() + ", hotbar key=" + event.getHotbarButton()
-						+ ", left-or-right=" + (event.isLeftClick() ? "left" : (event.isRightClick() ? "right" : "unknown"))
-						+ ", click-type=" + event.getClick() + ", action=" + event.getAction()
-						+ ", time: " + (System.nanoTime() / 1000000L));
-			}
+		if (session == null) return; // Not processed by any UI handler
+		Player player = (Player) event.getWhoClicked();
+		assert player.equals(session.getPlayer());
+		// Validate session:
+		if (!this.validateSession(event, player, session)) return;
+		UIHandler uiHandler = session.getUIHandler();
+
+		// Debug information:
+		if (Settings.debug) {
+			InventoryView view = event.getView();
+			Log.debug(() -> "Inventory click: player=" + player.getName()
+					+ ", view-type=" + view.getType() + ", view-title=" + view.getTitle()
+					+ ", raw-slot-id=" + event.getRawSlot() + ", slot-id=" + event.getSlot() + ", slot-type=" + event.getSlotType()
+					+ ", shift=" + event.isShiftClick() + ", hotbar key=" + event.getHotbarButton()
+					+ ", left-or-right=" + (event.isLeftClick() ? "left" : (event.isRightClick() ? "right" : "unknown"))
+					+ ", click-type=" + event.getClick() + ", action=" + event.getAction()
+					+ ", time: " + (System.nanoTime() / 1000000L));
 		}
 
-		// Keep track of the processing UI handler (can be dummy):
+		// Keep track of the processing UI handler:
+		clickEventStack.push(event);
 		clickHandlerStack.push(uiHandler);
 
-		if (uiHandler != DUMMY_UI_HANDLER) {
-			// Let the UIHandler handle the click:
-			uiHandler.informOnInventoryClickEarly(event, player);
-		}
+		// Let the UIHandler handle the click:
+		uiHandler.informOnInventoryClickEarly(event, player);
 	}
 
 	// Priority HIGH instead of HIGHEST, since we might cancel the event and other plugins might want to react to that
 	// (see TradingHandler).
 	@EventHandler(priority = EventPriority.HIGH, ignoreCancelled = false)
 	void onInventoryClickLate(InventoryClickEvent event) {
-		UIHandler uiHandler = clickHandlerStack.pop(); // Not expected to be empty
-		if (uiHandler == DUMMY_UI_HANDLER) return; // Ignore
+		if (clickEventStack.peek() != event) return; // Not processed by any UI handler
+		clickEventStack.pop();
+		UIHandler uiHandler = clickHandlerStack.pop();
 		// It is expected that the session and UI handler determined at the beginning of the event processing are still
 		// valid at this point.
 
@@ -155,41 +139,37 @@ class UIListener implements Listener {
 
 	@EventHandler(priority = EventPriority.LOW)
 	void onInventoryDragEarly(InventoryDragEvent event) {
-		// The UI handler processing this click, or DUMMY_UI_HANDLER if none is processing the event:
-		UIHandler uiHandler = DUMMY_UI_HANDLER;
-		Player player = null; // The player, or null if there is no session
 		SKUISession session = this.getUISession(event.getWhoClicked());
-		if (session != null) {
-			player = (Player) event.getWhoClicked();
-			Player finalPlayer = player;
-			assert player.equals(session.getPlayer());
-			// Validate session:
-			if (this.validateSession(event, player, session)) {
-				uiHandler = session.getUIHandler();
-
-				// Debug information:
-				InventoryView view = event.getView();
-				Log.debug(() -> "Inventory dragging: player=" + finalPlayer.getName()
-						+ ", view-type=" + view.getType() + ", view-title=" + view.getTitle()
-						+ ", drag-type=" + event.getType());
-			}
+		if (session == null) return; // Not processed by any UI handler
+		Player player = (Player) event.getWhoClicked();
+		assert player.equals(session.getPlayer());
+		// Validate session:
+		if (!this.validateSession(event, player, session)) return;
+		UIHandler uiHandler = session.getUIHandler();
+
+		// Debug information:
+		if (Settings.debug) {
+			InventoryView view = event.getView();
+			Log.debug(() -> "Inventory dragging: player=" + player.getName()
+					+ ", view-type=" + view.getType() + ", view-title=" + view.getTitle()
+					+ ", drag-type=" + event.getType());
 		}
 
-		// Keep track of the processing UI handler (can be dummy):
+		// Keep track of the processing UI handler:
+		dragEventStack.push(event);
 		dragHandlerStack.push(uiHandler);
 
-		if (uiHandler != DUMMY_UI_HANDLER) {
-			// Let the UIHandler handle the click:
-			uiHandler.informOnInventoryDragEarly(event, player);
-		}
+		// Let the UIHandler handle the dragging:
+		uiHandler.informOnInventoryDragEarly(event, player);
 	}
 
 	// Priority HIGH instead of HIGHEST, since we might cancel the event and other plugins might want to react to that
 	// (see TradingHandler).
 	@EventHandler(priority = EventPriority.HIGH)
 	void onInventoryDragLate(InventoryDragEvent event) {
-		UIHandler uiHandler = dragHandlerStack.pop(); // Not expected to be empty
-		if (uiHandler == DUMMY_UI_HANDLER) return; // Ignore
+		if (dragEventStack.peek() != event) return; // Not processed by any UI handler
+		dragEventStack.pop();
+		UIHandler uiHandler = dragHandlerStack.pop();
 		// It is expected that the session and UI handler determined at the beginning of the event processing are still
 		// valid at this point.
 
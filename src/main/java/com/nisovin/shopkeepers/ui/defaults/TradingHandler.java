@@ -3,7 +3,11 @@ package com.nisovin.shopkeepers.ui.defaults;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Statistic;
@@ -93,6 +97,14 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		 * inside the trading slots of the merchant inventory.
 		 */
 		public boolean swappedItemOrder;
+		/**
+		 * The number of successive trades that are handled and applied together, using the same trading recipe and
+		 * offered items.
+		 * <p>
+		 * This is only greater than <code>1</code> for bulk trades (eg. when the player shift-clicks the result slot),
+		 * and only gets set once the trades have been prepared.
+		 */
+		public int tradeCount;
 
 		protected TradeData() {
 		}
@@ -108,6 +120,7 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 			this.offeredItem1 = offeredItem1;
 			this.offeredItem2 = offeredItem2;
 			this.swappedItemOrder = swappedItemOrder;
+			this.tradeCount = 1;
 		}
 	}
 
@@ -120,6 +133,12 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 	// Counts the trades triggered by the last click-event:
 	protected int tradeCounter = 0;
 
+	// The trading recipes that the players who are currently trading via this handler were last sent:
+	private final Map<Player, List<TradingRecipe>> sentTradingRecipes = new HashMap<>();
+	// Players whose trades get updated during the next tick:
+	private final Set<Player> pendingTradeUpdates = new LinkedHashSet<>();
+	private boolean tradeUpdateTaskScheduled = false;
+
 	public TradingHandler(AbstractUIType uiType, AbstractShopkeeper shopkeeper) {
 		super(uiType, shopkeeper);
 	}
@@ -156,7 +175,11 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		}
 
 		// Open merchant:
-		return (player.openMerchant(merchant, true) != null);
+		if (player.openMerchant(merchant, true) == null) {
+			return false;
+		}
+		sentTradingRecipes.put(player, new ArrayList<>(recipes));
+		return true;
 	}
 
 	protected Merchant setupMerchant(String title, List<TradingRecipe> recipes) {
@@ -167,12 +190,41 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 	}
 
 	protected void setupMerchantRecipes(Merchant merchant, List<TradingRecipe> recipes) {
-		// Create list of merchant recipes:
-		List<MerchantRecipe> merchantRecipes = this.createMerchantRecipes(recipes);
+		// Get list of merchant recipes:
+		List<MerchantRecipe> merchantRecipes = this.getMerchantRecipes(recipes);
 		// Set merchant's recipes:
 		merchant.setRecipes(merchantRecipes);
 	}
 
+	/**
+	 * Gets the merchant recipes for the given trading recipes.
+	 * <p>
+	 * By default this creates new merchant recipes. Sub-classes can override this to reuse the same merchant recipes
+	 * for all players, if the trading recipes do not depend on the player. The merchant recipes only get read when
+	 * they are set for a merchant, and are not modified afterwards.
+	 * 
+	 * @param recipes
+	 *            the trading recipes
+	 * @return the merchant recipes, in the same order as the trading recipes
+	 */
+	protected List<MerchantRecipe> getMerchantRecipes(List<TradingRecipe> recipes) {
+		return this.createMerchantRecipes(recipes);
+	}
+
+	/**
+	 * Gets the merchant recipe for the trading recipe at the specified index.
+	 * 
+	 * @param recipes
+	 *            the trading recipes
+	 * @param index
+	 *            the index of the trading recipe
+	 * @return the merchant recipe
+	 * @see #getMerchantRecipes(List)
+	 */
+	protected MerchantRecipe getMerchantRecipe(List<TradingRecipe> recipes, int index) {
+		return this.createMerchantRecipe(recipes.get(index));
+	}
+
 	protected List<MerchantRecipe> createMerchantRecipes(List<TradingRecipe> recipes) {
 		List<MerchantRecipe> merchantRecipes = new ArrayList<>();
 		for (TradingRecipe recipe : recipes) {
@@ -193,6 +245,54 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		return Messages.tradingTitlePrefix + title;
 	}
 
+	/**
+	 * Requests an update of the trades of the given player.
+	 * <p>
+	 * The update is deferred to the next tick, so that multiple update requests for the same player within the same
+	 * tick (eg. due to several trades in the same shop) only result in a single update.
+	 * 
+	 * @param player
+	 *            the player
+	 */
+	protected void updateTradesLater(Player player) {
+		if (!sentTradingRecipes.containsKey(player)) return; // Not trading via this handler
+		pendingTradeUpdates.add(player);
+		this.scheduleTradeUpdates();
+	}
+
+	/**
+	 * Requests an update of the trades of all players that are currently trading via this handler.
+	 * <p>
+	 * This can be used after trades which affect the trades of other players as well (eg. if the trades depend on the
+	 * stock of a shared shop container). The trades of the trading player are updated after every trade anyways.
+	 * 
+	 * @see #updateTradesLater(Player)
+	 */
+	protected void updateTradesOfAllPlayersLater() {
+		if (sentTradingRecipes.isEmpty()) return;
+		pendingTradeUpdates.addAll(sentTradingRecipes.keySet());
+		this.scheduleTradeUpdates();
+	}
+
+	private void scheduleTradeUpdates() {
+		if (tradeUpdateTaskScheduled) return;
+		tradeUpdateTaskScheduled = true;
+		Bukkit.getScheduler().runTask(ShopkeepersPlugin.getInstance(), this::processPendingTradeUpdates);
+	}
+
+	private void processPendingTradeUpdates() {
+		tradeUpdateTaskScheduled = false;
+		if (pendingTradeUpdates.isEmpty()) return;
+		// Copy, since the updates might request further updates:
+		List<Player> players = new ArrayList<>(pendingTradeUpdates);
+		pendingTradeUpdates.clear();
+		for (Player player : players) {
+			this.updateTrades(player);
+		}
+	}
+
+	// Only the merchant recipes of trading recipes that changed since the last update are recreated. If none of them
+	// changed, the trades are not resent to the client.
 	protected void updateTrades(Player player) {
 		// Check if the currently open inventory still corresponds to this UI:
 		if (!this.isOpen(player)) return;
@@ -201,28 +301,61 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		assert openInventory.getType() == InventoryType.MERCHANT;
 		MerchantInventory merchantInventory = (MerchantInventory) openInventory.getTopInventory();
 		Merchant merchant = merchantInventory.getMerchant();
-		List<MerchantRecipe> oldMerchantRecipes = merchant.getRecipes();
 
 		Shopkeeper shopkeeper = this.getShopkeeper();
+		List<TradingRecipe> oldRecipes = sentTradingRecipes.get(player);
+		if (oldRecipes == null) oldRecipes = Collections.emptyList(); // Not expected, recreates all merchant recipes
 		List<TradingRecipe> recipes = shopkeeper.getTradingRecipes(player);
-		List<MerchantRecipe> newMerchantRecipes = this.createMerchantRecipes(recipes);
-		if (MerchantUtils.MERCHANT_RECIPES_EQUAL_IGNORING_USES.equals(oldMerchantRecipes, newMerchantRecipes)) {
-			Log.debug(() -> "Trades are still up-to-date for player " + player.getName());
-			return; // Recipes did not change
+		int oldRecipeCount = oldRecipes.size();
+		int recipeCount = recipes.size();
+
+		// Replace the merchant recipes whose trading recipes changed:
+		// Note: The merchant may contain more recipes than previously sent trading recipes (dummy recipes).
+		int merchantRecipeCount = merchant.getRecipeCount();
+		List<MerchantRecipe> appendedMerchantRecipes = null; // Lazily setup
+		int changedRecipes = 0;
+		for (int i = 0; i < recipeCount; i++) {
+			TradingRecipe recipe = recipes.get(i);
+			if (i < oldRecipeCount && recipe.equals(oldRecipes.get(i))) continue; // Unchanged
+
+			changedRecipes++;
+			MerchantRecipe merchantRecipe = this.getMerchantRecipe(recipes, i);
+			if (i < merchantRecipeCount) {
+				merchant.setRecipe(i, merchantRecipe);
+			} else {
+				if (appendedMerchantRecipes == null) {
+					appendedMerchantRecipes = new ArrayList<>();
+				}
+				appendedMerchantRecipes.add(merchantRecipe);
+			}
 		}
-		Log.debug(() -> "Updating trades for player " + player.getName());
 
-		// It is not safe to reduce the number of trading recipes for the player, so we need to add dummy recipes:
+		// It is not safe to reduce the number of trading recipes for the player, so we need to replace removed
+		// recipes with dummy recipes:
 		// TODO Check if this still applies in MC 1.14
-		for (int i = recipes.size(); i < oldMerchantRecipes.size(); ++i) {
+		for (int i = recipeCount; i < oldRecipeCount; i++) {
+			changedRecipes++;
 			// TODO API doesn't expect null here (but works).. use something else?
 			MerchantRecipe merchantRecipe = new MerchantRecipe(null, 0, 0, false);
-			newMerchantRecipes.add(merchantRecipe);
+			merchant.setRecipe(i, merchantRecipe);
 		}
-		// Set merchant's recipes:
-		merchant.setRecipes(newMerchantRecipes);
+
+		if (changedRecipes == 0) {
+			Log.debug(() -> "Trades are still up-to-date for player " + player.getName());
+			return; // Recipes did not change
+		}
+		int changedRecipesFinal = changedRecipes;
+		Log.debug(() -> "Updating trades for player " + player.getName() + " (" + changedRecipesFinal + " changed)");
+
+		if (appendedMerchantRecipes != null) {
+			List<MerchantRecipe> newMerchantRecipes = new ArrayList<>(merchant.getRecipes());
+			newMerchantRecipes.addAll(appendedMerchantRecipes);
+			merchant.setRecipes(newMerchantRecipes);
+		}
+		sentTradingRecipes.put(player, new ArrayList<>(recipes));
 
 		// Update recipes for the client:
+		// Note: Minecraft always sends the complete list of trades.
 		NMSManager.getProvider().updateTrades(player);
 	}
 
@@ -233,6 +366,8 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 	@Override
 	protected void onInventoryClose(Player player, InventoryCloseEvent closeEvent) {
+		sentTradingRecipes.remove(player);
+		pendingTradeUpdates.remove(player);
 	}
 
 	// TRADE PROCESSING
@@ -342,7 +477,7 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 					// Common apply trade:
 					this.commonApplyTrade(tradeData);
 				}
-				this.updateTrades(player);
+				this.updateTradesLater(player);
 			}
 		} else if (action == InventoryAction.DROP_ONE_SLOT || action == InventoryAction.DROP_ALL_SLOT) {
 			// Not supported for now, since this might be tricky to accurately reproduce.
@@ -370,17 +505,32 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 					// Common apply trade:
 					this.commonApplyTrade(tradeData);
 				}
-				this.updateTrades(player);
+				this.updateTradesLater(player);
 			}
 		} else if (action == InventoryAction.MOVE_TO_OTHER_INVENTORY) {
 			// Trades as often as possible (depending on offered items and inventory space) for the current result item:
+			// The maximum number of trades is determined up front, and the trades are then handled and applied together
+			// (with a single trade event and inventory update).
 			// If the current trading recipe is no longer fulfilled, and the currently selected recipe index is 0,
 			// it will switch to the next applicable trading recipe, and continue the trading if the new result item is
 			// equal to the previous result item.
 			while (true) {
-				// Check if there is enough space in the player's inventory:
 				ItemStack[] newPlayerContents = playerInventory.getStorageContents();
 
+				// Check how many trades the offered items and the space in the player's inventory allow for:
+				int maxTrades = this.getMaxBulkTrades(tradeData, resultItem, newPlayerContents);
+				if (maxTrades == 0) {
+					// Not enough inventory space, abort trading:
+					break;
+				}
+
+				if (!this.handleTrades(tradeData, maxTrades)) {
+					// Trades were aborted:
+					break;
+				}
+				int tradeCount = tradeData.tradeCount;
+				assert tradeCount > 0 && tradeCount <= maxTrades;
+
 				// Minecraft is adding items in reverse container order (starting with hotbar slot 9),
 				// so we reverse the player contents accordingly before adding items:
 				// Changes write through to the original array.
@@ -390,15 +540,12 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 				Collections.reverse(hotbarView);
 				Collections.reverse(contentsView);
 
-				// No item copy required here:
-				if (ItemUtils.addItems(newPlayerContents, resultItem) != 0) {
-					// Not enough inventory space, abort trading:
-					break;
-				}
-
-				if (!this.handleTrade(tradeData)) {
-					// Trade was aborted:
-					break;
+				// Adding the result items of each trade separately places them the same way as successive single
+				// trades would. The inventory space has already been checked.
+				for (int i = 0; i < tradeCount; i++) {
+					// No item copy required here:
+					int remaining = ItemUtils.addItems(newPlayerContents, resultItem);
+					assert remaining == 0;
 				}
 
 				// Revert previous reverse:
@@ -426,13 +573,37 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 				// Update result item:
 				resultItem = newResultItem;
 			}
-			this.updateTrades(player);
+			this.updateTradesLater(player);
 		} else {
 			// The inventory action involves the result slot, but doesn't trigger a trade usually, or isn't supported
 			// yet.
 		}
 	}
 
+	// Returns the maximum number of successive trades the offered items and the space inside the given player
+	// inventory contents allow for.
+	private int getMaxBulkTrades(TradeData tradeData, ItemStack resultItem, ItemStack[] playerContents) {
+		TradingRecipe tradingRecipe = tradeData.tradingRecipe;
+		int maxTrades = tradeData.offeredItem1.getAmount() / tradingRecipe.getItem1().getAmount();
+		ItemStack requiredItem2 = tradingRecipe.getItem2();
+		if (!ItemUtils.isEmpty(requiredItem2)) {
+			maxTrades = Math.min(maxTrades, ItemUtils.getItemStackAmount(tradeData.offeredItem2) / requiredItem2.getAmount());
+		}
+		if (maxTrades == 0) return 0;
+
+		// Free space for the result item:
+		int maxStackSize = resultItem.getMaxStackSize();
+		int freeSpace = 0;
+		for (ItemStack itemStack : playerContents) {
+			if (ItemUtils.isEmpty(itemStack)) {
+				freeSpace += maxStackSize;
+			} else if (itemStack.getAmount() < maxStackSize && itemStack.isSimilar(resultItem)) {
+				freeSpace += (maxStackSize - itemStack.getAmount());
+			}
+		}
+		return Math.min(maxTrades, freeSpace / resultItem.getAmount());
+	}
+
 	private void clearResultSlotForInvalidTrade(MerchantInventory merchantInventory) {
 		// TODO This is not working currently. The client updates the result slot contents whenever it receives a slot
 		// update from the server.
@@ -537,7 +708,9 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		return tradeData;
 	}
 
-	private boolean matches(ItemStack offeredItem1, ItemStack offeredItem2, ItemStack requiredItem1, ItemStack requiredItem2) {
+	// Checks whether the offered items match the required items in the given order.
+	// Package-private and static, so that the trade check can be benchmarked without an open trading window.
+	static boolean matches(ItemStack offeredItem1, ItemStack offeredItem2, ItemStack requiredItem1, ItemStack requiredItem2) {
 		int offeredItem1Amount = ItemUtils.getItemStackAmount(offeredItem1);
 		int offeredItem2Amount = ItemUtils.getItemStackAmount(offeredItem2);
 		int requiredItem1Amount = ItemUtils.getItemStackAmount(requiredItem1);
@@ -580,16 +753,26 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 	// Returns true if the trade was not aborted and is now supposed to get applied.
 	private boolean handleTrade(TradeData tradeData) {
-		assert tradeData != null;
-		// Increase trade counter:
-		tradeCounter++;
+		return this.handleTrades(tradeData, 1);
+	}
 
-		// Check and prepare the trade:
-		if (!this.prepareTrade(tradeData)) {
+	// Handles up to the specified number of successive trades using the same trading recipe and offered items. The
+	// number of trades that are supposed to get applied is stored inside the trade data.
+	// Returns true if the trades were not aborted and are now supposed to get applied.
+	private boolean handleTrades(TradeData tradeData, int maxTrades) {
+		assert tradeData != null && maxTrades > 0;
+		// Check and prepare the trades:
+		int tradeCount = this.prepareTrades(tradeData, maxTrades);
+		if (tradeCount <= 0) {
 			// The trade got cancelled for some shopkeeper-specific reason:
 			this.onTradeAborted(tradeData);
 			return false;
 		}
+		assert tradeCount <= maxTrades;
+		tradeData.tradeCount = tradeCount;
+
+		// Increase trade counter:
+		tradeCounter += tradeCount;
 
 		// Call trade event, giving other plugins a chance to cancel the trade before it gets applied:
 		// Prepare offered items for the event: Clone and ensure stack sizes matching the trading recipe.
@@ -603,7 +786,7 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 
 		ShopkeeperTradeEvent tradeEvent = new ShopkeeperTradeEvent(this.getShopkeeper(), tradeData.tradingPlayer,
 				tradeData.clickEvent, tradeData.tradingRecipe, eventOfferedItem1, eventOfferedItem2,
-				tradeData.swappedItemOrder);
+				tradeData.swappedItemOrder, tradeCount);
 		Bukkit.getPluginManager().callEvent(tradeEvent);
 		if (tradeEvent.isCancelled()) {
 			Log.debug("The trade got cancelled by some other plugin.");
@@ -629,8 +812,9 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		merchantInventory.setItem(RESULT_ITEM_SLOT_ID, null); // Clear result slot, just in case
 
 		TradingRecipe tradingRecipe = tradeData.tradingRecipe;
-		ItemStack newOfferedItem1 = ItemUtils.descreaseItemAmount(tradeData.offeredItem1, ItemUtils.getItemStackAmount(tradingRecipe.getItem1()));
-		ItemStack newOfferedItem2 = ItemUtils.descreaseItemAmount(tradeData.offeredItem2, ItemUtils.getItemStackAmount(tradingRecipe.getItem2()));
+		int tradeCount = tradeData.tradeCount;
+		ItemStack newOfferedItem1 = ItemUtils.descreaseItemAmount(tradeData.offeredItem1, ItemUtils.getItemStackAmount(tradingRecipe.getItem1()) * tradeCount);
+		ItemStack newOfferedItem2 = ItemUtils.descreaseItemAmount(tradeData.offeredItem2, ItemUtils.getItemStackAmount(tradingRecipe.getItem2()) * tradeCount);
 		// Inform the merchant inventory about the change (updates the active trading recipe and result item):
 		merchantInventory.setItem(tradeData.swappedItemOrder ? BUY_ITEM_2_SLOT_ID : BUY_ITEM_1_SLOT_ID, newOfferedItem1);
 		merchantInventory.setItem(tradeData.swappedItemOrder ? BUY_ITEM_1_SLOT_ID : BUY_ITEM_2_SLOT_ID, newOfferedItem2);
@@ -642,15 +826,16 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		// Increment 'traded-with-villager' statistic for every trade:
 		if (Settings.incrementVillagerStatistics) {
 			Player player = tradeData.tradingPlayer;
-			player.incrementStatistic(Statistic.TRADED_WITH_VILLAGER);
+			player.incrementStatistic(Statistic.TRADED_WITH_VILLAGER, tradeCount);
 		}
 
 		// Shopkeeper-specific application of the trade:
 		this.onTradeApplied(tradeData);
 
 		// Log trade:
-		Log.debug(() -> "Trade (#" + tradeCounter + ") by " + tradeData.tradingPlayer.getName() + " with shopkeeper at "
-				+ this.getShopkeeper().getPositionString() + ": " + ItemUtils.getSimpleRecipeInfo(tradingRecipe));
+		Log.debug(() -> "Trade (#" + tradeCounter + (tradeCount > 1 ? ", " + tradeCount + " times" : "") + ") by "
+				+ tradeData.tradingPlayer.getName() + " with shopkeeper at " + this.getShopkeeper().getPositionString()
+				+ ": " + ItemUtils.getSimpleRecipeInfo(tradingRecipe));
 	}
 
 	/**
@@ -659,7 +844,8 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 	 * <p>
 	 * This gets called for every trade a player triggered through a merchant inventory action. Depending on the
 	 * inventory action multiple successive trades (even using different trading recipes) might get triggered by a
-	 * single inventory action.
+	 * single inventory action. Successive trades that use the same trading recipe and offered items are prepared via
+	 * {@link #prepareTrades(TradeData, int)} and then get applied together.
 	 * <p>
 	 * There should be no changes of the corresponding click event and the involved inventories (player, container) to
 	 * be expected between this phase of the trade handling and the actual application of the trade.
@@ -673,6 +859,32 @@ public class TradingHandler extends AbstractShopkeeperUIHandler {
 		return true;
 	}
 
+	/**
+	 * Checks and prepares up to the specified number of successive trades that use the same trading recipe and offered
+	 * items, so that they can be applied together.
+	 * <p>
+	 * This gets used for bulk trades, such as when the player shift-clicks the result slot. The default implementation
+	 * calls {@link #prepareTrade(TradeData)} once for each trade, until either the maximum number of trades has been
+	 * prepared or a trade cannot be prepared. Sub-classes that keep state for the prepared trades have to discard any
+	 * changes of the last trade that could not be prepared.
+	 * <p>
+	 * If not even a single trade can be prepared, {@link #onTradeAborted(TradeData)} gets called afterwards.
+	 * 
+	 * @param tradeData
+	 *            the trade data
+	 * @param maxTrades
+	 *            the maximum number of trades to prepare, at least <code>1</code>
+	 * @return the number of prepared trades, or <code>0</code> to cancel the trades and any successive trades
+	 *         triggered by the same inventory click
+	 */
+	protected int prepareTrades(TradeData tradeData, int maxTrades) {
+		int preparedTrades = 0;
+		while (preparedTrades < maxTrades && this.prepareTrade(tradeData)) {
+			preparedTrades++;
+		}
+		return preparedTrades;
+	}
+
 	/**
 	 * Called if a previously already prepared trade got aborted for some reason.
 	 * <p>
@@ -0,0 +1,44 @@
+package com.nisovin.shopkeepers.util;
+
+import org.bukkit.block.Block;
+
+/**
+ * Utilities for packing block coordinates into a single <code>long</code>.
+ * <p>
+ * The x and z coordinates use 26 bits each, and the y coordinate uses 12 bits. This covers all coordinates within the
+ * world border, and y coordinates in the range <code>[-2048, 2047]</code>. Like {@link ChunkKeys}, these keys do not
+ * include the world, and creating them does not require any allocations.
+ */
+public final class BlockPositionKeys {
+
+	private static final int XZ_BITS = 26;
+	private static final int Y_BITS = 12;
+	private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+	private static final long Y_MASK = (1L << Y_BITS) - 1;
+	private static final int X_SHIFT = XZ_BITS + Y_BITS;
+	private static final int Z_SHIFT = Y_BITS;
+
+	private BlockPositionKeys() {
+	}
+
+	public static long of(int x, int y, int z) {
+		return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+	}
+
+	public static long of(Block block) {
+		return of(block.getX(), block.getY(), block.getZ());
+	}
+
+	public static int getX(long key) {
+		return (int) (key >> X_SHIFT);
+	}
+
+	public static int getY(long key) {
+		// Shift the y bits to the top first, so that the sign is restored:
+		return (int) (key << (64 - Y_BITS) >> (64 - Y_BITS));
+	}
+
+	public static int getZ(long key) {
+		return (int) (key << (64 - X_SHIFT) >> (64 - XZ_BITS));
+	}
+}
@@ -0,0 +1,35 @@
+package com.nisovin.shopkeepers.util;
+
+import org.bukkit.Chunk;
+
+/**
+ * Utilities for packing chunk coordinates into a single <code>long</code>.
+ * <p>
+ * Unlike {@link com.nisovin.shopkeepers.api.util.ChunkCoords}, these keys do not include the world, and creating them
+ * does not require any allocations.
+ */
+public final class ChunkKeys {
+
+	private ChunkKeys() {
+	}
+
+	public static long of(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	public static long of(Chunk chunk) {
+		return of(chunk.getX(), chunk.getZ());
+	}
+
+	public static long fromBlockPos(int blockX, int blockZ) {
+		return of(blockX >> 4, blockZ >> 4);
+	}
+
+	public static int getChunkX(long chunkKey) {
+		return (int) (chunkKey >> 32);
+	}
+
+	public static int getChunkZ(long chunkKey) {
+		return (int) chunkKey;
+	}
+}
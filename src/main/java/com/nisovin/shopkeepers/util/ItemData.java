@@ -133,6 +133,12 @@ public class ItemData implements Cloneable {
 	private final ItemStack dataItem;
 	// Cache serialized item meta data, to avoid doing it again for every comparison:
 	private Map<String, Object> serializedData = null; // Gets lazily initialized (only when actually needed)
+	// Used to quickly reject items without having to serialize their item meta. Initialized together with the
+	// serialized data:
+	private String dataDisplayName = null; // Null if the data does not specify a display name
+	private boolean dataHasLore = false;
+	// The serialized item meta of items of the same type without item meta, lazily initialized:
+	private Map<String, Object> emptyItemMetaData = null;
 
 	public ItemData(Material type) {
 		this(new ItemStack(type));
@@ -169,12 +175,24 @@ public class ItemData implements Cloneable {
 			if (serializedData == null) {
 				// Ensure that the field is not null after initialization:
 				serializedData = Collections.emptyMap();
+			} else {
+				dataDisplayName = itemMeta.hasDisplayName() ? itemMeta.getDisplayName() : null;
+				dataHasLore = itemMeta.hasLore();
 			}
 		}
 		assert serializedData != null;
 		return serializedData;
 	}
 
+	// Not null.
+	private Map<String, Object> getEmptyItemMetaData() {
+		if (emptyItemMetaData == null) {
+			ItemMeta emptyItemMeta = Bukkit.getItemFactory().getItemMeta(this.getType()); // Can be null (eg. for AIR)
+			emptyItemMetaData = (emptyItemMeta != null) ? emptyItemMeta.serialize() : Collections.emptyMap();
+		}
+		return emptyItemMetaData;
+	}
+
 	public boolean hasItemMeta() {
 		return !this.getSerializedData().isEmpty(); // Equivalent to dataItem.hasItemMeta()
 	}
@@ -203,9 +221,29 @@ public class ItemData implements Cloneable {
 		return this.matches(item, false); // Not matching partial lists
 	}
 
+	// Same type and matching data.
+	// This is frequently called for all items of containers (eg. when checking for currency items). The item meta of
+	// the given item is only serialized if the cheaper checks do not already determine the result.
 	public boolean matches(ItemStack item, boolean matchPartialLists) {
-		// Same type and matching data:
-		return ItemUtils.matchesData(item, this.getType(), this.getSerializedData(), matchPartialLists);
+		if (item == null) return false;
+		if (item.getType() != this.getType()) return false;
+		Map<String, Object> data = this.getSerializedData();
+		if (data.isEmpty()) return true;
+
+		if (!item.hasItemMeta()) {
+			// Compare with the cached serialization of an empty item meta:
+			return ItemUtils.matchesData(this.getEmptyItemMetaData(), data, matchPartialLists);
+		}
+
+		ItemMeta itemMeta = item.getItemMeta();
+		// These checks only reject items that would not match the serialized data either:
+		if (dataDisplayName != null && (!itemMeta.hasDisplayName() || !dataDisplayName.equals(itemMeta.getDisplayName()))) {
+			return false;
+		}
+		if (dataHasLore && !itemMeta.hasLore()) {
+			return false;
+		}
+		return ItemUtils.matchesData(itemMeta.serialize(), data, matchPartialLists);
 	}
 
 	public boolean matches(ItemData itemData) {
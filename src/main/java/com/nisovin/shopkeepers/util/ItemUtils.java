@@ -1,6 +1,7 @@
 package com.nisovin.shopkeepers.util;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -635,26 +636,101 @@ public final class ItemUtils {
 
 	// Inventory utilities:
 
+	// An item count together with its lazily calculated similarity hash.
+	private static class HashedItemCount {
+
+		final ItemCount itemCount;
+		private boolean hashCalculated = false;
+		private int hash;
+
+		HashedItemCount(ItemCount itemCount) {
+			this.itemCount = itemCount;
+		}
+
+		int getSimilarityHash() {
+			if (!hashCalculated) {
+				hash = getSimilarityHash(itemCount.getItem());
+				hashCalculated = true;
+			}
+			return hash;
+		}
+	}
+
+	// Similar items have the same hash. Unlike ItemStack#hashCode, this does not take the amount into account.
+	private static int getSimilarityHash(ItemStack item) {
+		assert item != null;
+		int hash = item.getType().hashCode();
+		if (item.hasItemMeta()) {
+			hash = hash * 31 + item.getItemMeta().hashCode();
+		}
+		return hash;
+	}
+
+	/**
+	 * Counts the items inside the given contents.
+	 * <p>
+	 * Similar items are counted together. The counts are returned in the order in which the items are first
+	 * encountered.
+	 * <p>
+	 * The items are grouped by their type first. Only if there are several different items of the same type, the items
+	 * are compared by a hash of their type and item meta before they are compared via
+	 * {@link ItemStack#isSimilar(ItemStack)}. This avoids comparing every item with all previously counted items.
+	 * 
+	 * @param contents
+	 *            the contents, can be <code>null</code>
+	 * @param filter
+	 *            the filter, or <code>null</code> to count all items
+	 * @return the item counts, not <code>null</code>
+	 */
 	public static List<ItemCount> countItems(ItemStack[] contents, Filter<ItemStack> filter) {
 		List<ItemCount> itemCounts = new ArrayList<>();
 		if (contents == null) return itemCounts;
+		Map<Material, List<HashedItemCount>> itemCountsByType = new EnumMap<>(Material.class);
 		for (ItemStack item : contents) {
 			if (isEmpty(item)) continue;
 			if (filter != null && !filter.accept(item)) continue;
 
 			// Check if we already have a counter for this type of item:
-			ItemCount itemCount = ItemCount.findSimilar(itemCounts, item);
+			List<HashedItemCount> sameTypeCounts = itemCountsByType.get(item.getType());
+			if (sameTypeCounts == null) {
+				sameTypeCounts = new ArrayList<>(1);
+				itemCountsByType.put(item.getType(), sameTypeCounts);
+			}
+			ItemCount itemCount = findSimilar(sameTypeCounts, item);
 			if (itemCount != null) {
 				// Increase item count:
 				itemCount.addAmount(item.getAmount());
 			} else {
 				// Add new item entry:
-				itemCounts.add(new ItemCount(item, item.getAmount()));
+				itemCount = new ItemCount(item, item.getAmount());
+				itemCounts.add(itemCount);
+				sameTypeCounts.add(new HashedItemCount(itemCount));
 			}
 		}
 		return itemCounts;
 	}
 
+	// The given item counts are expected to be of the same type as the given item.
+	private static ItemCount findSimilar(List<HashedItemCount> sameTypeCounts, ItemStack item) {
+		int size = sameTypeCounts.size();
+		if (size == 0) return null;
+		if (size == 1) {
+			// Comparing the item directly is cheaper than calculating the hashes:
+			ItemCount itemCount = sameTypeCounts.get(0).itemCount;
+			return itemCount.getItem().isSimilar(item) ? itemCount : null;
+		}
+		int hash = getSimilarityHash(item);
+		for (int i = 0; i < size; i++) {
+			HashedItemCount hashedItemCount = sameTypeCounts.get(i);
+			if (hashedItemCount.getSimilarityHash() != hash) continue;
+			ItemCount itemCount = hashedItemCount.itemCount;
+			if (itemCount.getItem().isSimilar(item)) {
+				return itemCount;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Checks if the given contents contains at least the specified amount of items matching the specified
 	 * {@link ItemData}.
@@ -0,0 +1,250 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map with primitive <code>long</code> keys and non-<code>null</code> object values.
+ * <p>
+ * This uses open addressing with linear probing, so that lookups do not need to box the keys and do not allocate any
+ * objects. Removals shift subsequent entries back instead of leaving tombstones behind.
+ * <p>
+ * The values can be iterated via {@link #values()}, in no particular order.
+ * <p>
+ * This is not thread-safe.
+ *
+ * @param <V>
+ *            the type of values
+ */
+public class LongObjectHashMap<V> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.5F;
+
+	private long[] keys;
+	// Null marks a free slot:
+	private Object[] values;
+	private int mask;
+	private int size = 0;
+	private int resizeThreshold;
+	// Incremented whenever entries are added or removed, to detect modifications during iterations:
+	private int modCount = 0;
+
+	// Note: Already unmodifiable.
+	private final Collection<V> valuesView = new AbstractCollection<V>() {
+		@Override
+		public Iterator<V> iterator() {
+			return new ValuesIterator();
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	};
+
+	public LongObjectHashMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongObjectHashMap(int expectedSize) {
+		Validate.isTrue(expectedSize >= 0, "Expected size cannot be negative!");
+		this.allocate(tableSizeFor(expectedSize));
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		int minCapacity = Math.max((int) Math.ceil(expectedSize / LOAD_FACTOR), 2);
+		return Integer.highestOneBit(minCapacity - 1) << 1;
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private int slot(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	/**
+	 * Gets the value for the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the value, or <code>null</code> if there is no value for the given key
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int slot = this.slot(key);
+		Object value;
+		while ((value = values[slot]) != null) {
+			if (keys[slot] == key) return (V) value;
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	public boolean containsKey(long key) {
+		return (this.get(key) != null);
+	}
+
+	/**
+	 * Sets the value for the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value, not <code>null</code>
+	 * @return the previous value, or <code>null</code> if there was no value for the given key
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		Validate.notNull(value, "Value is null!");
+		int slot = this.slot(key);
+		Object previousValue;
+		while ((previousValue = values[slot]) != null) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return (V) previousValue;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		size++;
+		modCount++;
+		if (size > resizeThreshold) {
+			this.resize(values.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the value for the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the removed value, or <code>null</code> if there was no value for the given key
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int slot = this.slot(key);
+		Object value;
+		while ((value = values[slot]) != null) {
+			if (keys[slot] == key) {
+				this.shiftBack(slot);
+				size--;
+				modCount++;
+				return (V) value;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+
+	// Moves subsequent entries of the same probe sequence into the freed slot.
+	private void shiftBack(int freeSlot) {
+		int slot = freeSlot;
+		while (true) {
+			slot = (slot + 1) & mask;
+			Object value = values[slot];
+			if (value == null) break;
+			int idealSlot = this.slot(keys[slot]);
+			// Move the entry if its ideal slot is not cyclically located within (freeSlot, slot]:
+			boolean move = (freeSlot <= slot) ? (idealSlot <= freeSlot || idealSlot > slot) : (idealSlot <= freeSlot && idealSlot > slot);
+			if (move) {
+				keys[freeSlot] = keys[slot];
+				values[freeSlot] = value;
+				freeSlot = slot;
+			}
+		}
+		values[freeSlot] = null;
+	}
+
+	private void resize(int newCapacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		this.allocate(newCapacity);
+		for (int i = 0; i < oldValues.length; i++) {
+			Object value = oldValues[i];
+			if (value == null) continue;
+			long key = oldKeys[i];
+			int slot = this.slot(key);
+			while (values[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			values[slot] = value;
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Gets an unmodifiable view on the values of this map.
+	 * <p>
+	 * Adding or removing entries while iterating the view results in a {@link ConcurrentModificationException}.
+	 *
+	 * @return the values view
+	 */
+	public Collection<V> values() {
+		return valuesView;
+	}
+
+	private class ValuesIterator implements Iterator<V> {
+
+		private final int expectedModCount = modCount;
+		private int nextSlot;
+
+		ValuesIterator() {
+			nextSlot = this.findSlot(0);
+		}
+
+		// Finds the next occupied slot, starting at the given slot:
+		private int findSlot(int slot) {
+			Object[] values = LongObjectHashMap.this.values;
+			while (slot < values.length && values[slot] == null) {
+				slot++;
+			}
+			return slot;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (nextSlot < values.length);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			V value = (V) values[nextSlot];
+			nextSlot = this.findSlot(nextSlot + 1);
+			return value;
+		}
+	}
+}
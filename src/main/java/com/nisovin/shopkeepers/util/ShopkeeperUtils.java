@@ -249,35 +249,32 @@ public class ShopkeeperUtils {
 
 		// Search for shops owned by the specified player:
 		List<PlayerShopkeeper> shops = new ArrayList<>();
-		for (Shopkeeper shopkeeper : ShopkeepersAPI.getShopkeeperRegistry().getAllShopkeepers()) {
-			if (shopkeeper instanceof PlayerShopkeeper) {
-				PlayerShopkeeper playerShop = (PlayerShopkeeper) shopkeeper;
+		if (targetPlayerUUID != null) {
+			// We search for shops with matching owner uuid:
+			for (PlayerShopkeeper playerShop : ShopkeepersAPI.getShopkeeperRegistry().getPlayerShopkeepersByOwner(targetPlayerUUID)) {
+				shops.add(playerShop);
+
+				// The input target player name may be missing or differ in case.
+				// Keep track of the owner's actual name:
+				targetPlayerName = playerShop.getOwnerName(); // Not null
+			}
+		} else {
+			assert targetPlayerName != null;
+			for (PlayerShopkeeper playerShop : ShopkeepersAPI.getShopkeeperRegistry().getAllPlayerShopkeepers()) {
 				UUID shopOwnerUUID = playerShop.getOwnerUUID(); // Not null
 				String shopOwnerName = playerShop.getOwnerName(); // Not null
-				if (targetPlayerUUID != null) {
-					// We search for shops with matching owner uuid:
-					if (targetPlayerUUID.equals(shopOwnerUUID)) {
-						shops.add(playerShop);
-
-						// The input target player name may be missing or differ in case.
-						// Keep track of the owner's actual name:
-						targetPlayerName = shopOwnerName;
-					}
-				} else {
-					assert targetPlayerName != null;
-					// Check for matching name:
-					if (shopOwnerName.equalsIgnoreCase(targetPlayerName)) {
-						// Note: If there exist multiple players which match the given name, the result will include the
-						// shops of all of them.
-						shops.add(playerShop);
-
-						// The input target player name may differ in case.
-						// Keep track of the owner's actual name:
-						targetPlayerName = shopOwnerName;
-
-						// Keep track of players with matching name:
-						matchingShopOwners.putIfAbsent(shopOwnerUUID, shopOwnerName);
-					}
+				// Check for matching name:
+				if (shopOwnerName.equalsIgnoreCase(targetPlayerName)) {
+					// Note: If there exist multiple players which match the given name, the result will include the
+					// shops of all of them.
+					shops.add(playerShop);
+
+					// The input target player name may differ in case.
+					// Keep track of the owner's actual name:
+					targetPlayerName = shopOwnerName;
+
+					// Keep track of players with matching name:
+					matchingShopOwners.putIfAbsent(shopOwnerUUID, shopOwnerName);
 				}
 			}
 		}
@@ -0,0 +1,95 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.Arrays;
+
+/**
+ * Measures the time spent on a repeatedly performed task and keeps track of the average and maximum durations within
+ * a limited history.
+ */
+public class Timings {
+
+	private long[] timingsHistory;
+	private long maxTiming = 0L;
+	private int counter = 0;
+
+	// Current timing:
+	private boolean started = false;
+	private boolean paused = false;
+	private long startTime;
+	private long elapsedTime;
+
+	public Timings() {
+		this(100);
+	}
+
+	public Timings(int historySize) {
+		assert historySize > 0;
+		timingsHistory = new long[historySize];
+	}
+
+	public void start() {
+		assert !started && !paused;
+		// Reset:
+		started = true;
+		paused = false;
+		elapsedTime = 0L;
+		// Start timing:
+		startTime = System.nanoTime();
+	}
+
+	public void startPaused() {
+		this.start();
+		this.pause();
+	}
+
+	public void pause() {
+		assert started && !paused;
+		paused = true;
+		// Update timing:
+		elapsedTime += (System.nanoTime() - startTime);
+	}
+
+	public void resume() {
+		assert started && paused;
+		paused = false;
+		// Continue timing:
+		startTime = System.nanoTime();
+	}
+
+	public void stop() {
+		assert started;
+		counter++;
+		if (!paused) {
+			// Update timing by pausing:
+			this.pause();
+		}
+		assert paused;
+		started = false;
+		paused = false;
+
+		// Update timings history:
+		int historyIndex = (counter % timingsHistory.length);
+		timingsHistory[historyIndex] = elapsedTime;
+		// Reset/update max timing:
+		if (historyIndex == 0) maxTiming = elapsedTime;
+		else if (elapsedTime > maxTiming) maxTiming = elapsedTime;
+	}
+
+	public void reset() {
+		counter = 0;
+		Arrays.fill(timingsHistory, 0L);
+		maxTiming = 0L;
+	}
+
+	public int getCounter() {
+		return counter;
+	}
+
+	public double getAverageTimeMillis() {
+		return (MathUtils.average(timingsHistory) * 1.0E-6D);
+	}
+
+	public double getMaxTimeMillis() {
+		return (maxTiming * 1.0E-6D);
+	}
+}
@@ -137,4 +137,44 @@ public class PerformanceTests extends AbstractBukkitTest {
 			GameProfileSerializer.a(CraftItemStack.asNMSCopy(craftItemStack).getTag(), CraftItemStack.asNMSCopy(craftItemStack).getTag(), false);
 		});
 	}
+
+	// Compares ItemData#matches with matching by serializing the item meta of both items, for typical container
+	// contents when checking for currency items.
+	@Test
+	public void testCurrencyMatchingPerformance() {
+		System.out.println("Testing currency item matching performance:");
+		int warmupCount = 10000;
+		int testCount = 1000000;
+		ItemStack currencyItem = ItemUtils.createItemStack(Material.EMERALD, 1, "Currency", null);
+		ItemData currencyData = new ItemData(currencyItem);
+		CraftItemStack matchingItem = CraftItemStack.asCraftMirror(CraftItemStack.asNMSCopy(currencyItem));
+		CraftItemStack itemWithoutMeta = CraftItemStack.asCraftMirror(CraftItemStack.asNMSCopy(new ItemStack(Material.EMERALD)));
+		CraftItemStack itemWithOtherName = CraftItemStack.asCraftMirror(CraftItemStack.asNMSCopy(ItemUtils.createItemStack(Material.EMERALD, 1, "Other", null)));
+		CraftItemStack otherItem = CraftItemStack.asCraftMirror(CraftItemStack.asNMSCopy(ItemDataTest.createItemStackFull()));
+
+		testPerformance("  ", "ItemData#matches(matching item)", warmupCount, testCount, () -> {
+			currencyData.matches(matchingItem);
+		});
+		testPerformance("  ", "ItemUtils#matchesData(matching item)", warmupCount, testCount, () -> {
+			ItemUtils.matchesData(matchingItem, currencyItem);
+		});
+
+		testPerformance("  ", "ItemData#matches(item without meta)", warmupCount, testCount, () -> {
+			currencyData.matches(itemWithoutMeta);
+		});
+		testPerformance("  ", "ItemUtils#matchesData(item without meta)", warmupCount, testCount, () -> {
+			ItemUtils.matchesData(itemWithoutMeta, currencyItem);
+		});
+
+		testPerformance("  ", "ItemData#matches(item with other name)", warmupCount, testCount, () -> {
+			currencyData.matches(itemWithOtherName);
+		});
+		testPerformance("  ", "ItemUtils#matchesData(item with other name)", warmupCount, testCount, () -> {
+			ItemUtils.matchesData(itemWithOtherName, currencyItem);
+		});
+
+		testPerformance("  ", "ItemData#matches(other item type)", warmupCount, testCount, () -> {
+			currencyData.matches(otherItem);
+		});
+	}
 }
@@ -0,0 +1,148 @@
+package com.nisovin.shopkeepers.container.protection;
+
+import java.lang.reflect.Proxy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+
+public class ProtectedContainersTests {
+
+	private static final String WORLD_NAME = "world";
+	private static final int Y = 64;
+
+	private static PlayerShopkeeper createShopkeeper() {
+		// The container index does not invoke any methods of the shopkeepers:
+		return (PlayerShopkeeper) Proxy.newProxyInstance(PlayerShopkeeper.class.getClassLoader(),
+				new Class<?>[] { PlayerShopkeeper.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "equals":
+						return (proxy == args[0]);
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	// The protected containers are not expected to require the plugin, unless they get enabled.
+	private static ProtectedContainers createProtectedContainers() {
+		return new ProtectedContainers(null);
+	}
+
+	@Test
+	public void testContainerInsideChunk() {
+		ProtectedContainers protectedContainers = createProtectedContainers();
+		PlayerShopkeeper shopkeeper = createShopkeeper();
+		protectedContainers.addContainer(WORLD_NAME, 5, Y, 5, shopkeeper);
+
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 5, 5));
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 0, 15));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, -1, 5));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 16, 5));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 5, -1));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 5, 16));
+		Assert.assertFalse(protectedContainers.mightBeProtected("other world", 5, 5));
+
+		protectedContainers.removeContainer(WORLD_NAME, 5, Y, 5, shopkeeper);
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 5, 5));
+	}
+
+	@Test
+	public void testContainersAtChunkBorders() {
+		ProtectedContainers protectedContainers = createProtectedContainers();
+		PlayerShopkeeper shopkeeper = createShopkeeper();
+
+		// A chest at the x+1 / z-1 corner of chunk (0, 0) may be connected to chests in the chunks (1, 0) and (0, -1):
+		protectedContainers.addContainer(WORLD_NAME, 15, Y, 0, shopkeeper);
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 15, 0));
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 16, 0));
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 15, -1));
+		// Chests cannot connect diagonally:
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 16, -1));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, -1, 0));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 15, 16));
+		protectedContainers.removeContainer(WORLD_NAME, 15, Y, 0, shopkeeper);
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 15, 0));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 16, 0));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 15, -1));
+
+		// A chest at the x-1 / z+1 corner of chunk (-1, -1) may be connected to chests in the chunks (-2, -1) and
+		// (-1, 0):
+		protectedContainers.addContainer(WORLD_NAME, -16, Y, -1, shopkeeper);
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, -16, -1));
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, -17, -1));
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, -16, 0));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, -17, 0));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 0, -1));
+		protectedContainers.removeContainer(WORLD_NAME, -16, Y, -1, shopkeeper);
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, -16, -1));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, -17, -1));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, -16, 0));
+	}
+
+	@Test
+	public void testDoubleChestAcrossChunkBorder() {
+		ProtectedContainers protectedContainers = createProtectedContainers();
+		PlayerShopkeeper shopkeeper1 = createShopkeeper();
+		PlayerShopkeeper shopkeeper2 = createShopkeeper();
+
+		// Both halves of a double chest that spans the chunks (0, 0) and (1, 0) are used by shopkeepers:
+		protectedContainers.addContainer(WORLD_NAME, 15, Y, 8, shopkeeper1);
+		protectedContainers.addContainer(WORLD_NAME, 16, Y, 8, shopkeeper2);
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 15, 8));
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 16, 8));
+
+		// Each chunk is still counted for the remaining half:
+		protectedContainers.removeContainer(WORLD_NAME, 15, Y, 8, shopkeeper1);
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 15, 8));
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 16, 8));
+
+		protectedContainers.removeContainer(WORLD_NAME, 16, Y, 8, shopkeeper2);
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 15, 8));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 16, 8));
+
+		// The same along the z axis, for a double chest that spans the chunks (0, -1) and (0, 0):
+		protectedContainers.addContainer(WORLD_NAME, 8, Y, -1, shopkeeper1);
+		protectedContainers.addContainer(WORLD_NAME, 8, Y, 0, shopkeeper2);
+		protectedContainers.removeContainer(WORLD_NAME, 8, Y, 0, shopkeeper2);
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 8, -1));
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 8, 0));
+		protectedContainers.removeContainer(WORLD_NAME, 8, Y, -1, shopkeeper1);
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 8, -1));
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 8, 0));
+	}
+
+	@Test
+	public void testContainerCounting() {
+		ProtectedContainers protectedContainers = createProtectedContainers();
+		PlayerShopkeeper shopkeeper1 = createShopkeeper();
+		PlayerShopkeeper shopkeeper2 = createShopkeeper();
+
+		// Two containers inside the same chunk:
+		protectedContainers.addContainer(WORLD_NAME, 3, Y, 3, shopkeeper1);
+		protectedContainers.addContainer(WORLD_NAME, 7, Y, 7, shopkeeper2);
+		protectedContainers.removeContainer(WORLD_NAME, 3, Y, 3, shopkeeper1);
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 3, 3));
+		protectedContainers.removeContainer(WORLD_NAME, 7, Y, 7, shopkeeper2);
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 3, 3));
+
+		// Two shopkeepers using the same container: The container is only counted once.
+		protectedContainers.addContainer(WORLD_NAME, 3, Y, 3, shopkeeper1);
+		protectedContainers.addContainer(WORLD_NAME, 3, Y, 3, shopkeeper2);
+		Assert.assertEquals(2, protectedContainers.getShopkeepers(WORLD_NAME, 3, Y, 3).size());
+		protectedContainers.removeContainer(WORLD_NAME, 3, Y, 3, shopkeeper1);
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 3, 3));
+		protectedContainers.removeContainer(WORLD_NAME, 3, Y, 3, shopkeeper2);
+		Assert.assertFalse(protectedContainers.mightBeProtected(WORLD_NAME, 3, 3));
+		Assert.assertTrue(protectedContainers.getShopkeepers(WORLD_NAME, 3, Y, 3).isEmpty());
+
+		// Removing a container that is not protected has no effect:
+		protectedContainers.addContainer(WORLD_NAME, 3, Y, 3, shopkeeper1);
+		protectedContainers.removeContainer(WORLD_NAME, 3, Y + 1, 3, shopkeeper1);
+		protectedContainers.removeContainer(WORLD_NAME, 3, Y, 3, shopkeeper2);
+		Assert.assertTrue(protectedContainers.mightBeProtected(WORLD_NAME, 3, 3));
+	}
+}
@@ -0,0 +1,50 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.util.Map;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.ItemDataTest;
+
+public class BinaryDataFormatTests extends AbstractBukkitTest {
+
+	private static final int OFFERS_COUNT = 5;
+
+	// Data similar to the save data of an admin shopkeeper:
+	private static ConfigurationSection createShopkeeperData() {
+		MemoryConfiguration shopkeeperData = new MemoryConfiguration();
+		shopkeeperData.set("uniqueId", "7f3c8d52-4f5e-4b7a-9c0e-2b5f0a7e1d3c");
+		shopkeeperData.set("name", "&aShopkeeper");
+		shopkeeperData.set("world", "world");
+		shopkeeperData.set("x", 100);
+		shopkeeperData.set("y", 64);
+		shopkeeperData.set("z", -200);
+		shopkeeperData.set("yaw", 90.0F);
+		shopkeeperData.set("type", "admin");
+		shopkeeperData.set("object.type", "villager");
+		shopkeeperData.set("object.profession", "FARMER");
+		shopkeeperData.set("trade-perm", "");
+		for (int i = 1; i <= OFFERS_COUNT; i++) {
+			String offerKey = "recipes." + i;
+			shopkeeperData.set(offerKey + ".resultItem", ItemDataTest.createItemStackFull());
+			shopkeeperData.set(offerKey + ".item1", new ItemStack(Material.EMERALD, i));
+			shopkeeperData.set(offerKey + ".item2", new ItemStack(Material.DIAMOND, 2));
+		}
+		return shopkeeperData;
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		Map<String, Object> values = DataSnapshot.of(createShopkeeperData()).getValues();
+		byte[] encoded = BinaryDataFormat.encode(values);
+		ConfigurationSection decoded = BinaryDataFormat.decode(encoded);
+		Assert.assertTrue(decoded.get("recipes.1.resultItem") instanceof ItemStack);
+		Assert.assertEquals(values, DataSnapshot.of(decoded).getValues());
+	}
+}
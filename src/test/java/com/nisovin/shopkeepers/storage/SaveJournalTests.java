@@ -0,0 +1,163 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.Log;
+
+public class SaveJournalTests extends AbstractBukkitTest {
+
+	private static final String DATA_VERSION = "2|1976";
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@BeforeClass
+	public static void setupLogger() {
+		// The journal logs warnings about ignored entries:
+		if (Log.getLogger() == null) {
+			Log.setLogger(Logger.getLogger(SaveJournalTests.class.getName()));
+		}
+	}
+
+	private static SaveData createSaveData(int... shopkeeperIds) {
+		SaveData saveData = new SaveData(DATA_VERSION);
+		for (int shopkeeperId : shopkeeperIds) {
+			MemoryConfiguration shopkeeperData = new MemoryConfiguration();
+			shopkeeperData.set("name", "Shopkeeper " + shopkeeperId);
+			shopkeeperData.set("x", shopkeeperId);
+			saveData.shopkeepers.put(shopkeeperId, DataSnapshot.of(shopkeeperData));
+		}
+		return saveData;
+	}
+
+	private SaveJournal createJournal() {
+		return new SaveJournal(new File(tempFolder.getRoot(), "save.journal"));
+	}
+
+	private static void assertStoreEntry(SaveJournal.JournalEntry entry, int shopkeeperId) throws Exception {
+		Assert.assertEquals(SaveJournal.OP_STORE, entry.operation);
+		Assert.assertEquals(shopkeeperId, entry.shopkeeperId);
+		Assert.assertEquals("Shopkeeper " + shopkeeperId, StorageBackend.loadYaml(entry.data).getString("name"));
+	}
+
+	@Test
+	public void testAppendAndReplay() throws Exception {
+		SaveJournal journal = this.createJournal();
+		journal.append(createSaveData(1, 2));
+		SaveData deletion = createSaveData(3);
+		deletion.deletedShopkeepers.add(1);
+		journal.append(deletion);
+		long size = journal.getSize();
+		Assert.assertEquals(size, journal.getFile().length());
+		journal.close();
+
+		// Replays the entries in the order in which they were written, with deletions before stores:
+		SaveJournal reopened = this.createJournal();
+		List<SaveJournal.JournalEntry> entries = reopened.read();
+		Assert.assertEquals(4, entries.size());
+		assertStoreEntry(entries.get(0), 1);
+		assertStoreEntry(entries.get(1), 2);
+		Assert.assertEquals(SaveJournal.OP_DELETE, entries.get(2).operation);
+		Assert.assertEquals(1, entries.get(2).shopkeeperId);
+		Assert.assertEquals("", entries.get(2).data);
+		assertStoreEntry(entries.get(3), 3);
+		Assert.assertEquals(size, reopened.getSize());
+		reopened.close();
+	}
+
+	@Test
+	public void testCorruptedTailIsTruncated() throws Exception {
+		SaveJournal journal = this.createJournal();
+		journal.append(createSaveData(1));
+		long validSize = journal.getSize();
+		journal.append(createSaveData(2));
+		journal.close();
+
+		// Corrupt the checksum of the last entry:
+		File file = journal.getFile();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(raf.length() - 1);
+			int lastByte = raf.read();
+			raf.seek(raf.length() - 1);
+			raf.write(lastByte ^ 0xFF);
+		}
+
+		List<SaveJournal.JournalEntry> entries = journal.read();
+		Assert.assertEquals(1, entries.size());
+		assertStoreEntry(entries.get(0), 1);
+		Assert.assertEquals(validSize, journal.getSize());
+
+		// The next append overwrites the corrupted entry:
+		journal.append(createSaveData(3));
+		journal.close();
+		entries = journal.read();
+		Assert.assertEquals(2, entries.size());
+		assertStoreEntry(entries.get(0), 1);
+		assertStoreEntry(entries.get(1), 3);
+		Assert.assertEquals(file.length(), journal.getSize());
+		journal.close();
+	}
+
+	@Test
+	public void testPartialTailIsTruncated() throws Exception {
+		SaveJournal journal = this.createJournal();
+		journal.append(createSaveData(1));
+		long validSize = journal.getSize();
+		journal.close();
+
+		// Simulate an entry that was only partially written:
+		File file = journal.getFile();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(raf.length());
+			raf.writeByte(SaveJournal.OP_STORE);
+			raf.writeInt(2);
+			raf.writeInt(1000);
+			raf.write(new byte[10]);
+		}
+
+		List<SaveJournal.JournalEntry> entries = journal.read();
+		Assert.assertEquals(1, entries.size());
+		assertStoreEntry(entries.get(0), 1);
+		Assert.assertEquals(validSize, journal.getSize());
+
+		journal.append(createSaveData(2));
+		journal.close();
+		Assert.assertEquals(journal.getSize(), file.length());
+		entries = journal.read();
+		Assert.assertEquals(2, entries.size());
+		assertStoreEntry(entries.get(1), 2);
+		journal.close();
+	}
+
+	@Test
+	public void testClearAfterCompaction() throws IOException {
+		SaveJournal journal = this.createJournal();
+		journal.append(createSaveData(1, 2));
+		Assert.assertTrue(journal.getSize() > 0L);
+
+		// The storage clears the journal once the backend has persisted the changes:
+		journal.clear();
+		Assert.assertEquals(0L, journal.getSize());
+		Assert.assertFalse(journal.getFile().exists());
+		Assert.assertTrue(journal.read().isEmpty());
+
+		// The journal can be appended to again after it has been cleared:
+		journal.append(createSaveData(3));
+		List<SaveJournal.JournalEntry> entries = journal.read();
+		Assert.assertEquals(1, entries.size());
+		Assert.assertEquals(3, entries.get(0).shopkeeperId);
+		journal.close();
+	}
+}
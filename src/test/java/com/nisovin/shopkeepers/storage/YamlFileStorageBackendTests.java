@@ -0,0 +1,73 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.ItemDataTest;
+
+public class YamlFileStorageBackendTests extends AbstractBukkitTest {
+
+	private static final String DATA_VERSION = "2|1976";
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private static DataSnapshot createShopkeeperData(int shopkeeperId, String name) {
+		MemoryConfiguration shopkeeperData = new MemoryConfiguration();
+		shopkeeperData.set("name", name);
+		shopkeeperData.set("x", shopkeeperId);
+		shopkeeperData.set("recipes.1.resultItem", ItemDataTest.createItemStackFull());
+		shopkeeperData.set("recipes.1.item1", new ItemStack(Material.EMERALD, shopkeeperId));
+		return DataSnapshot.of(shopkeeperData);
+	}
+
+	// Unchanged loaded entries are written back as they were loaded.
+	@Test
+	public void testLoadedEntriesAreWrittenBack() throws Exception {
+		File saveFile = new File(tempFolder.getRoot(), "save.yml");
+		YamlFileStorageBackend backend = new YamlFileStorageBackend(saveFile);
+		SaveData saveData = new SaveData(DATA_VERSION);
+		saveData.shopkeepers.put(1, createShopkeeperData(1, "First"));
+		saveData.shopkeepers.put(2, createShopkeeperData(2, "Second"));
+		saveData.shopkeepers.put(3, createShopkeeperData(3, "Third"));
+		backend.save(saveData);
+		String savedContent = new String(Files.readAllBytes(saveFile.toPath()), StandardCharsets.UTF_8);
+
+		YamlFileStorageBackend loadingBackend = new YamlFileStorageBackend(saveFile);
+		StoredData storedData = loadingBackend.load(null);
+		Assert.assertEquals(DATA_VERSION, storedData.dataVersion);
+		Assert.assertEquals(3, storedData.shopkeepers.size());
+		Assert.assertEquals("Second", storedData.shopkeepers.get(2).getString("name"));
+
+		// Change one shopkeeper and delete another one:
+		SaveData changes = new SaveData(DATA_VERSION);
+		changes.shopkeepers.put(2, createShopkeeperData(2, "Renamed"));
+		changes.deletedShopkeepers.add(3);
+		loadingBackend.save(changes);
+
+		String changedContent = new String(Files.readAllBytes(saveFile.toPath()), StandardCharsets.UTF_8);
+		Assert.assertNotEquals(savedContent, changedContent);
+		StoredData changedData = new YamlFileStorageBackend(saveFile).load(null);
+		Assert.assertEquals(2, changedData.shopkeepers.size());
+		Assert.assertEquals(createShopkeeperData(1, "First").getValues(), DataSnapshot.of(changedData.shopkeepers.get(1)).getValues());
+		Assert.assertEquals("Renamed", changedData.shopkeepers.get(2).getString("name"));
+		Assert.assertTrue(changedData.shopkeepers.get(2).get("recipes.1.resultItem") instanceof ItemStack);
+
+		// Restoring the original data results in the original file content:
+		SaveData restore = new SaveData(DATA_VERSION);
+		restore.shopkeepers.put(2, createShopkeeperData(2, "Second"));
+		restore.shopkeepers.put(3, createShopkeeperData(3, "Third"));
+		loadingBackend.save(restore);
+		Assert.assertEquals(savedContent, new String(Files.readAllBytes(saveFile.toPath()), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,24 @@
+package com.nisovin.shopkeepers.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BlockPositionKeysTests {
+
+	@Test
+	public void testBlockPositionKeys() {
+		int[] xzCoords = { 0, 1, -1, 15, -16, 29999999, -29999999, (1 << 25) - 1, -(1 << 25) };
+		int[] yCoords = { 0, 1, -1, 255, -64, 2047, -2048 };
+		for (int x : xzCoords) {
+			for (int z : xzCoords) {
+				for (int y : yCoords) {
+					long key = BlockPositionKeys.of(x, y, z);
+					Assert.assertEquals(x, BlockPositionKeys.getX(key));
+					Assert.assertEquals(y, BlockPositionKeys.getY(key));
+					Assert.assertEquals(z, BlockPositionKeys.getZ(key));
+				}
+			}
+		}
+		Assert.assertNotEquals(BlockPositionKeys.of(1, 0, 0), BlockPositionKeys.of(0, 0, 1));
+	}
+}
@@ -345,4 +345,23 @@ public class ItemDataTest extends AbstractBukkitTest {
 		Assert.assertFalse("!ItemData#matches(different item type)", itemData.matches(new ItemData(differentItemType)));
 		Assert.assertFalse("!ItemData#matches(different item data)", itemData.matches(new ItemData(differentItemData)));
 	}
+
+	@Test
+	public void testItemDataMatchesItemStack() {
+		ItemData itemData = new ItemData(createItemStackMinimal());
+		ItemStack withoutItemMeta = createItemStackSimple();
+		ItemStack withAdditionalData = createItemStackFull();
+		ItemStack differentName = ItemUtils.setItemStackName(createItemStackFull(), "different name");
+		ItemStack withoutName = ItemUtils.setItemStackName(createItemStackFull(), null);
+
+		Assert.assertTrue("ItemData#matches(ItemStack)", itemData.matches(createItemStackMinimal()));
+		Assert.assertTrue("ItemData#matches(additional item data)", itemData.matches(withAdditionalData));
+		Assert.assertFalse("!ItemData#matches(no item meta)", itemData.matches(withoutItemMeta));
+		Assert.assertFalse("!ItemData#matches(different name)", itemData.matches(differentName));
+		Assert.assertFalse("!ItemData#matches(no name)", itemData.matches(withoutName));
+		Assert.assertTrue("ItemData without data matches(no item meta)", new ItemData(Material.DIAMOND_SWORD).matches(withoutItemMeta));
+
+		ItemData itemDataWithLore = new ItemData(createItemStackFull());
+		Assert.assertFalse("!ItemData#matches(no lore)", itemDataWithLore.matches(createItemStackMinimal()));
+	}
 }
@@ -0,0 +1,42 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.List;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+public class ItemUtilsTests extends AbstractBukkitTest {
+
+	@Test
+	public void testCountItems() {
+		ItemStack[] contents = new ItemStack[] {
+				new ItemStack(Material.STONE, 10),
+				ItemUtils.createItemStack(Material.STONE, 2, "a", null),
+				null,
+				ItemUtils.createItemStack(Material.STONE, 3, "b", null),
+				new ItemStack(Material.DIRT, 5),
+				ItemUtils.createItemStack(Material.STONE, 4, "a", null),
+				new ItemStack(Material.STONE, 64),
+				new ItemStack(Material.AIR),
+				ItemUtils.createItemStack(Material.STONE, 1, "b", null)
+		};
+		List<ItemCount> itemCounts = ItemUtils.countItems(contents, null);
+		Assert.assertEquals(4, itemCounts.size());
+		// In the order in which the items are first encountered:
+		Assert.assertTrue(itemCounts.get(0).getItem().isSimilar(new ItemStack(Material.STONE)));
+		Assert.assertEquals(74, itemCounts.get(0).getAmount());
+		Assert.assertTrue(itemCounts.get(1).getItem().isSimilar(ItemUtils.createItemStack(Material.STONE, 1, "a", null)));
+		Assert.assertEquals(6, itemCounts.get(1).getAmount());
+		Assert.assertEquals(4, itemCounts.get(2).getAmount());
+		Assert.assertEquals(Material.DIRT, itemCounts.get(3).getItem().getType());
+		Assert.assertEquals(5, itemCounts.get(3).getAmount());
+
+		List<ItemCount> filteredCounts = ItemUtils.countItems(contents, (item) -> item.getType() == Material.DIRT);
+		Assert.assertEquals(1, filteredCounts.size());
+		Assert.assertEquals(5, filteredCounts.get(0).getAmount());
+	}
+}
@@ -0,0 +1,98 @@
+package com.nisovin.shopkeepers.util;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongObjectHashMapTests {
+
+	@Test
+	public void testChunkKeys() {
+		int[] coords = { 0, 1, -1, 12345, -12345, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		for (int chunkX : coords) {
+			for (int chunkZ : coords) {
+				long chunkKey = ChunkKeys.of(chunkX, chunkZ);
+				Assert.assertEquals(chunkX, ChunkKeys.getChunkX(chunkKey));
+				Assert.assertEquals(chunkZ, ChunkKeys.getChunkZ(chunkKey));
+			}
+		}
+		Assert.assertEquals(ChunkKeys.of(-1, 0), ChunkKeys.fromBlockPos(-1, 15));
+	}
+
+	@Test
+	public void testPutGetRemove() {
+		LongObjectHashMap<String> map = new LongObjectHashMap<>();
+		Assert.assertNull(map.put(ChunkKeys.of(1, 2), "a"));
+		Assert.assertEquals("a", map.put(ChunkKeys.of(1, 2), "b"));
+		Assert.assertEquals("b", map.get(ChunkKeys.of(1, 2)));
+		Assert.assertNull(map.get(ChunkKeys.of(2, 1)));
+		Assert.assertEquals(1, map.size());
+		Assert.assertEquals("b", map.remove(ChunkKeys.of(1, 2)));
+		Assert.assertNull(map.remove(ChunkKeys.of(1, 2)));
+		Assert.assertTrue(map.isEmpty());
+	}
+
+	// Compares the map against a HashMap for random operations, including removals within probe sequences.
+	@Test
+	public void testRandomOperations() {
+		LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+		Map<Long, Long> expected = new HashMap<>();
+		Random random = new Random(42L);
+		for (int i = 0; i < 100000; i++) {
+			long key = ChunkKeys.of(random.nextInt(64) - 32, random.nextInt(64) - 32);
+			if (random.nextInt(3) == 0) {
+				Assert.assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				Long value = random.nextLong();
+				Assert.assertEquals(expected.put(key, value), map.put(key, value));
+			}
+			Assert.assertEquals(expected.size(), map.size());
+		}
+		for (int chunkX = -32; chunkX < 32; chunkX++) {
+			for (int chunkZ = -32; chunkZ < 32; chunkZ++) {
+				long key = ChunkKeys.of(chunkX, chunkZ);
+				Assert.assertEquals(expected.get(key), map.get(key));
+			}
+		}
+	}
+
+	@Test
+	public void testValues() {
+		LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+		Assert.assertFalse(map.values().iterator().hasNext());
+		Map<Long, Long> expected = new HashMap<>();
+		Random random = new Random(42L);
+		for (int i = 0; i < 1000; i++) {
+			long key = ChunkKeys.of(random.nextInt(64) - 32, random.nextInt(64) - 32);
+			if (random.nextInt(3) == 0) {
+				expected.remove(key);
+				map.remove(key);
+			} else {
+				expected.put(key, key);
+				map.put(key, key);
+			}
+		}
+		Assert.assertEquals(expected.size(), map.values().size());
+		List<Long> values = new ArrayList<>(map.values());
+		Assert.assertEquals(expected.size(), values.size());
+		Assert.assertTrue(values.containsAll(expected.values()));
+	}
+
+	@Test(expected = ConcurrentModificationException.class)
+	public void testValuesConcurrentModification() {
+		LongObjectHashMap<String> map = new LongObjectHashMap<>();
+		map.put(ChunkKeys.of(0, 0), "a");
+		map.put(ChunkKeys.of(1, 0), "b");
+		Iterator<String> iterator = map.values().iterator();
+		iterator.next();
+		map.remove(ChunkKeys.of(0, 0));
+		iterator.next();
+	}
+}